@@ -54,4 +54,4 @@ Copy-Item "highscore.txt" -Destination "bin" -Force
 Write-Host "----------------------------------------"
 Write-Host "Build concluído. Iniciando o Jogo..."
 Write-Host "----------------------------------------"
-java --enable-preview -cp "bin;lib/sqlite-jdbc-3.51.0.0.jar" com.tetris.Main
\ No newline at end of file
+java --enable-preview -cp "bin;lib/sqlite-jdbc-3.51.0.0.jar" com.tetris.Main @args
\ No newline at end of file
@@ -32,4 +32,4 @@ cp highscore.txt bin/
 echo "----------------------------------------"
 echo "Build concluído. Iniciando o Jogo..."
 echo "----------------------------------------"
-java -cp "bin:lib/sqlite-jdbc-3.51.0.0.jar" com.tetris.Main
+java -cp "bin:lib/sqlite-jdbc-3.51.0.0.jar" com.tetris.Main "$@"
@@ -1,9 +1,23 @@
 package com.tetris;
 
 import com.tetris.controller.GameController;
+import com.tetris.controller.ReplayController;
+import com.tetris.db.AutoSave;
+import com.tetris.db.Database;
+import com.tetris.db.HighScoreStore;
 import com.tetris.model.Board;
+import com.tetris.model.GameEngine;
+import com.tetris.replay.InputRecorder;
+import com.tetris.replay.Replay;
+import com.tetris.replay.ReplayArchive;
+import com.tetris.replay.ReplayPlayer;
 import com.tetris.view.GameFrame;
+import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Ponto de entrada principal da aplicação.
@@ -11,16 +25,103 @@ import javax.swing.SwingUtilities;
  */
 public class Main {
 
+    private static final String REPLAY_DIRECTORY = "replays";
+
+    /**
+     * Argumentos opcionais: {@code <largura> <altura>} do tabuleiro, para o modo de stress
+     * com tabuleiros grandes (até 64 colunas). Sem argumentos usa o tabuleiro padrão 10x20.
+     * Com {@code --record} cada partida é gravada na pasta replays/ (ver InputRecorder).
+     * Com {@code --archive <pasta>} as partidas são acrescentadas a um ReplayArchive, ligadas
+     * à sua linha em game_session, em vez de ficheiros soltos.
+     * Com {@code --replay <ficheiro> [--speed <x>]} mostra uma partida gravada em vez de jogar.
+     * Se a última partida ficou a meio (ver AutoSave), oferece retomá-la.
+     */
     public static void main(String[] args) {
+        List<String> positional = new ArrayList<>();
+        boolean record = false;
+        String replayFile = null;
+        String archiveDirectory = null;
+        double speed = 1;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--record")) {
+                record = true;
+            } else if (args[i].equals("--replay") && i + 1 < args.length) {
+                replayFile = args[++i];
+            } else if (args[i].equals("--archive") && i + 1 < args.length) {
+                archiveDirectory = args[++i];
+            } else if (args[i].equals("--speed") && i + 1 < args.length) {
+                speed = Double.parseDouble(args[++i]);
+            } else {
+                positional.add(args[i]);
+            }
+        }
+        if (replayFile != null) {
+            showReplay(Path.of(replayFile), speed);
+            return;
+        }
+        int width = positional.size() >= 2 ? Integer.parseInt(positional.get(0)) : Board.BOARD_WIDTH;
+        int height = positional.size() >= 2 ? Integer.parseInt(positional.get(1)) : Board.BOARD_HEIGHT;
+        boolean recordGames = record;
+        ReplayArchive archive = archiveDirectory != null ? openArchive(Path.of(archiveDirectory)) : null;
+        AutoSave.SavedGame savedGame = AutoSave.load(Path.of(AutoSave.DEFAULT_FILE));
+        // Conexão e esquema prontos antes da primeira partida: gravar no fim não paga este custo
+        Database.open();
+
         SwingUtilities.invokeLater(() -> {
-            // 1. Cria o Model
-            Board board = new Board();
+            // 1. Cria o Model (o engine headless), retomando a partida gravada se o jogador quiser,
+            //    e carrega o recorde gravado
+            Board board = new Board(width, height);
+            String resumedPlayer = null;
+            if (savedGame != null && askResume(savedGame)) {
+                board = savedGame.board();
+                if (!board.isPaused()) {
+                    board.togglePause(); // Retoma em pausa: o jogador continua com P
+                }
+                resumedPlayer = savedGame.playerName();
+            }
+            GameEngine engine = new GameEngine(board);
+            board.setHighScore(Math.max(board.getHighScore(), HighScoreStore.load()));
+            InputRecorder recorder = recordGames && archive == null
+                    ? new InputRecorder(Path.of(REPLAY_DIRECTORY)) : null;
+            if (recorder != null) {
+                engine.setInputListener(recorder);
+            }
 
             // 2. Cria a View
             GameFrame gameFrame = new GameFrame();
 
             // 3. Cria o Controller e conecta o Model e a View
-            GameController gameController = new GameController(gameFrame, board);
+            GameController gameController = new GameController(gameFrame, engine);
+            if (archive != null) {
+                gameController.setReplayArchive(archive);
+            }
+            AutoSave autoSave = openAutoSave(board);
+            if (autoSave != null) {
+                if (resumedPlayer == null) {
+                    autoSave.clear(); // Partida recusada (ou nenhuma): não voltar a oferecê-la
+                }
+                gameController.setAutoSave(autoSave);
+            }
+            if (resumedPlayer != null) {
+                gameController.setPlayerName(resumedPlayer);
+            }
+
+            // Um só hook de saída, por ordem: pára o jogo e deixa a partida acabada chegar à base
+            // de dados e ao arquivo; depois grava o resto da partida em curso (--record) e fecha
+            // a gravação automática, a base de dados e o arquivo
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                gameController.stop();
+                if (recorder != null) {
+                    recorder.close();
+                }
+                if (autoSave != null) {
+                    closeAutoSave(autoSave);
+                }
+                Database.close();
+                if (archive != null) {
+                    closeArchive(archive);
+                }
+            }));
 
             // Conecta o controller à frame para que a UI (ex: OverlayPanel) possa usá-lo
             gameFrame.setController(gameController);
@@ -30,5 +131,63 @@ public class Main {
             gameFrame.setVisible(true);
         });
     }
-}
 
+    private static boolean askResume(AutoSave.SavedGame savedGame) {
+        Board saved = savedGame.board();
+        String message = String.format("Continuar a partida anterior de %s?%n%d pontos, nível %d, %d linhas",
+                savedGame.playerName().isEmpty() ? "Jogador1" : savedGame.playerName(),
+                saved.getScore(), saved.getLevel(), saved.getLinesCleared());
+        return JOptionPane.showConfirmDialog(null, message, "Tetris", JOptionPane.YES_NO_OPTION)
+                == JOptionPane.YES_OPTION;
+    }
+
+    private static AutoSave openAutoSave(Board board) {
+        try {
+            return AutoSave.open(Path.of(AutoSave.DEFAULT_FILE), board.getWidth(), board.getHeight());
+        } catch (IOException e) {
+            System.out.println("Gravação automática desligada: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void closeAutoSave(AutoSave autoSave) {
+        try {
+            autoSave.close();
+        } catch (IOException e) {
+            System.out.println("Falha ao fechar a gravação automática -> " + e.getMessage());
+        }
+    }
+
+    private static ReplayArchive openArchive(Path directory) {
+        try {
+            return ReplayArchive.open(directory);
+        } catch (IOException e) {
+            System.out.println("Não foi possível abrir o arquivo de replays " + directory + " -> " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void closeArchive(ReplayArchive archive) {
+        try {
+            archive.close();
+        } catch (IOException e) {
+            System.out.println("Falha ao fechar o arquivo de replays -> " + e.getMessage());
+        }
+    }
+
+    private static void showReplay(Path file, double speed) {
+        ReplayPlayer player;
+        try {
+            player = new ReplayPlayer(Replay.read(file));
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Não foi possível abrir o replay " + file + " -> " + e.getMessage());
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            GameFrame gameFrame = new GameFrame();
+            ReplayController replayController = new ReplayController(gameFrame, player, speed);
+            replayController.start();
+            gameFrame.setVisible(true);
+        });
+    }
+}
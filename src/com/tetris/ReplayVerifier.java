@@ -0,0 +1,166 @@
+package com.tetris;
+
+import com.tetris.db.Database;
+import com.tetris.db.GameSession;
+import com.tetris.model.Board;
+import com.tetris.replay.ArchiveEntry;
+import com.tetris.replay.Replay;
+import com.tetris.replay.ReplayArchive;
+import com.tetris.replay.ReplayPlayer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verificação em lote das pontuações gravadas: re-simula em paralelo, sem interface
+ * gráfica, as partidas de um ReplayArchive e compara o resultado final (pontuação,
+ * nível e linhas) com a linha de game_session ligada a cada gravação e com a pontuação
+ * do índice do arquivo. As partidas que não batem são assinaladas à medida que aparecem.
+ *
+ * Uso: {@code ReplayVerifier <pasta-do-arquivo> [--threads N] [--no-db]}
+ *
+ * As linhas de game_session são lidas antes, numa só consulta pelo intervalo de ids.
+ * Depois cada thread vai buscando blocos de partidas a um contador partilhado e
+ * percorre-os com ReplayArchive.forEach (gravações lidas do mapeamento, sem cópias).
+ */
+public class ReplayVerifier {
+
+    private static final int CHUNK_GAMES = 256;
+    // As partidas são reproduzidas de uma ponta à outra: basta o keyframe inicial
+    private static final int NO_KEYFRAMES = Integer.MAX_VALUE;
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Uso: ReplayVerifier <pasta-do-arquivo> [--threads N] [--no-db]");
+            return;
+        }
+        Path directory = Path.of(args[0]);
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean useDatabase = true;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--no-db" -> useDatabase = false;
+                default -> throw new IllegalArgumentException("Argumento desconhecido: " + args[i]);
+            }
+        }
+
+        boolean suspicious = false;
+        try (ReplayArchive archive = ReplayArchive.open(directory)) {
+            long games = archive.size();
+            Map<Long, GameSession> sessions = useDatabase ? loadSessions(archive) : Map.of();
+            System.out.printf("A verificar %d partidas de %s com %d threads (%d linhas de game_session)%n",
+                    games, directory, threads, sessions.size());
+
+            AtomicLong nextChunk = new AtomicLong();
+            AtomicLong verified = new AtomicLong();
+            AtomicLong mismatches = new AtomicLong();
+            AtomicLong totalInputs = new AtomicLong();
+            final boolean checkSessions = useDatabase;
+            long start = System.nanoTime();
+            Thread[] workers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                workers[t] = new Thread(() -> {
+                    try {
+                        for (long from = nextChunk.getAndAdd(CHUNK_GAMES); from < games;
+                             from = nextChunk.getAndAdd(CHUNK_GAMES)) {
+                            archive.forEach(from, from + CHUNK_GAMES, (entry, recording) -> {
+                                String problem = verify(entry, recording, sessions, checkSessions, totalInputs);
+                                verified.incrementAndGet();
+                                if (problem != null) {
+                                    mismatches.incrementAndGet();
+                                    System.out.printf("SUSPEITA partida %d (sessão %d, %s): %s%n",
+                                            entry.id(), entry.sessionId(), entry.playerName(), problem);
+                                }
+                            });
+                        }
+                    } catch (IOException e) {
+                        System.out.println("Falha ao ler o arquivo de replays -> " + e.getMessage());
+                    }
+                }, "replay-verifier-" + t);
+                workers[t].start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.println("\n=== Verificação de replays ===");
+            System.out.printf("%d partidas em %.2f s: %.0f partidas/s, %.0f inputs simulados/s%n",
+                    verified.get(), seconds, verified.get() / seconds, totalInputs.get() / seconds);
+            System.out.printf("%d corretas, %d suspeitas%n", verified.get() - mismatches.get(), mismatches.get());
+            suspicious = mismatches.get() > 0;
+        } catch (IOException e) {
+            System.out.println("Não foi possível abrir o arquivo de replays " + directory + " -> " + e.getMessage());
+        }
+        if (suspicious) {
+            System.exit(1);
+        }
+    }
+
+    // As linhas de game_session ligadas ao arquivo, numa só consulta pelo intervalo de ids
+    private static Map<Long, GameSession> loadSessions(ReplayArchive archive) throws IOException {
+        long[] range = {Long.MAX_VALUE, Long.MIN_VALUE};
+        // Só o índice é lido: as páginas das gravações mapeadas não chegam a ser tocadas
+        archive.forEach((entry, recording) -> {
+            if (entry.sessionId() != 0) {
+                range[0] = Math.min(range[0], entry.sessionId());
+                range[1] = Math.max(range[1], entry.sessionId());
+            }
+        });
+        Map<Long, GameSession> sessions = new HashMap<>();
+        if (range[0] <= range[1]) {
+            for (GameSession session : Database.getSessions(range[0], range[1])) {
+                sessions.put(session.id(), session);
+            }
+        }
+        return sessions;
+    }
+
+    /**
+     * Reproduz uma partida e compara o resultado com o que foi gravado.
+     *
+     * @return a descrição da diferença, ou null se tudo bate certo
+     */
+    private static String verify(ArchiveEntry entry, ByteBuffer recording, Map<Long, GameSession> sessions,
+                                 boolean checkSessions, AtomicLong totalInputs) {
+        Board board;
+        try {
+            Replay replay = Replay.read(recording);
+            if (!replay.isCompatible()) {
+                return "gravada com as regras versão " + replay.getRulesVersion();
+            }
+            ReplayPlayer player = new ReplayPlayer(replay, NO_KEYFRAMES);
+            player.playToEnd();
+            totalInputs.addAndGet(replay.getEventCount());
+            board = player.getBoard();
+        } catch (IOException | IllegalStateException e) {
+            return "gravação inválida (" + e.getMessage() + ")";
+        } catch (RuntimeException e) {
+            // Qualquer outra falha fica nesta partida: a thread segue para a seguinte
+            return "gravação inválida (" + e + ")";
+        }
+
+        if (board.getScore() != entry.score()) {
+            return String.format("índice do arquivo diz %d pontos, o replay dá %d", entry.score(), board.getScore());
+        }
+        if (!checkSessions || entry.sessionId() == 0) {
+            return null;
+        }
+        GameSession session = sessions.get(entry.sessionId());
+        if (session == null) {
+            return "sem linha em game_session";
+        }
+        if (session.score() != board.getScore() || session.level() != board.getLevel()
+                || session.linesCleared() != board.getLinesCleared()) {
+            return String.format("game_session diz %d pontos/nível %d/%d linhas, o replay dá %d/%d/%d",
+                    session.score(), session.level(), session.linesCleared(),
+                    board.getScore(), board.getLevel(), board.getLinesCleared());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,90 @@
+package com.tetris;
+
+import com.tetris.ai.HeuristicEvaluator;
+import com.tetris.ai.RolloutEvaluator;
+import com.tetris.model.Board;
+import com.tetris.model.GameEngine;
+
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Medição do RolloutEvaluator sem interface gráfica: joga partidas com sementes
+ * conhecidas em que cada peça é escolhida por simulação de Monte Carlo e mostra,
+ * por partida e no total, as continuações por segundo de cada thread (a métrica
+ * principal do avaliador), as continuações por segundo de relógio e o tempo médio
+ * por decisão.
+ *
+ * Uso: {@code RolloutBenchmark [--games N] [--max-pieces N] [--rollouts R] [--depth D]
+ * [--policy random|greedy] [--threads T] [--seed S]}
+ *
+ * As posições de cada decisão são repartidas por um ForkJoinPool de {@code T} threads;
+ * com {@code --threads 1} tudo corre na thread principal, sem pool.
+ */
+public class RolloutBenchmark {
+
+    public static void main(String[] args) {
+        int games = 3;
+        int maxPieces = 200;
+        int rollouts = RolloutEvaluator.DEFAULT_ROLLOUTS;
+        int depth = RolloutEvaluator.DEFAULT_DEPTH;
+        RolloutEvaluator.Policy policy = RolloutEvaluator.Policy.GREEDY;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long baseSeed = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--games" -> games = Integer.parseInt(args[++i]);
+                case "--max-pieces" -> maxPieces = Integer.parseInt(args[++i]);
+                case "--rollouts" -> rollouts = Integer.parseInt(args[++i]);
+                case "--depth" -> depth = Integer.parseInt(args[++i]);
+                case "--policy" -> policy = RolloutEvaluator.Policy.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--seed" -> baseSeed = Long.parseLong(args[++i]);
+                default -> throw new IllegalArgumentException("Argumento desconhecido: " + args[i]);
+            }
+        }
+        System.out.printf("Continuações: %d partidas de até %d peças, %d continuações de %d peças por posição,"
+                + " política %s, %d threads%n", games, maxPieces, rollouts, depth,
+                policy.name().toLowerCase(Locale.ROOT), threads);
+
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        RolloutEvaluator evaluator = new RolloutEvaluator(Board.BOARD_WIDTH, Board.BOARD_HEIGHT,
+                new HeuristicEvaluator(), rollouts, depth, policy, pool);
+        GameEngine engine = new GameEngine(new Board());
+
+        long totalPieces = 0;
+        long totalDecisionNanos = 0;
+        long start = System.nanoTime();
+        for (int game = 0; game < games; game++) {
+            long seed = baseSeed + game;
+            long gameStart = System.nanoTime();
+            long rolloutsBefore = evaluator.getTotalRollouts();
+            engine.reset(seed);
+            Board board = engine.getBoard();
+            int pieces = 0;
+            long decisionNanos = 0;
+            while (!board.isGameOver() && pieces < maxPieces && evaluator.playMove(engine)) {
+                pieces++;
+                decisionNanos += evaluator.getLastDecisionNanos();
+            }
+            double seconds = (System.nanoTime() - gameStart) / 1e9;
+            long gameRollouts = evaluator.getTotalRollouts() - rolloutsBefore;
+            System.out.printf("partida %d semente %d: %d linhas, %d peças, %.0f continuações/s,"
+                    + " %.2f ms por decisão (%.1f s)%n", game, seed, board.getLinesCleared(), pieces,
+                    gameRollouts / seconds, pieces == 0 ? 0 : decisionNanos / 1e6 / pieces, seconds);
+            totalPieces += pieces;
+            totalDecisionNanos += decisionNanos;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (pool != null) {
+            pool.shutdown();
+        }
+
+        System.out.println("\n=== Resultado ===");
+        System.out.printf("%d continuações em %.2f s: %.0f continuações/s (relógio)%n",
+                evaluator.getTotalRollouts(), seconds, evaluator.getTotalRollouts() / seconds);
+        System.out.printf("Por thread: %.0f continuações/s%n", evaluator.getRolloutsPerCoreSecond());
+        System.out.printf("%d decisões: %.2f ms por decisão%n", totalPieces,
+                totalPieces == 0 ? 0 : totalDecisionNanos / 1e6 / totalPieces);
+    }
+}
@@ -0,0 +1,287 @@
+package com.tetris;
+
+import com.tetris.ai.BeamSearchPlanner;
+import com.tetris.ai.HeuristicEvaluator;
+import com.tetris.ai.MlpEvaluator;
+import com.tetris.ai.MlpPlayer;
+import com.tetris.db.Database;
+import com.tetris.db.GameSession;
+import com.tetris.model.Board;
+import com.tetris.model.GameEngine;
+import com.tetris.replay.ReplayArchive;
+import com.tetris.replay.ReplayCapture;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Torneio de auto-jogo sem interface gráfica: corre N partidas do bot com sementes
+ * conhecidas, em paralelo em todos os núcleos, e mostra o resultado de cada uma à
+ * medida que termina. No fim mostra partidas/s, peças/s e a distribuição de
+ * pontuação, linhas e nível. Serve para comparar versões do engine e do bot.
+ *
+ * Uso: {@code Tournament <partidas> [--threads N] [--beam W] [--max-pieces N]
+ * [--seed S] [--width L --height A] [--no-db] [--archive PASTA] [--mlp PESOS]}
+ *
+ * Com {@code --mlp} o bot é o MlpPlayer, com a rede do ficheiro de pesos indicado
+ * (ver MlpEvaluator.save), em vez do planeador em feixe.
+ *
+ * Cada thread tem o seu GameEngine e o seu planeador, reutilizados entre partidas, e
+ * vai buscar o próximo índice de partida a um contador partilhado. Os resultados são
+ * gravados por uma thread à parte: em game_session, em lotes (Database.saveGames), e,
+ * com --archive, as gravações das partidas num ReplayArchive.
+ */
+public class Tournament {
+
+    private static final int DB_BATCH_SIZE = 256;
+    private static final GameResult END_OF_RESULTS = new GameResult(-1, 0, 0, 0, 0, 0, 0, null);
+
+    private record GameResult(int index, long seed, int score, int level, int lines, int pieces, long nanos,
+                              byte[] recording) {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Uso: Tournament <partidas> [--threads N] [--beam W] [--max-pieces N]"
+                    + " [--seed S] [--width L --height A] [--no-db] [--archive PASTA] [--mlp PESOS]");
+            return;
+        }
+        int games = Integer.parseInt(args[0]);
+        int threads = Runtime.getRuntime().availableProcessors();
+        int beamWidth = BeamSearchPlanner.DEFAULT_BEAM_WIDTH;
+        int maxPieces = 5000;
+        long baseSeed = 1;
+        int width = Board.BOARD_WIDTH;
+        int height = Board.BOARD_HEIGHT;
+        boolean useDatabase = true;
+        Path archiveDirectory = null;
+        Path mlpWeights = null;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--beam" -> beamWidth = Integer.parseInt(args[++i]);
+                case "--max-pieces" -> maxPieces = Integer.parseInt(args[++i]);
+                case "--seed" -> baseSeed = Long.parseLong(args[++i]);
+                case "--width" -> width = Integer.parseInt(args[++i]);
+                case "--height" -> height = Integer.parseInt(args[++i]);
+                case "--no-db" -> useDatabase = false;
+                case "--archive" -> archiveDirectory = Path.of(args[++i]);
+                case "--mlp" -> mlpWeights = Path.of(args[++i]);
+                default -> throw new IllegalArgumentException("Argumento desconhecido: " + args[i]);
+            }
+        }
+        MlpEvaluator network = null;
+        if (mlpWeights != null) {
+            try {
+                network = MlpEvaluator.load(mlpWeights);
+            } catch (IOException | IllegalArgumentException e) {
+                System.out.println("Não foi possível ler a rede " + mlpWeights + " -> " + e.getMessage());
+                return;
+            }
+            if (network.getInputSize() != MlpEvaluator.inputSize(width)) {
+                System.out.printf("A rede %s espera %d entradas; um tabuleiro com largura %d dá %d%n", mlpWeights,
+                        network.getInputSize(), width, MlpEvaluator.inputSize(width));
+                return;
+            }
+        }
+        String playerName = network != null ? "bot-mlp" : "bot-beam" + beamWidth;
+        System.out.printf("Torneio: %d partidas, %d threads, %s, até %d peças, tabuleiro %dx%d%n",
+                games, threads, network != null ? "rede " + mlpWeights.getFileName() : "feixe " + beamWidth,
+                maxPieces, width, height);
+
+        GameResult[] results = new GameResult[games];
+        AtomicInteger nextGame = new AtomicInteger();
+        AtomicLong totalPieces = new AtomicLong();
+        BlockingQueue<GameResult> pendingResults = new LinkedBlockingQueue<>();
+        ReplayArchive archive = null;
+        if (archiveDirectory != null) {
+            try {
+                archive = ReplayArchive.open(archiveDirectory);
+            } catch (IOException e) {
+                System.out.println("Não foi possível abrir o arquivo de replays " + archiveDirectory + " -> "
+                        + e.getMessage());
+                return;
+            }
+        }
+        Thread writer = useDatabase || archive != null
+                ? startResultWriter(pendingResults, useDatabase, archive, playerName) : null;
+
+        final int boardWidth = width, boardHeight = height, beam = beamWidth, pieceLimit = maxPieces;
+        final long seedBase = baseSeed;
+        final boolean saveResults = writer != null;
+        final boolean recordGames = archive != null;
+        final MlpEvaluator sharedNetwork = network;
+        long start = System.nanoTime();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                // Sem orçamento de tempo: o resultado de cada semente não depende da carga da máquina
+                GameEngine engine = new GameEngine(new Board(boardWidth, boardHeight));
+                Predicate<GameEngine> planner;
+                if (sharedNetwork != null) {
+                    planner = new MlpPlayer(boardWidth, boardHeight, sharedNetwork.copy())::playMove;
+                } else {
+                    planner = new BeamSearchPlanner(boardWidth, boardHeight,
+                            new HeuristicEvaluator(), beam, Long.MAX_VALUE)::playMove;
+                }
+                ReplayCapture capture = recordGames ? new ReplayCapture() : null;
+                engine.setInputListener(capture);
+                for (int index = nextGame.getAndIncrement(); index < games; index = nextGame.getAndIncrement()) {
+                    GameResult result;
+                    try {
+                        result = playGame(engine, planner, capture, index, seedBase + index, pieceLimit);
+                    } catch (RuntimeException e) {
+                        // Fica sem resultado (conta como falhada no resumo); a thread segue para a próxima
+                        System.out.printf("partida %d semente %d: FALHOU -> %s%n", index, seedBase + index, e);
+                        continue;
+                    }
+                    results[index] = result;
+                    totalPieces.addAndGet(result.pieces());
+                    System.out.printf("partida %d semente %d: %d pontos, %d linhas, nível %d, %d peças (%.1f s)%n",
+                            result.index(), result.seed(), result.score(), result.lines(), result.level(),
+                            result.pieces(), result.nanos() / 1e9);
+                    if (saveResults) {
+                        pendingResults.add(result);
+                    }
+                }
+            }, "tournament-" + t);
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        if (writer != null) {
+            pendingResults.add(END_OF_RESULTS);
+            writer.join();
+            Database.close();
+        }
+        if (archive != null) {
+            try {
+                System.out.printf("Arquivo de replays: %d partidas em %s%n", archive.size(), archiveDirectory);
+                archive.close();
+            } catch (IOException e) {
+                System.out.println("Falha ao fechar o arquivo de replays -> " + e.getMessage());
+            }
+        }
+        printSummary(results, totalPieces.get(), seconds);
+    }
+
+    // planner joga a peça atual e devolve false se não houver jogada (ver playMove dos bots)
+    private static GameResult playGame(GameEngine engine, Predicate<GameEngine> planner, ReplayCapture capture,
+                                       int index, long seed, int maxPieces) {
+        long start = System.nanoTime();
+        engine.reset(seed);
+        Board board = engine.getBoard();
+        int pieces = 0;
+        while (!board.isGameOver() && pieces < maxPieces && planner.test(engine)) {
+            pieces++;
+        }
+        return new GameResult(index, seed, board.getScore(), board.getLevel(), board.getLinesCleared(),
+                pieces, System.nanoTime() - start, capture != null ? capture.toByteArray() : null);
+    }
+
+    // Esvazia a fila em lotes: cada lote é uma transação com um único executeBatch,
+    // seguida das gravações das partidas do lote no arquivo
+    private static Thread startResultWriter(BlockingQueue<GameResult> pendingResults, boolean useDatabase,
+                                            ReplayArchive archive, String playerName) {
+        if (useDatabase) {
+            Database.open();
+        }
+        Thread writer = new Thread(() -> {
+            List<GameResult> batch = new ArrayList<>(DB_BATCH_SIZE);
+            List<GameSession> rows = new ArrayList<>(DB_BATCH_SIZE);
+            // Se o arquivo falhar, deixa de ser usado, mas a fila continua a ser esvaziada para a base de dados
+            ReplayArchive activeArchive = archive;
+            boolean finished = false;
+            try {
+                while (!finished) {
+                    batch.add(pendingResults.take());
+                    pendingResults.drainTo(batch, DB_BATCH_SIZE - batch.size());
+                    if (batch.get(batch.size() - 1) == END_OF_RESULTS) {
+                        batch.remove(batch.size() - 1);
+                        finished = true;
+                    }
+                    List<GameSession> saved = List.of();
+                    if (useDatabase) {
+                        for (GameResult result : batch) {
+                            rows.add(GameSession.of(playerName, result.score(), result.level(), result.lines()));
+                        }
+                        saved = Database.saveGames(rows);
+                        rows.clear();
+                    }
+                    if (activeArchive != null) {
+                        try {
+                            for (int i = 0; i < batch.size(); i++) {
+                                // Liga a gravação à linha de game_session, para o ReplayVerifier
+                                long sessionId = i < saved.size() ? saved.get(i).id() : 0;
+                                GameResult result = batch.get(i);
+                                activeArchive.append(ByteBuffer.wrap(result.recording()), sessionId, playerName,
+                                        result.score());
+                            }
+                        } catch (IOException e) {
+                            System.out.println("Falha ao gravar no arquivo de replays, as gravações seguintes"
+                                    + " não serão arquivadas -> " + e.getMessage());
+                            activeArchive = null;
+                        }
+                    }
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "tournament-writer");
+        writer.start();
+        return writer;
+    }
+
+    private static void printSummary(GameResult[] results, long totalPieces, double seconds) {
+        int games = 0;
+        int[] scores = new int[results.length];
+        int[] lines = new int[results.length];
+        int[] levels = new int[results.length];
+        for (GameResult result : results) {
+            // Partidas sem resultado falharam (ou a thread que as jogava morreu)
+            if (result != null) {
+                scores[games] = result.score();
+                lines[games] = result.lines();
+                levels[games] = result.level();
+                games++;
+            }
+        }
+        System.out.println("\n=== Resultado do torneio ===");
+        System.out.printf("%d partidas em %.2f s: %.2f partidas/s, %.0f peças/s%n",
+                games, seconds, games / seconds, totalPieces / seconds);
+        if (games < results.length) {
+            System.out.printf("%d partidas falharam%n", results.length - games);
+        }
+        printDistribution("pontuação", Arrays.copyOf(scores, games));
+        printDistribution("linhas", Arrays.copyOf(lines, games));
+        printDistribution("nível", Arrays.copyOf(levels, games));
+    }
+
+    private static void printDistribution(String name, int[] values) {
+        if (values.length == 0) return;
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        double mean = Arrays.stream(sorted).asLongStream().sum() / (double) sorted.length;
+        System.out.printf("%-10s média %.1f | mín %d | p25 %d | mediana %d | p75 %d | p90 %d | máx %d%n",
+                name, mean, sorted[0], percentile(sorted, 25), percentile(sorted, 50),
+                percentile(sorted, 75), percentile(sorted, 90), sorted[sorted.length - 1]);
+    }
+
+    private static int percentile(int[] sorted, int percent) {
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
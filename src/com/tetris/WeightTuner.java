@@ -0,0 +1,232 @@
+package com.tetris;
+
+import com.tetris.ai.AutoPlayer;
+import com.tetris.ai.HeuristicEvaluator;
+import com.tetris.model.Board;
+import com.tetris.model.GameEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Afinação dos pesos do HeuristicEvaluator pelo método da entropia cruzada (cross-entropy).
+ *
+ * Em cada geração sorteia {@code população} vetores de pesos de uma normal (média e
+ * desvio por peso), joga com cada um as mesmas {@code partidas} sementes e fica com
+ * os melhores (a elite) para calcular a média e o desvio da geração seguinte.
+ * As partidas são limitadas a {@code --max-pieces} peças para não durarem para sempre.
+ * A aptidão de um vetor é a média, por partida, das linhas limpas mais um termo de
+ * segurança: até {@code SAFETY_WEIGHT} do máximo de linhas possível no limite de peças,
+ * proporcional a quão baixa a pilha esteve em média. Sem ele, todos os vetores bons
+ * chegavam ao limite com quase as mesmas linhas e a elite deixava de se distinguir.
+ *
+ * Uso: {@code WeightTuner [--generations G] [--population P] [--elite E] [--games N]
+ * [--max-pieces N] [--threads T] [--seed S]}
+ *
+ * Cada thread tem um Worker com o seu GameEngine, avaliador e bot, criados uma vez e
+ * reutilizados em todas as partidas: durante a afinação só mudam os pesos. Por geração
+ * são mostradas as partidas/s e peças/s de cada worker e, no fim, as gerações/minuto.
+ */
+public class WeightTuner {
+
+    // Ruído extra somado ao desvio, para a procura não colapsar cedo demais
+    private static final double EXTRA_NOISE = 0.1;
+    private static final double EXTRA_NOISE_DECAY = 0.9;
+    private static final double SAFETY_WEIGHT = 0.1;
+
+    /**
+     * Estado de uma thread de simulação, reutilizado em todas as partidas.
+     */
+    private static final class Worker {
+        private final GameEngine engine = new GameEngine(new Board());
+        private final HeuristicEvaluator evaluator = new HeuristicEvaluator();
+        private final AutoPlayer player = new AutoPlayer(Board.BOARD_WIDTH, Board.BOARD_HEIGHT, evaluator, null);
+        private long games;
+        private long pieces;
+        private long busyNanos;
+        private int lastLines;
+
+        // Joga uma partida e devolve a aptidão (as linhas limpas ficam em lastLines)
+        double play(double[] weights, long seed, int maxPieces) {
+            long start = System.nanoTime();
+            evaluator.setWeights(weights);
+            engine.reset(seed);
+            Board board = engine.getBoard();
+            int placed = 0;
+            long stackHeightSum = 0;
+            while (!board.isGameOver() && placed < maxPieces && player.playMove(engine)) {
+                placed++;
+                stackHeightSum += board.getStackHeight();
+            }
+            games++;
+            pieces += placed;
+            busyNanos += System.nanoTime() - start;
+            lastLines = board.getLinesCleared();
+
+            // Uma partida perdida conta com a pilha no topo nas peças que faltaram
+            int height = board.getHeight();
+            double meanStackHeight = (stackHeightSum + (long) (maxPieces - placed) * height) / (double) maxPieces;
+            double maxLines = maxPieces * 4.0 / board.getWidth();
+            return lastLines + SAFETY_WEIGHT * maxLines * (1 - meanStackHeight / height);
+        }
+
+        void resetCounters() {
+            games = 0;
+            pieces = 0;
+            busyNanos = 0;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        int generations = 20;
+        int population = 50;
+        int elite = 10;
+        int games = 8;
+        int maxPieces = 2000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--generations" -> generations = Integer.parseInt(args[++i]);
+                case "--population" -> population = Integer.parseInt(args[++i]);
+                case "--elite" -> elite = Integer.parseInt(args[++i]);
+                case "--games" -> games = Integer.parseInt(args[++i]);
+                case "--max-pieces" -> maxPieces = Integer.parseInt(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                default -> throw new IllegalArgumentException("Argumento desconhecido: " + args[i]);
+            }
+        }
+        if (elite < 1 || elite > population) {
+            throw new IllegalArgumentException("A elite tem de estar entre 1 e a população");
+        }
+        System.out.printf("Afinação: %d gerações, população %d, elite %d, %d partidas de até %d peças, %d threads%n",
+                generations, population, elite, games, maxPieces, threads);
+
+        int n = HeuristicEvaluator.FEATURE_COUNT;
+        double[] mean = HeuristicEvaluator.DEFAULT_WEIGHTS.clone();
+        double[] deviation = new double[n];
+        Arrays.fill(deviation, 0.5);
+        double extraNoise = EXTRA_NOISE;
+        Random random = new Random(seed);
+
+        double[][] candidates = new double[population][n];
+        double[] fitness = new double[population];
+        double[] scores = new double[population * games];
+        int[] lines = new int[population * games];
+        double[] meanLines = new double[population];
+        Integer[] order = new Integer[population];
+        double[] bestWeights = mean.clone();
+        double bestFitness = Double.NEGATIVE_INFINITY;
+
+        Worker[] workers = new Worker[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Worker();
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long tuningStart = System.nanoTime();
+
+        for (int generation = 0; generation < generations; generation++) {
+            long generationStart = System.nanoTime();
+            for (int c = 0; c < population; c++) {
+                for (int k = 0; k < n; k++) {
+                    candidates[c][k] = mean[k] + deviation[k] * random.nextGaussian();
+                }
+            }
+
+            // Todos os candidatos jogam as mesmas sementes: a diferença vem só dos pesos
+            long generationSeed = seed + (long) generation * games;
+            int jobs = population * games;
+            int gamesPerCandidate = games, pieceLimit = maxPieces;
+            AtomicInteger nextJob = new AtomicInteger();
+            List<Callable<Void>> tasks = new ArrayList<>(threads);
+            for (Worker worker : workers) {
+                worker.resetCounters();
+                tasks.add(() -> {
+                    for (int job = nextJob.getAndIncrement(); job < jobs; job = nextJob.getAndIncrement()) {
+                        int candidate = job / gamesPerCandidate;
+                        long gameSeed = generationSeed + job % gamesPerCandidate;
+                        scores[job] = worker.play(candidates[candidate], gameSeed, pieceLimit);
+                        lines[job] = worker.lastLines;
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get(); // Propaga exceções dos workers
+            }
+
+            for (int c = 0; c < population; c++) {
+                double sum = 0;
+                long lineSum = 0;
+                for (int g = 0; g < games; g++) {
+                    sum += scores[c * games + g];
+                    lineSum += lines[c * games + g];
+                }
+                fitness[c] = sum / games;
+                meanLines[c] = lineSum / (double) games;
+                order[c] = c;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(fitness[b], fitness[a]));
+            if (fitness[order[0]] > bestFitness) {
+                bestFitness = fitness[order[0]];
+                bestWeights = candidates[order[0]].clone();
+            }
+
+            // Nova distribuição a partir da elite
+            double eliteFitness = 0;
+            for (int k = 0; k < n; k++) {
+                double sum = 0;
+                for (int e = 0; e < elite; e++) {
+                    sum += candidates[order[e]][k];
+                }
+                mean[k] = sum / elite;
+                double squares = 0;
+                for (int e = 0; e < elite; e++) {
+                    double d = candidates[order[e]][k] - mean[k];
+                    squares += d * d;
+                }
+                deviation[k] = Math.sqrt(squares / elite) + extraNoise;
+            }
+            for (int e = 0; e < elite; e++) {
+                eliteFitness += fitness[order[e]];
+            }
+            extraNoise *= EXTRA_NOISE_DECAY;
+
+            double seconds = (System.nanoTime() - generationStart) / 1e9;
+            System.out.printf("geração %d: melhor aptidão %.1f (%.1f linhas), elite %.1f, %d partidas em %.2f s"
+                    + " (%.0f partidas/h)%n", generation, fitness[order[0]], meanLines[order[0]],
+                    eliteFitness / elite, jobs, seconds, jobs / seconds * 3600);
+            printWorkerThroughput(workers);
+        }
+        executor.shutdown();
+
+        double minutes = (System.nanoTime() - tuningStart) / 60e9;
+        System.out.printf("%n%d gerações em %.2f min: %.2f gerações/minuto%n", generations, minutes, generations / minutes);
+        System.out.printf("Melhor aptidão: %.1f%n", bestFitness);
+        StringBuilder literal = new StringBuilder("{ ");
+        for (int k = 0; k < n; k++) {
+            literal.append(String.format(java.util.Locale.ROOT, "%.3f", bestWeights[k])).append(k < n - 1 ? ", " : " }");
+        }
+        System.out.println("Pesos: " + literal);
+    }
+
+    private static void printWorkerThroughput(Worker[] workers) {
+        StringBuilder line = new StringBuilder("  por worker:");
+        for (int t = 0; t < workers.length; t++) {
+            Worker worker = workers[t];
+            double seconds = Math.max(worker.busyNanos, 1) / 1e9;
+            line.append(String.format(" [%d] %.1f partidas/s %.0f peças/s", t,
+                    worker.games / seconds, worker.pieces / seconds));
+        }
+        System.out.println(line);
+    }
+}
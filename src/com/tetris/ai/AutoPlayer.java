@@ -0,0 +1,130 @@
+package com.tetris.ai;
+
+import com.tetris.model.Board;
+import com.tetris.model.GameEngine;
+import com.tetris.model.MoveGenerator;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Bot que escolhe a jogada da peça atual: gera todas as posições finais alcançáveis
+ * (MoveGenerator), simula cada uma numa cópia do Board e escolhe a de melhor nota
+ * segundo o HeuristicEvaluator. A avaliação dos candidatos é repartida pelos núcleos
+ * com ForkJoin; cada thread usa o seu próprio Board de rascunho.
+ */
+public class AutoPlayer {
+
+    // Abaixo deste número de candidatos por tarefa não compensa dividir mais
+    private static final int SPLIT_THRESHOLD = 8;
+
+    private final HeuristicEvaluator evaluator;
+    private final ForkJoinPool pool;
+    private final MoveGenerator moveGenerator;
+    private final ThreadLocal<Board> scratchBoards;
+    private final double[] scores;
+    private final byte[] path;
+    private int pathLength;
+
+    public AutoPlayer(int width, int height) {
+        this(width, height, new HeuristicEvaluator(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool pool para avaliar os candidatos em paralelo, ou null para avaliar na thread atual
+     */
+    public AutoPlayer(int width, int height, HeuristicEvaluator evaluator, ForkJoinPool pool) {
+        this.evaluator = evaluator;
+        this.pool = pool;
+        this.moveGenerator = new MoveGenerator(width, height);
+        this.scratchBoards = ThreadLocal.withInitial(() -> new Board(width, height));
+        int maxPlacements = (width + 4) * height * 4;
+        this.scores = new double[maxPlacements];
+        this.path = new byte[maxPlacements * 2];
+    }
+
+    /**
+     * Escolhe a melhor jogada para a peça atual e guarda o caminho de inputs até ela.
+     *
+     * @return false se não houver jogada possível (ex: fim de jogo)
+     */
+    public boolean decide(Board board) {
+        pathLength = 0;
+        int count = moveGenerator.generate(board);
+        if (count == 0) {
+            return false;
+        }
+
+        EvaluateTask task = new EvaluateTask(board, 0, count);
+        if (pool != null && count > SPLIT_THRESHOLD) {
+            pool.invoke(task);
+        } else {
+            task.compute();
+        }
+
+        int best = 0;
+        for (int i = 1; i < count; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        pathLength = moveGenerator.getPath(best, path);
+        return true;
+    }
+
+    /**
+     * Decide e joga a peça atual no engine: aplica o caminho e bloqueia com HARD_DROP.
+     *
+     * @return false se não havia jogada possível
+     */
+    public boolean playMove(GameEngine engine) {
+        if (!decide(engine.getBoard())) {
+            return false;
+        }
+        for (int i = 0; i < pathLength; i++) {
+            engine.step(path[i]);
+        }
+        engine.step(GameEngine.Input.HARD_DROP);
+        return true;
+    }
+
+    public int getPathLength() { return pathLength; }
+    public byte getPathInput(int index) { return path[index]; }
+
+    // Nota de um candidato: simula a jogada numa cópia do tabuleiro desta thread
+    private double scorePlacement(Board board, int placement) {
+        Board scratch = scratchBoards.get();
+        scratch.copyFrom(board);
+        int linesBefore = scratch.getLinesCleared();
+        int y = moveGenerator.getY(placement);
+        scratch.placeCurrentPiece(moveGenerator.getRotation(placement), moveGenerator.getX(placement), y);
+        return evaluator.evaluate(scratch, scratch.getLinesCleared() - linesBefore, y);
+    }
+
+    /**
+     * Avalia os candidatos [from, to), dividindo ao meio enquanto houver trabalho suficiente.
+     */
+    private class EvaluateTask extends RecursiveAction {
+        private final Board board;
+        private final int from;
+        private final int to;
+
+        EvaluateTask(Board board, int from, int to) {
+            this.board = board;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD || pool == null) {
+                for (int i = from; i < to; i++) {
+                    scores[i] = scorePlacement(board, i);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new EvaluateTask(board, from, mid), new EvaluateTask(board, mid, to));
+        }
+    }
+}
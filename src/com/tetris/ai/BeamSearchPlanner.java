@@ -0,0 +1,347 @@
+package com.tetris.ai;
+
+import com.tetris.model.Board;
+import com.tetris.model.GameEngine;
+import com.tetris.model.MoveGenerator;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Planeia a jogada da peça atual olhando também para a próxima (Board.getNextPiece()).
+ *
+ * Pesquisa em feixe (beam search) de dois níveis:
+ * 1. avalia todas as posições finais da peça atual;
+ * 2. fica com as {@code beamWidth} melhores e, da melhor para a pior, expande cada uma
+ *    com todas as posições da próxima peça.
+ * A jogada escolhida é a da peça atual que leva ao melhor tabuleiro depois das duas.
+ *
+ * Com um ForkJoinPool, os candidatos do nível 1 e os nós do feixe do nível 2 são
+ * avaliados em paralelo; cada thread usa o seu Board de rascunho e o seu MoveGenerator.
+ * A jogada escolhida é a mesma com ou sem pool.
+ *
+ * Tabuleiros repetidos (o mesmo hash de Zobrist por caminhos diferentes) são avaliados
+ * uma só vez: no nível 1 em toda a pesquisa, no nível 2 dentro de cada nó do feixe.
+ * A pesquisa pára quando se esgota o orçamento de tempo por jogada e devolve a melhor
+ * jogada encontrada até aí: o nível 1 completo garante sempre uma.
+ * Uma instância não deve ser usada por duas threads ao mesmo tempo.
+ */
+public class BeamSearchPlanner {
+
+    public static final int DEFAULT_BEAM_WIDTH = 8;
+    public static final long DEFAULT_TIME_BUDGET_NANOS = 20_000_000L; // 20 ms
+
+    // Abaixo deste número de candidatos por tarefa não compensa dividir mais
+    private static final int SPLIT_THRESHOLD = 8;
+
+    private final HeuristicEvaluator evaluator;
+    private final int beamWidth;
+    private final ForkJoinPool pool;
+    private long timeBudgetNanos;
+
+    private final MoveGenerator rootMoves; // Posições da peça atual (guardam os caminhos)
+    private final TranspositionTable seen;
+    private final ThreadLocal<MoveGenerator> childMoves; // Posições da próxima peça
+    private final ThreadLocal<Board> scratchBoards;
+    private final double[] rootScores;
+    private final long[] rootHashes;
+    private final boolean[] rootPlaced;
+    private final byte[] path;
+    private int pathLength;
+
+    // Nível 2: um tabuleiro, uma tabela de repetidos e um resultado por nó do feixe
+    private final Board[] beamBoards;
+    private final TranspositionTable[] beamSeen;
+    private final int[] beamPlacements;
+    private final double[] beamBestScores;
+    private final int[] beamEvaluations;
+    private final boolean[] beamExpanded;
+
+    // Estatísticas da última pesquisa
+    private int lastEvaluations;
+    private int lastExpandedNodes;
+    private volatile boolean lastTimedOut;
+
+    public BeamSearchPlanner(int width, int height) {
+        this(width, height, new HeuristicEvaluator(), DEFAULT_BEAM_WIDTH, DEFAULT_TIME_BUDGET_NANOS, null);
+    }
+
+    public BeamSearchPlanner(int width, int height, HeuristicEvaluator evaluator,
+                             int beamWidth, long timeBudgetNanos) {
+        this(width, height, evaluator, beamWidth, timeBudgetNanos, null);
+    }
+
+    /**
+     * @param pool pool para avaliar os candidatos em paralelo, ou null para pesquisar na thread atual
+     */
+    public BeamSearchPlanner(int width, int height, HeuristicEvaluator evaluator,
+                             int beamWidth, long timeBudgetNanos, ForkJoinPool pool) {
+        if (beamWidth < 1) {
+            throw new IllegalArgumentException("A largura do feixe tem de ser pelo menos 1");
+        }
+        this.evaluator = evaluator;
+        this.beamWidth = beamWidth;
+        this.pool = pool;
+        this.timeBudgetNanos = timeBudgetNanos;
+        this.rootMoves = new MoveGenerator(width, height);
+        this.seen = new TranspositionTable(14);
+        this.childMoves = ThreadLocal.withInitial(() -> new MoveGenerator(width, height));
+        this.scratchBoards = ThreadLocal.withInitial(() -> new Board(width, height));
+        int maxPlacements = (width + 4) * height * 4;
+        this.rootScores = new double[maxPlacements];
+        this.rootHashes = new long[maxPlacements];
+        this.rootPlaced = new boolean[maxPlacements];
+        this.path = new byte[maxPlacements * 2];
+        this.beamBoards = new Board[beamWidth];
+        this.beamSeen = new TranspositionTable[beamWidth];
+        for (int i = 0; i < beamWidth; i++) {
+            beamBoards[i] = new Board(width, height);
+            beamSeen[i] = new TranspositionTable(10);
+        }
+        this.beamPlacements = new int[beamWidth];
+        this.beamBestScores = new double[beamWidth];
+        this.beamEvaluations = new int[beamWidth];
+        this.beamExpanded = new boolean[beamWidth];
+    }
+
+    public void setTimeBudgetNanos(long timeBudgetNanos) {
+        this.timeBudgetNanos = timeBudgetNanos;
+    }
+
+    /**
+     * Escolhe a jogada da peça atual e guarda o caminho de inputs até ela.
+     *
+     * @return false se não houver jogada possível (ex: fim de jogo)
+     */
+    public boolean decide(Board board) {
+        long start = System.nanoTime();
+        pathLength = 0;
+        lastEvaluations = 0;
+        lastExpandedNodes = 0;
+        lastTimedOut = false;
+        seen.clear();
+
+        int count = rootMoves.generate(board);
+        if (count == 0) {
+            return false;
+        }
+
+        // Nível 1: todas as posições da peça atual (repetidas ficam com -infinito)
+        int linesBefore = board.getLinesCleared();
+        if (pool != null && count > SPLIT_THRESHOLD) {
+            pool.invoke(new RootTask(board, 0, count));
+            // Só o primeiro caminho para cada tabuleiro conta, como na pesquisa sequencial
+            for (int i = 0; i < count; i++) {
+                if (rootPlaced[i]) {
+                    lastEvaluations++;
+                    if (!seen.add(rootHashes[i])) {
+                        rootScores[i] = Double.NEGATIVE_INFINITY;
+                    }
+                }
+            }
+        } else {
+            Board scratch = scratchBoards.get();
+            for (int i = 0; i < count; i++) {
+                rootScores[i] = Double.NEGATIVE_INFINITY;
+                if (place(board, i, scratch) && seen.add(scratch.getZobristHash())) {
+                    rootScores[i] = evaluator.evaluate(scratch, scratch.getLinesCleared() - linesBefore,
+                            rootMoves.getY(i));
+                    lastEvaluations++;
+                }
+            }
+        }
+        int best = 0;
+        for (int i = 1; i < count; i++) {
+            if (rootScores[i] > rootScores[best]) {
+                best = i;
+            }
+        }
+
+        // Nível 2: expande o feixe da melhor posição para a pior, enquanto houver tempo
+        int beamSize = selectBeam(count);
+        if (pool != null && beamSize > 1) {
+            pool.invoke(new BeamTask(board, linesBefore, start, 0, beamSize));
+        } else {
+            for (int b = 0; b < beamSize; b++) {
+                expand(board, linesBefore, start, b);
+            }
+        }
+        // O primeiro nó com a melhor nota ganha (a mesma escolha com ou sem pool)
+        double bestScore = Double.NEGATIVE_INFINITY;
+        int bestByLookahead = -1;
+        for (int b = 0; b < beamSize; b++) {
+            lastEvaluations += beamEvaluations[b];
+            if (beamExpanded[b]) {
+                lastExpandedNodes++;
+            }
+            if (beamBestScores[b] > bestScore) {
+                bestScore = beamBestScores[b];
+                bestByLookahead = beamPlacements[b];
+            }
+        }
+        if (bestByLookahead >= 0) {
+            best = bestByLookahead;
+        }
+        pathLength = rootMoves.getPath(best, path);
+        return true;
+    }
+
+    /**
+     * Decide e joga a peça atual no engine: aplica o caminho e bloqueia com HARD_DROP.
+     *
+     * @return false se não havia jogada possível
+     */
+    public boolean playMove(GameEngine engine) {
+        if (!decide(engine.getBoard())) {
+            return false;
+        }
+        for (int i = 0; i < pathLength; i++) {
+            engine.step(path[i]);
+        }
+        engine.step(GameEngine.Input.HARD_DROP);
+        return true;
+    }
+
+    public int getPathLength() { return pathLength; }
+    public byte getPathInput(int index) { return path[index]; }
+    public int getLastEvaluations() { return lastEvaluations; }
+    public int getLastExpandedNodes() { return lastExpandedNodes; }
+    public boolean isLastTimedOut() { return lastTimedOut; }
+
+    // Simula a posição de nível 1 indicada num Board de destino
+    private boolean place(Board board, int placement, Board target) {
+        target.copyFrom(board);
+        return target.placeCurrentPiece(rootMoves.getRotation(placement),
+                rootMoves.getX(placement), rootMoves.getY(placement));
+    }
+
+    // Nível 1 de [from, to) numa thread do pool: nota e hash de cada posição
+    private void scoreRoots(Board board, int from, int to) {
+        Board scratch = scratchBoards.get();
+        int linesBefore = board.getLinesCleared();
+        for (int i = from; i < to; i++) {
+            rootPlaced[i] = place(board, i, scratch);
+            if (rootPlaced[i]) {
+                rootHashes[i] = scratch.getZobristHash();
+                rootScores[i] = evaluator.evaluate(scratch, scratch.getLinesCleared() - linesBefore,
+                        rootMoves.getY(i));
+            } else {
+                rootScores[i] = Double.NEGATIVE_INFINITY;
+            }
+        }
+    }
+
+    // Nível 2 de um nó do feixe: a melhor nota entre todas as posições da próxima peça
+    private void expand(Board board, int linesBefore, long start, int b) {
+        beamBestScores[b] = Double.NEGATIVE_INFINITY;
+        beamEvaluations[b] = 0;
+        beamExpanded[b] = false;
+        if (lastTimedOut) {
+            return;
+        }
+        Board node = beamBoards[b];
+        place(board, beamPlacements[b], node);
+        beamExpanded[b] = true;
+        if (node.isGameOver()) {
+            return;
+        }
+        MoveGenerator moves = childMoves.get();
+        Board scratch = scratchBoards.get();
+        TranspositionTable nodeSeen = beamSeen[b];
+        nodeSeen.clear();
+        int childCount = moves.generate(node);
+        for (int c = 0; c < childCount; c++) {
+            if (System.nanoTime() - start >= timeBudgetNanos) {
+                lastTimedOut = true;
+                return;
+            }
+            scratch.copyFrom(node);
+            int y = moves.getY(c);
+            scratch.placeCurrentPiece(moves.getRotation(c), moves.getX(c), y);
+            if (!nodeSeen.add(scratch.getZobristHash())) {
+                continue;
+            }
+            double score = evaluator.evaluate(scratch, scratch.getLinesCleared() - linesBefore, y);
+            beamEvaluations[b]++;
+            if (score > beamBestScores[b]) {
+                beamBestScores[b] = score;
+            }
+        }
+    }
+
+    // Seleção parcial das melhores posições de nível 1 (o feixe é pequeno: inserção ordenada)
+    private int selectBeam(int count) {
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            double score = rootScores[i];
+            if (score == Double.NEGATIVE_INFINITY) {
+                continue;
+            }
+            if (size == beamWidth && score <= rootScores[beamPlacements[size - 1]]) {
+                continue;
+            }
+            int j = size < beamWidth ? size++ : size - 1;
+            while (j > 0 && rootScores[beamPlacements[j - 1]] < score) {
+                beamPlacements[j] = beamPlacements[j - 1];
+                j--;
+            }
+            beamPlacements[j] = i;
+        }
+        return size;
+    }
+
+    /**
+     * Avalia as posições de nível 1 [from, to), dividindo ao meio enquanto houver trabalho suficiente.
+     */
+    private class RootTask extends RecursiveAction {
+        private final Board board;
+        private final int from;
+        private final int to;
+
+        RootTask(Board board, int from, int to) {
+            this.board = board;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                scoreRoots(board, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RootTask(board, from, mid), new RootTask(board, mid, to));
+        }
+    }
+
+    /**
+     * Expande os nós do feixe [from, to), um por tarefa.
+     */
+    private class BeamTask extends RecursiveAction {
+        private final Board board;
+        private final int linesBefore;
+        private final long start;
+        private final int from;
+        private final int to;
+
+        BeamTask(Board board, int linesBefore, long start, int from, int to) {
+            this.board = board;
+            this.linesBefore = linesBefore;
+            this.start = start;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                expand(board, linesBefore, start, from);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BeamTask(board, linesBefore, start, from, mid),
+                    new BeamTask(board, linesBefore, start, mid, to));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.tetris.ai;
+
+import com.tetris.model.Board;
+
+/**
+ * Pilha de Boards reutilizáveis de uma thread. Um Board pedido ao pool é preenchido
+ * com Board.copyFrom, que só copia estado: depois do aquecimento, pedir e devolver
+ * Boards não cria objetos nenhuns. Não é thread-safe (usa-se um por thread).
+ */
+class BoardPool {
+
+    private final int width;
+    private final int height;
+    private Board[] free = new Board[4];
+    private int freeCount;
+
+    BoardPool(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Devolve um Board do pool (ou um novo, se estiver vazio) com o estado de {@code source}.
+     */
+    Board acquire(Board source) {
+        Board board = freeCount > 0 ? free[--freeCount] : new Board(width, height);
+        board.copyFrom(source);
+        return board;
+    }
+
+    void release(Board board) {
+        if (freeCount == free.length) {
+            free = java.util.Arrays.copyOf(free, freeCount * 2);
+        }
+        free[freeCount++] = board;
+    }
+}
@@ -0,0 +1,79 @@
+package com.tetris.ai;
+
+import com.tetris.model.Board;
+import com.tetris.model.BoardFeatures;
+
+/**
+ * Avalia um tabuleiro com uma heurística linear ao estilo de Dellacherie:
+ * soma ponderada de características como buracos, altura agregada,
+ * irregularidade (bumpiness), poços e transições. Quanto maior a nota, melhor o tabuleiro.
+ */
+public class HeuristicEvaluator {
+
+    // --- Índices das características (e dos pesos) ---
+    public static final int AGGREGATE_HEIGHT = 0;
+    public static final int LINES_CLEARED = 1;
+    public static final int HOLES = 2;
+    public static final int BUMPINESS = 3;
+    public static final int WELLS = 4;
+    public static final int LANDING_HEIGHT = 5;
+    public static final int ROW_TRANSITIONS = 6;
+    public static final int COLUMN_TRANSITIONS = 7;
+    public static final int FEATURE_COUNT = 8;
+
+    /**
+     * Pesos padrão, afinados à mão a partir dos valores clássicos da literatura.
+     */
+    public static final double[] DEFAULT_WEIGHTS = { -0.51, 0.76, -0.36, -0.18, -0.10, -0.05, -0.05, -0.20 };
+
+    private final double[] weights;
+
+    public HeuristicEvaluator() {
+        this(DEFAULT_WEIGHTS);
+    }
+
+    public HeuristicEvaluator(double[] weights) {
+        this.weights = new double[FEATURE_COUNT];
+        copyWeights(weights);
+    }
+
+    /**
+     * Troca os pesos sem criar outro avaliador (ex: afinação, que reutiliza os mesmos bots).
+     */
+    public void setWeights(double[] weights) {
+        copyWeights(weights);
+    }
+
+    public double[] getWeights() {
+        return weights.clone();
+    }
+
+    private void copyWeights(double[] weights) {
+        if (weights.length != FEATURE_COUNT) {
+            throw new IllegalArgumentException("São precisos " + FEATURE_COUNT + " pesos");
+        }
+        System.arraycopy(weights, 0, this.weights, 0, FEATURE_COUNT);
+    }
+
+    /**
+     * Nota do tabuleiro depois de bloquear uma peça.
+     *
+     * @param linesCleared linhas limpas pela jogada
+     * @param landingHeight altura (linha) onde a peça pousou
+     */
+    public double evaluate(Board board, int linesCleared, int landingHeight) {
+        if (board.isGameOver()) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        // Características mantidas pelo Board a cada jogada: nada é recalculado aqui
+        BoardFeatures features = board.getFeatures();
+        return weights[AGGREGATE_HEIGHT] * features.getAggregateHeight()
+                + weights[LINES_CLEARED] * linesCleared
+                + weights[HOLES] * features.getHoles()
+                + weights[BUMPINESS] * features.getBumpiness()
+                + weights[WELLS] * features.getWells()
+                + weights[LANDING_HEIGHT] * landingHeight
+                + weights[ROW_TRANSITIONS] * features.getRowTransitions()
+                + weights[COLUMN_TRANSITIONS] * features.getColumnTransitions();
+    }
+}
@@ -0,0 +1,284 @@
+package com.tetris.ai;
+
+import com.tetris.model.Board;
+import com.tetris.model.BoardFeatures;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Função de valor do tabuleiro com uma rede neuronal pequena (perceptrão multicamada),
+ * em Java puro: pesos em arrays {@code float[]} planos, camadas escondidas com ReLU e
+ * uma saída linear (a nota do tabuleiro; maior é melhor).
+ *
+ * A entrada é tirada dos bitboards e das características incrementais do Board
+ * (ver {@link #encode}): altura de cada coluna, BoardFeatures, linhas limpas pela jogada
+ * e altura de pouso, tudo normalizado pelas dimensões do tabuleiro.
+ *
+ * A inferência é em lote: as entradas de todos os candidatos de uma peça vão numa
+ * matriz [lote x entradas] e cada camada é uma única multiplicação de matrizes.
+ *
+ * Formato do ficheiro de pesos (DataOutputStream, big-endian):
+ * "TMLP", versão, número de camadas de tamanhos, os tamanhos, e depois, por camada,
+ * os pesos [saídas x entradas] seguidos dos vieses [saídas], todos em float.
+ */
+public class MlpEvaluator {
+
+    private static final int MAGIC = 0x544D4C50; // "TMLP"
+    private static final int FORMAT_VERSION = 1;
+    // Características escalares depois das alturas das colunas
+    private static final int SCALAR_INPUTS = 8;
+    // Limites de um ficheiro de pesos: validados antes de alocar, para um ficheiro estragado
+    // dar IOException e não NegativeArraySizeException ou OutOfMemoryError
+    private static final int MAX_LAYER_SIZE = 1 << 12;
+    private static final long MAX_PARAMETERS = 1L << 24;
+
+    private final int[] layerSizes;
+    private final float[][] weights; // weights[l][o * entradas + i]
+    private final float[][] biases;
+    private final int maxLayerSize;
+
+    // Buffers de ativação reutilizados (crescem com o maior lote pedido)
+    private float[] activationA = new float[0];
+    private float[] activationB = new float[0];
+
+    /**
+     * Número de entradas da rede para um tabuleiro com esta largura.
+     */
+    public static int inputSize(int boardWidth) {
+        return boardWidth + SCALAR_INPUTS;
+    }
+
+    /**
+     * Rede com pesos aleatórios (inicialização de He), ponto de partida para treino.
+     *
+     * @param layerSizes tamanhos de todas as camadas, da entrada à saída (que tem de ser 1)
+     */
+    public MlpEvaluator(int[] layerSizes, long seed) {
+        this(layerSizes.clone(), new float[Math.max(0, layerSizes.length - 1)][],
+                new float[Math.max(0, layerSizes.length - 1)][]);
+        Random random = new Random(seed);
+        for (int l = 0; l < weights.length; l++) {
+            int inputs = layerSizes[l];
+            float scale = (float) Math.sqrt(2.0 / inputs);
+            for (int k = 0; k < weights[l].length; k++) {
+                weights[l][k] = (float) random.nextGaussian() * scale;
+            }
+        }
+    }
+
+    private MlpEvaluator(int[] layerSizes, float[][] weights, float[][] biases) {
+        if (layerSizes.length < 2 || layerSizes[layerSizes.length - 1] != 1) {
+            throw new IllegalArgumentException("A rede precisa de pelo menos 2 camadas e de uma única saída");
+        }
+        this.layerSizes = layerSizes;
+        this.weights = weights;
+        this.biases = biases;
+        int max = 0;
+        for (int l = 0; l < layerSizes.length; l++) {
+            if (layerSizes[l] < 1) {
+                throw new IllegalArgumentException("Camada vazia: " + l);
+            }
+            max = Math.max(max, layerSizes[l]);
+            if (l < weights.length) {
+                if (weights[l] == null) weights[l] = new float[layerSizes[l + 1] * layerSizes[l]];
+                if (biases[l] == null) biases[l] = new float[layerSizes[l + 1]];
+            }
+        }
+        this.maxLayerSize = max;
+    }
+
+    /**
+     * Rede com os mesmos pesos (partilhados, só são lidos) e buffers de ativação próprios,
+     * para avaliar noutra thread.
+     */
+    public MlpEvaluator copy() {
+        return new MlpEvaluator(layerSizes, weights, biases);
+    }
+
+    // --- Ficheiro de pesos ---
+
+    public static MlpEvaluator load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Não é um ficheiro de pesos MLP: " + path);
+            }
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Versão de ficheiro de pesos não suportada: " + version);
+            }
+            int layers = in.readInt();
+            if (layers < 2 || layers > 64) {
+                throw new IOException("Número de camadas inválido: " + layers);
+            }
+            int[] sizes = new int[layers];
+            long parameters = 0;
+            for (int l = 0; l < layers; l++) {
+                sizes[l] = in.readInt();
+                if (sizes[l] < 1 || sizes[l] > MAX_LAYER_SIZE) {
+                    throw new IOException("Tamanho de camada inválido: " + sizes[l]);
+                }
+                if (l > 0) {
+                    parameters += (long) sizes[l] * (sizes[l - 1] + 1);
+                }
+            }
+            if (sizes[layers - 1] != 1) {
+                throw new IOException("A rede tem de ter uma única saída, não " + sizes[layers - 1]);
+            }
+            if (parameters > MAX_PARAMETERS) {
+                throw new IOException("Rede grande demais: " + parameters + " parâmetros");
+            }
+            float[][] weights = new float[layers - 1][];
+            float[][] biases = new float[layers - 1][];
+            for (int l = 0; l < layers - 1; l++) {
+                weights[l] = readFloats(in, sizes[l + 1] * sizes[l]);
+                biases[l] = readFloats(in, sizes[l + 1]);
+            }
+            if (in.read() >= 0) {
+                throw new IOException("Bytes a mais no fim do ficheiro de pesos: " + path);
+            }
+            return new MlpEvaluator(sizes, weights, biases);
+        }
+    }
+
+    public void save(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(layerSizes.length);
+            for (int size : layerSizes) {
+                out.writeInt(size);
+            }
+            for (int l = 0; l < weights.length; l++) {
+                for (float w : weights[l]) out.writeFloat(w);
+                for (float b : biases[l]) out.writeFloat(b);
+            }
+        }
+    }
+
+    private static float[] readFloats(DataInputStream in, int count) throws IOException {
+        float[] values = new float[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readFloat();
+        }
+        return values;
+    }
+
+    // --- Entradas ---
+
+    public int getInputSize() { return layerSizes[0]; }
+
+    /**
+     * Escreve as entradas da rede para um tabuleiro em {@code dst[offset..offset + inputSize)}.
+     *
+     * @param linesCleared linhas limpas pela jogada
+     * @param landingHeight altura (linha) onde a peça pousou
+     */
+    public static void encode(Board board, int linesCleared, int landingHeight, float[] dst, int offset) {
+        int width = board.getWidth();
+        float invHeight = 1f / board.getHeight();
+        float invCells = invHeight / width;
+        for (int x = 0; x < width; x++) {
+            dst[offset + x] = board.getColumnHeight(x) * invHeight;
+        }
+        BoardFeatures features = board.getFeatures();
+        int k = offset + width;
+        dst[k++] = features.getAggregateHeight() * invCells;
+        dst[k++] = features.getHoles() * invCells;
+        dst[k++] = features.getBumpiness() * invHeight / width;
+        dst[k++] = features.getWells() * invCells;
+        dst[k++] = features.getRowTransitions() * invCells;
+        dst[k++] = features.getColumnTransitions() * invCells;
+        dst[k++] = linesCleared / 4f;
+        dst[k] = landingHeight * invHeight;
+    }
+
+    // --- Inferência ---
+
+    /**
+     * Nota de {@code batchSize} tabuleiros de uma vez.
+     *
+     * @param inputs entradas em linhas seguidas ([lote x inputSize], ver encode)
+     * @param scores recebe uma nota por tabuleiro
+     */
+    public void evaluateBatch(float[] inputs, int batchSize, float[] scores) {
+        ensureCapacity(batchSize);
+        float[] source = inputs;
+        float[] target = activationA;
+        int layers = weights.length;
+        for (int l = 0; l < layers; l++) {
+            boolean hidden = l < layers - 1;
+            if (!hidden) {
+                target = scores; // A saída tem tamanho 1: uma nota por tabuleiro
+            }
+            multiply(source, batchSize, layerSizes[l], weights[l], biases[l], layerSizes[l + 1], target, hidden);
+            source = target;
+            target = target == activationA ? activationB : activationA;
+        }
+    }
+
+    /**
+     * Nota de um só tabuleiro (um lote de 1).
+     */
+    public float evaluate(Board board, int linesCleared, int landingHeight) {
+        if (board.isGameOver()) {
+            return Float.NEGATIVE_INFINITY;
+        }
+        float[] input = new float[getInputSize()];
+        encode(board, linesCleared, landingHeight, input, 0);
+        float[] score = new float[1];
+        evaluateBatch(input, 1, score);
+        return score[0];
+    }
+
+    // target[b][o] = bias[o] + soma_i source[b][i] * w[o][i] (com ReLU nas camadas escondidas).
+    // Quatro linhas do lote de cada vez: cada peso lido serve quatro somas independentes,
+    // o que evita esperar pelo resultado de cada soma antes da seguinte.
+    private static void multiply(float[] source, int batchSize, int in, float[] w, float[] bias, int out,
+                                 float[] target, boolean relu) {
+        int b = 0;
+        for (; b + 4 <= batchSize; b += 4) {
+            int r0 = b * in, r1 = r0 + in, r2 = r1 + in, r3 = r2 + in;
+            for (int o = 0; o < out; o++) {
+                int weightRow = o * in;
+                float s0 = bias[o], s1 = s0, s2 = s0, s3 = s0;
+                for (int i = 0; i < in; i++) {
+                    float weight = w[weightRow + i];
+                    s0 += source[r0 + i] * weight;
+                    s1 += source[r1 + i] * weight;
+                    s2 += source[r2 + i] * weight;
+                    s3 += source[r3 + i] * weight;
+                }
+                target[b * out + o] = relu && s0 < 0 ? 0 : s0;
+                target[(b + 1) * out + o] = relu && s1 < 0 ? 0 : s1;
+                target[(b + 2) * out + o] = relu && s2 < 0 ? 0 : s2;
+                target[(b + 3) * out + o] = relu && s3 < 0 ? 0 : s3;
+            }
+        }
+        for (; b < batchSize; b++) {
+            int row = b * in;
+            for (int o = 0; o < out; o++) {
+                int weightRow = o * in;
+                float sum = bias[o];
+                for (int i = 0; i < in; i++) {
+                    sum += source[row + i] * w[weightRow + i];
+                }
+                target[b * out + o] = relu && sum < 0 ? 0 : sum;
+            }
+        }
+    }
+
+    private void ensureCapacity(int batchSize) {
+        int needed = batchSize * maxLayerSize;
+        if (activationA.length < needed) {
+            activationA = new float[needed];
+            activationB = new float[needed];
+        }
+    }
+}
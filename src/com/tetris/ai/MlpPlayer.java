@@ -0,0 +1,89 @@
+package com.tetris.ai;
+
+import com.tetris.model.Board;
+import com.tetris.model.GameEngine;
+import com.tetris.model.MoveGenerator;
+
+/**
+ * Bot que escolhe a jogada da peça atual com a rede do MlpEvaluator: simula todas as
+ * posições finais alcançáveis, codifica os tabuleiros resultantes num único lote e
+ * avalia-os com uma passagem da rede. Não deve ser partilhado entre threads.
+ */
+public class MlpPlayer {
+
+    private final MlpEvaluator network;
+    private final MoveGenerator moveGenerator;
+    private final Board scratch;
+    private final float[] inputs;
+    private final float[] scores;
+    private final boolean[] gameOver;
+    private final byte[] path;
+    private int pathLength;
+
+    public MlpPlayer(int width, int height, MlpEvaluator network) {
+        if (network.getInputSize() != MlpEvaluator.inputSize(width)) {
+            throw new IllegalArgumentException("A rede espera " + network.getInputSize()
+                    + " entradas; um tabuleiro com largura " + width + " dá " + MlpEvaluator.inputSize(width));
+        }
+        this.network = network;
+        this.moveGenerator = new MoveGenerator(width, height);
+        this.scratch = new Board(width, height);
+        int maxPlacements = (width + 4) * height * 4;
+        this.inputs = new float[maxPlacements * network.getInputSize()];
+        this.scores = new float[maxPlacements];
+        this.gameOver = new boolean[maxPlacements];
+        this.path = new byte[maxPlacements * 2];
+    }
+
+    /**
+     * Escolhe a melhor jogada para a peça atual e guarda o caminho de inputs até ela.
+     *
+     * @return false se não houver jogada possível (ex: fim de jogo)
+     */
+    public boolean decide(Board board) {
+        pathLength = 0;
+        int count = moveGenerator.generate(board);
+        if (count == 0) {
+            return false;
+        }
+
+        int inputSize = network.getInputSize();
+        int linesBefore = board.getLinesCleared();
+        for (int i = 0; i < count; i++) {
+            scratch.copyFrom(board);
+            int y = moveGenerator.getY(i);
+            scratch.placeCurrentPiece(moveGenerator.getRotation(i), moveGenerator.getX(i), y);
+            gameOver[i] = scratch.isGameOver();
+            MlpEvaluator.encode(scratch, scratch.getLinesCleared() - linesBefore, y, inputs, i * inputSize);
+        }
+        network.evaluateBatch(inputs, count, scores);
+
+        int best = -1;
+        for (int i = 0; i < count; i++) {
+            if (!gameOver[i] && (best < 0 || scores[i] > scores[best])) {
+                best = i;
+            }
+        }
+        pathLength = moveGenerator.getPath(best < 0 ? 0 : best, path);
+        return true;
+    }
+
+    /**
+     * Decide e joga a peça atual no engine: aplica o caminho e bloqueia com HARD_DROP.
+     *
+     * @return false se não havia jogada possível
+     */
+    public boolean playMove(GameEngine engine) {
+        if (!decide(engine.getBoard())) {
+            return false;
+        }
+        for (int i = 0; i < pathLength; i++) {
+            engine.step(path[i]);
+        }
+        engine.step(GameEngine.Input.HARD_DROP);
+        return true;
+    }
+
+    public int getPathLength() { return pathLength; }
+    public byte getPathInput(int index) { return path[index]; }
+}
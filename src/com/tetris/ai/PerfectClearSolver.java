@@ -0,0 +1,528 @@
+package com.tetris.ai;
+
+import com.tetris.model.Board;
+import com.tetris.model.Shape;
+
+import java.util.Arrays;
+
+/**
+ * Procura uma sequência de jogadas que esvazie o tabuleiro por completo (perfect clear)
+ * com uma fila de peças conhecida, sem reserva (hold). Pensado para tabuleiros com poucas
+ * linhas ocupadas: a pesquisa fica confinada às {@code maxHeight} linhas de baixo.
+ *
+ * Para uma altura alvo H, as células vazias das H linhas têm de ser exatamente 4 por
+ * cada peça usada. A pesquisa é em profundidade (DFS) sobre as posições finais
+ * alcançáveis de cada peça da fila (procuradas com máscaras, todas as colunas de uma vez),
+ * numa cópia compacta da grelha (uma máscara de bits por linha), com:
+ * - memorização: estados (grelha + peças usadas) já explorados sem sucesso não se repetem
+ *   (a tabela guarda a grelha inteira, por isso colisões de hash não cortam soluções);
+ * - poda por altura: nenhuma peça pode ficar acima da linha H;
+ * - poda por paridade de células: as colunas que nunca poderão ter uma peça em comum
+ *   separam a grelha em grupos, e cada grupo tem de ter um número de células vazias
+ *   múltiplo de 4, senão nunca poderá ser preenchido por tetrominós (e as colunas
+ *   isoladas precisam de peças I suficientes na fila).
+ * Cada pesquisa pára ao fim de {@link #DEFAULT_NODE_LIMIT} estados (ver isNodeLimitReached):
+ * as filas com solução costumam resolver-se em milissegundos, mas provar que não há
+ * nenhuma pode obrigar a visitar milhões de estados.
+ * Só aloca quando a tabela de estados falhados tem de crescer; não deve ser partilhado entre threads.
+ */
+public class PerfectClearSolver {
+
+    public static final int DEFAULT_MAX_HEIGHT = 4;
+    private static final int X_MARGIN = 2;
+    private static final int Y_MARGIN = 2;
+    private static final int MEMO_CAPACITY_BITS = 14;
+    // Cerca de meio segundo nas filas mais difíceis de 10 peças; quase todas acabam muito antes
+    public static final long DEFAULT_NODE_LIMIT = 1_000_000;
+
+    private final int width;
+    private final int maxHeight;
+    private final int maxPieces;
+    private final long fullRow;
+    private final StateSet failedStates;
+    // Com até 64 células na zona alvo, a grelha cabe inteira num long (a chave exata do estado)
+    private final boolean packGrid;
+    private final long[] packedGrid = new long[1];
+
+    // Grelha de cada nível da pesquisa (rows[depth][y]) e a altura alvo que lhe resta
+    private final long[][] rows;
+
+    // Procura das posições alcançáveis, por rotação (partilhada: termina antes de descer um nível)
+    private final long[] fitMask = new long[Shape.ROTATIONS];
+    private final long[] reach = new long[Shape.ROTATIONS];
+
+    // Posições finais de cada nível: rotação, x e y empacotados num int
+    private final int[][] placements;
+
+    // Fila de peças (a pedida e a lida do Board) e resultado
+    private final Shape.Tetrominoe[] boardQueue;
+    private final Shape.Tetrominoe[] queue;
+    private final int[] linePiecesFrom; // Peças I na fila a partir de cada posição
+    private int queueLength;
+    private final int[] solution;
+    private int solutionLength;
+    private int targetHeight;
+    private long nodes;
+    private long nodeLimit = DEFAULT_NODE_LIMIT;
+    private boolean nodeLimitReached;
+
+    public PerfectClearSolver(int width) {
+        this(width, DEFAULT_MAX_HEIGHT);
+    }
+
+    public PerfectClearSolver(int width, int maxHeight) {
+        if (maxHeight < 1 || maxHeight > 16) {
+            throw new IllegalArgumentException("Altura máxima inválida: " + maxHeight);
+        }
+        this.width = width;
+        this.maxHeight = maxHeight;
+        this.maxPieces = maxHeight * width / 4;
+        this.fullRow = width == 64 ? -1L : (1L << width) - 1;
+        this.packGrid = maxHeight * width <= 64;
+        this.failedStates = new StateSet(MEMO_CAPACITY_BITS, packGrid ? 1 : maxHeight);
+        this.rows = new long[maxPieces + 1][maxHeight];
+
+        // Uma posição final por rotação, coluna e altura entre o fundo e a zona de entrada
+        int maxPlacements = Shape.ROTATIONS * width * (maxHeight + 3 + Y_MARGIN);
+        this.placements = new int[maxPieces][maxPlacements];
+
+        this.boardQueue = new Shape.Tetrominoe[maxPieces];
+        this.queue = new Shape.Tetrominoe[maxPieces];
+        this.linePiecesFrom = new int[maxPieces + 1];
+        this.solution = new int[maxPieces];
+    }
+
+    /**
+     * Procura um perfect clear com a fila visível do Board: a peça atual, a próxima e as
+     * seguintes do gerador de peças.
+     *
+     * @return true se encontrou uma solução (ver getSolutionLength e seguintes)
+     */
+    public boolean solve(Board board) {
+        boardQueue[0] = board.getCurrentPiece().getShape();
+        if (maxPieces > 1) {
+            boardQueue[1] = board.getNextPiece().getShape();
+        }
+        for (int i = 2; i < maxPieces; i++) {
+            boardQueue[i] = board.getPieceGenerator().peek(i - 2);
+        }
+        return solve(board, boardQueue, maxPieces);
+    }
+
+    /**
+     * Procura um perfect clear da grelha do Board usando, por ordem, as peças de
+     * {@code pieces[0..length)}. Experimenta as alturas alvo da mais baixa à mais alta.
+     *
+     * @return true se encontrou uma solução (ver getSolutionLength e seguintes)
+     */
+    public boolean solve(Board board, Shape.Tetrominoe[] pieces, int length) {
+        if (board.getWidth() != width) {
+            throw new IllegalArgumentException("PerfectClearSolver criado para outra largura de tabuleiro");
+        }
+        solutionLength = 0;
+        targetHeight = 0;
+        nodes = 0;
+        nodeLimitReached = false;
+        int stackHeight = board.getStackHeight();
+        if (stackHeight > maxHeight) {
+            return false;
+        }
+        // A fila acaba na primeira posição sem peça (ex: fim de jogo)
+        queueLength = 0;
+        while (queueLength < Math.min(length, maxPieces) && pieces[queueLength] != Shape.Tetrominoe.NoShape) {
+            queue[queueLength] = pieces[queueLength];
+            queueLength++;
+        }
+        linePiecesFrom[queueLength] = 0;
+        for (int i = queueLength - 1; i >= 0; i--) {
+            linePiecesFrom[i] = linePiecesFrom[i + 1] + (queue[i] == Shape.Tetrominoe.LineShape ? 1 : 0);
+        }
+
+        int filled = 0;
+        for (int y = 0; y < stackHeight; y++) {
+            filled += Long.bitCount(board.getRow(y));
+        }
+        for (int height = Math.max(1, stackHeight); height <= maxHeight; height++) {
+            // Paridade global: as células vazias têm de dar um número inteiro de peças, e peças que existam
+            int empty = height * width - filled;
+            if (empty % 4 != 0 || empty / 4 > queueLength) {
+                continue;
+            }
+            for (int y = 0; y < height; y++) {
+                rows[0][y] = y < stackHeight ? board.getRow(y) : 0;
+            }
+            failedStates.clear();
+            if (search(0, height)) {
+                targetHeight = height;
+                return true;
+            }
+            if (nodeLimitReached) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    // --- Resultado ---
+
+    /**
+     * Número de peças da solução (as primeiras da fila, por ordem).
+     */
+    public int getSolutionLength() { return solutionLength; }
+    public Shape.Tetrominoe getShape(int step) { return queue[step]; }
+    public int getRotation(int step) { return solution[step] >>> 24; }
+    public int getX(int step) { return ((solution[step] >>> 12) & 0xFFF) - X_MARGIN; }
+    public int getY(int step) { return (solution[step] & 0xFFF) - Y_MARGIN; }
+    public int getTargetHeight() { return targetHeight; }
+    public long getNodes() { return nodes; }
+
+    /**
+     * true se a última pesquisa parou no limite de nós sem resposta: pode haver um perfect
+     * clear que não foi encontrado.
+     */
+    public boolean isNodeLimitReached() { return nodeLimitReached; }
+
+    /**
+     * Número máximo de estados visitados por pesquisa (por omissão {@link #DEFAULT_NODE_LIMIT}).
+     */
+    public void setNodeLimit(long nodeLimit) { this.nodeLimit = nodeLimit; }
+
+    /**
+     * As {@code getTargetHeight()} linhas de baixo do tabuleiro com o passo da solução que
+     * preenche cada célula ({@code [y][x]}, 1 = primeira peça), ou 0 nas células que já
+     * estavam ocupadas. As posições de getX/getY são relativas à grelha depois das linhas
+     * limpas pelas peças anteriores; aqui ficam todas nas linhas do tabuleiro original.
+     */
+    public int[][] getSolutionSteps() {
+        int[][] steps = new int[targetHeight][width];
+        // Linha do tabuleiro original que está em cada linha da grelha atual
+        int[] originalRow = new int[targetHeight];
+        long[] grid = new long[targetHeight];
+        for (int y = 0; y < targetHeight; y++) {
+            originalRow[y] = y;
+            grid[y] = rows[0][y];
+        }
+        int height = targetHeight;
+        for (int step = 0; step < solutionLength; step++) {
+            int state = Shape.state(queue[step], getRotation(step));
+            for (int i = 0; i < 4; i++) {
+                int x = getX(step) + Shape.cellX(state, i);
+                int y = getY(step) - Shape.cellY(state, i);
+                steps[originalRow[y]][x] = step + 1;
+                grid[y] |= 1L << x;
+            }
+            int write = 0;
+            for (int y = 0; y < height; y++) {
+                if (grid[y] != fullRow) {
+                    grid[write] = grid[y];
+                    originalRow[write] = originalRow[y];
+                    write++;
+                }
+            }
+            height = write;
+        }
+        return steps;
+    }
+
+    // --- Pesquisa ---
+
+    private boolean search(int depth, int height) {
+        if (++nodes > nodeLimit) {
+            nodeLimitReached = true;
+            return false;
+        }
+        long[] grid = rows[depth];
+        if (height == 0) {
+            solutionLength = depth;
+            return true;
+        }
+        int empty = height * width;
+        for (int y = 0; y < height; y++) {
+            empty -= Long.bitCount(grid[y]);
+        }
+        if (depth + empty / 4 > queueLength) {
+            return false;
+        }
+        // Mesmo estado já explorado sem sucesso (a grelha diz quantas peças faltam, depth diz quais)
+        long[] state = grid;
+        int stateLength = height;
+        if (packGrid) {
+            long packed = 0;
+            for (int y = 0; y < height; y++) {
+                packed |= grid[y] << (y * width);
+            }
+            packedGrid[0] = packed;
+            state = packedGrid;
+            stateLength = 1;
+        }
+        int tag = height | depth << 8;
+        if (!failedStates.add(stateKey(state, stateLength, tag), state, stateLength, tag)
+                || !columnGroupsDivisibleByFour(grid, height, linePiecesFrom[depth])) {
+            return false;
+        }
+
+        Shape.Tetrominoe shape = queue[depth];
+        int count = generatePlacements(grid, height, shape, depth);
+        int[] options = placements[depth];
+        long[] next = rows[depth + 1];
+        // Das posições mais baixas para as mais altas
+        for (int i = count - 1; i >= 0; i--) {
+            int packed = options[i];
+            int rotation = packed >>> 24;
+            int x = ((packed >>> 12) & 0xFFF) - X_MARGIN;
+            int y = (packed & 0xFFF) - Y_MARGIN;
+            int cleared = place(grid, height, Shape.state(shape, rotation), x, y, next);
+            solution[depth] = packed;
+            if (search(depth + 1, height - cleared)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Coloca a peça e remove as linhas cheias; escreve a grelha resultante em target
+    private int place(long[] grid, int height, int state, int x, int y, long[] target) {
+        System.arraycopy(grid, 0, target, 0, height);
+        int left = x + Shape.minX(state);
+        int top = y - Shape.minY(state);
+        for (int k = 0; k < Shape.height(state); k++) {
+            target[top - k] |= (long) Shape.rowMask(state, k) << left;
+        }
+        int write = 0;
+        for (int row = 0; row < height; row++) {
+            if (target[row] != fullRow) {
+                target[write++] = target[row];
+            }
+        }
+        return height - write;
+    }
+
+    // Posições finais alcançáveis a partir de cima da zona alvo (acima dela está tudo vazio),
+    // com os mesmos movimentos do jogo; ordenadas da mais alta para a mais baixa.
+    //
+    // Procura em largura feita com máscaras: para cada rotação e altura y, o bit L de
+    // reach[r] diz que a peça alcança a posição com a coluna mais à esquerda em L. Cada
+    // altura é fechada (esquerda, direita e rotações até estabilizar) antes de descer à seguinte.
+    private int generatePlacements(long[] grid, int height, Shape.Tetrominoe shape, int depth) {
+        int rotations = Shape.rotationCount(shape);
+        int[] out = placements[depth];
+        int count = 0;
+        int spawnY = height + 2; // Células entre height e height + 4: sempre livres
+        long any = 0;
+        for (int r = 0; r < rotations; r++) {
+            fitMask[r] = fitMask(grid, height, Shape.state(shape, r), spawnY);
+            reach[r] = fitMask[r];
+            any |= reach[r];
+        }
+        closeLevel(shape, rotations);
+        for (int y = spawnY - 1; any != 0; y--) {
+            any = 0;
+            for (int r = 0; r < rotations; r++) {
+                int state = Shape.state(shape, r);
+                long fit = fitMask(grid, height, state, y);
+                // As posições de y + 1 que não descem são finais (se ficarem dentro da zona alvo)
+                long landed = reach[r] & ~fit;
+                if (landed != 0 && y + 1 - Shape.minY(state) < height) {
+                    int packedY = (r << 24) | (y + 1 + Y_MARGIN);
+                    for (; landed != 0; landed &= landed - 1) {
+                        int x = Long.numberOfTrailingZeros(landed) - Shape.minX(state);
+                        out[count++] = packedY | ((x + X_MARGIN) << 12);
+                    }
+                }
+                fitMask[r] = fit;
+                reach[r] &= fit;
+                any |= reach[r];
+            }
+            closeLevel(shape, rotations);
+        }
+        return count;
+    }
+
+    // Espalha as posições alcançadas numa altura pelos movimentos laterais e rotações
+    private void closeLevel(Shape.Tetrominoe shape, int rotations) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int r = 0; r < rotations; r++) {
+                long fit = fitMask[r];
+                long m = reach[r];
+                long spread;
+                do {
+                    spread = m;
+                    m = (m | (m << 1) | (m >>> 1)) & fit;
+                } while (m != spread);
+                reach[r] = m;
+                int minX = Shape.minX(Shape.state(shape, r));
+                changed |= rotateInto(m, minX, Shape.state(shape, Shape.rotateLeft(shape, r)), Shape.rotateLeft(shape, r));
+                changed |= rotateInto(m, minX, Shape.state(shape, Shape.rotateRight(shape, r)), Shape.rotateRight(shape, r));
+            }
+        }
+    }
+
+    // A rotação mantém x: a coluna mais à esquerda muda com o minX do estado
+    private boolean rotateInto(long from, int fromMinX, int state, int rotation) {
+        int shift = Shape.minX(state) - fromMinX;
+        long moved = (shift >= 0 ? from << shift : from >>> -shift) & fitMask[rotation];
+        if ((moved & ~reach[rotation]) == 0) {
+            return false;
+        }
+        reach[rotation] |= moved;
+        return true;
+    }
+
+    // Bit L: a peça cabe na altura y com a coluna mais à esquerda em L (linhas >= height estão vazias)
+    private long fitMask(long[] grid, int height, int state, int y) {
+        int pieceWidth = Shape.width(state);
+        int positions = width - pieceWidth + 1;
+        long valid = positions >= 64 ? -1L : (1L << positions) - 1;
+        int top = y - Shape.minY(state);
+        int pieceHeight = Shape.height(state);
+        if (top - pieceHeight + 1 < 0) return 0;
+        long blocked = 0;
+        for (int k = 0; k < pieceHeight; k++) {
+            int row = top - k;
+            if (row >= height) continue;
+            long cells = grid[row];
+            for (int mask = Shape.rowMask(state, k); mask != 0; mask &= mask - 1) {
+                blocked |= cells >>> Integer.numberOfTrailingZeros(mask);
+            }
+        }
+        return valid & ~blocked;
+    }
+
+    /**
+     * Poda por paridade. Uma peça que ocupe as colunas x e x+1 tem duas células lado a lado,
+     * na mesma linha, uma em cada coluna; as linhas limpas juntam linhas mas nunca mudam
+     * as células de linha. Por isso, se nenhuma linha tem vazias as duas células das
+     * colunas x e x+1, nenhuma peça futura passa de uma coluna para a outra. As colunas
+     * ficam assim separadas em grupos, e cada grupo tem de ter múltiplo de 4 células vazias;
+     * um grupo de uma só coluna precisa de uma peça I por cada 4 células.
+     * (Regiões de células ligadas não servem: uma linha limpa pode abrir um buraco fechado.)
+     */
+    private boolean columnGroupsDivisibleByFour(long[] grid, int height, int linePieces) {
+        long emptyColumns = 0;
+        long links = 0; // Bit x: as colunas x e x+1 têm células vazias lado a lado
+        for (int y = 0; y < height; y++) {
+            long empty = ~grid[y] & fullRow;
+            emptyColumns |= empty;
+            links |= empty & (empty >>> 1);
+        }
+        while (emptyColumns != 0) {
+            // Grupo: a coluna com vazios mais à direita (bit mais baixo) e as ligadas a ela
+            long group = emptyColumns & -emptyColumns;
+            long grown;
+            while ((grown = group | ((group & links) << 1)) != group) {
+                group = grown;
+            }
+            int empty = 0;
+            for (int y = 0; y < height; y++) {
+                empty += Long.bitCount(~grid[y] & group);
+            }
+            if ((empty & 3) != 0) return false;
+            // Uma coluna isolada só se enche com I verticais
+            if ((group & (group - 1)) == 0 && (linePieces -= empty >>> 2) < 0) return false;
+            emptyColumns &= ~group;
+        }
+        return true;
+    }
+
+    /**
+     * Conjunto exato de estados já explorados sem sucesso: além do hash guarda o estado
+     * inteiro (um array de longs) e uma etiqueta, por isso dois estados diferentes nunca se
+     * confundem. Endereçamento aberto com gerações, como a TranspositionTable, mas quando
+     * passa de 75% de ocupação cresce para o dobro em vez de deixar de memorizar.
+     */
+    private static final class StateSet {
+        private final int wordsPerEntry;
+        private long[] hashes;
+        private long[] words;
+        private int[] tags;
+        private int[] generations;
+        private int mask;
+        private int maxSize;
+        private int size;
+        private int generation = 1;
+
+        StateSet(int capacityBits, int wordsPerEntry) {
+            this.wordsPerEntry = wordsPerEntry;
+            allocate(1 << capacityBits);
+        }
+
+        private void allocate(int capacity) {
+            hashes = new long[capacity];
+            words = new long[capacity * wordsPerEntry];
+            tags = new int[capacity];
+            generations = new int[capacity];
+            mask = capacity - 1;
+            maxSize = capacity - (capacity >>> 2);
+        }
+
+        void clear() {
+            generation++;
+            size = 0;
+        }
+
+        /**
+         * @return false se o estado (state[0..length) com a etiqueta tag) já estava no conjunto
+         */
+        boolean add(long hash, long[] state, int length, int tag) {
+            int index = (int) hash & mask;
+            while (generations[index] == generation) {
+                if (hashes[index] == hash && tags[index] == tag
+                        && Arrays.equals(words, index * wordsPerEntry, index * wordsPerEntry + length, state, 0, length)) {
+                    return false;
+                }
+                index = (index + 1) & mask;
+            }
+            if (size >= maxSize) {
+                grow();
+                return add(hash, state, length, tag);
+            }
+            insert(index, hash, state, length, tag);
+            size++;
+            return true;
+        }
+
+        private void insert(int index, long hash, long[] state, int length, int tag) {
+            generations[index] = generation;
+            hashes[index] = hash;
+            tags[index] = tag;
+            System.arraycopy(state, 0, words, index * wordsPerEntry, length);
+        }
+
+        // Só as entradas da geração atual passam para a tabela nova
+        private void grow() {
+            long[] oldHashes = hashes;
+            long[] oldWords = words;
+            int[] oldTags = tags;
+            int[] oldGenerations = generations;
+            allocate(oldHashes.length * 2);
+            long[] state = new long[wordsPerEntry];
+            for (int old = 0; old < oldHashes.length; old++) {
+                if (oldGenerations[old] != generation) {
+                    continue;
+                }
+                int index = (int) oldHashes[old] & mask;
+                while (generations[index] == generation) {
+                    index = (index + 1) & mask;
+                }
+                System.arraycopy(oldWords, old * wordsPerEntry, state, 0, wordsPerEntry);
+                insert(index, oldHashes[old], state, wordsPerEntry, oldTags[old]);
+            }
+        }
+    }
+
+    private static long stateKey(long[] state, int length, int tag) {
+        long key = 0x9E3779B97F4A7C15L * (tag + 1);
+        for (int i = 0; i < length; i++) {
+            key = mix(key ^ state[i]);
+        }
+        return key;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,305 @@
+package com.tetris.ai;
+
+import com.tetris.model.Board;
+import com.tetris.model.GameEngine;
+import com.tetris.model.MoveGenerator;
+import com.tetris.model.Shape;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Avalia as jogadas da peça atual por simulação de Monte Carlo: a partir de cada
+ * posição final alcançável joga {@code rollouts} continuações de {@code depth} peças
+ * e faz a média do resultado (a nota heurística do tabuleiro no fim, ou uma
+ * penalização fixa se a continuação acabar em fim de jogo).
+ *
+ * Nas continuações as peças futuras são sorteadas de novo (o gerador da cópia é
+ * reiniciado com outra semente) e as peças caem a direito (Board.getDropY), escolhidas
+ * por uma política leve: ao acaso ({@link Policy#RANDOM}) ou a melhor segundo o
+ * HeuristicEvaluator ({@link Policy#GREEDY}).
+ *
+ * As posições são repartidas pelos núcleos com ForkJoin. Cada thread tem um BoardPool
+ * próprio: todas as cópias são feitas com Board.copyFrom sobre Boards reutilizados.
+ * O número de continuações por segundo e por núcleo é a métrica principal
+ * ({@link #getRolloutsPerCoreSecond()}).
+ */
+public class RolloutEvaluator {
+
+    public enum Policy { RANDOM, GREEDY }
+
+    public static final int DEFAULT_ROLLOUTS = 8;
+    public static final int DEFAULT_DEPTH = 4;
+    // Nota de uma continuação que termina em fim de jogo (evaluate daria -infinito, que estraga a média)
+    private static final double GAME_OVER_SCORE = -1000;
+
+    private final HeuristicEvaluator evaluator;
+    private final int rollouts;
+    private final int depth;
+    private final Policy policy;
+    private final ForkJoinPool pool;
+    private final int width;
+    private final MoveGenerator moveGenerator;
+    private final ThreadLocal<RolloutWorker> workers;
+    private final double[] scores;
+    private final byte[] path;
+    private int pathLength;
+
+    // Métricas acumuladas (somadas por todas as threads)
+    private final LongAdder totalRollouts = new LongAdder();
+    private final LongAdder totalRolloutNanos = new LongAdder();
+    private long lastDecisionNanos;
+    private long lastDecisionRollouts;
+
+    /**
+     * Estado de uma thread: Boards reutilizáveis e o seu próprio gerador aleatório.
+     */
+    private static final class RolloutWorker {
+        final BoardPool boards;
+        final SplittableRandom random;
+
+        RolloutWorker(BoardPool boards, SplittableRandom random) {
+            this.boards = boards;
+            this.random = random;
+        }
+    }
+
+    public RolloutEvaluator(int width, int height) {
+        this(width, height, new HeuristicEvaluator(), DEFAULT_ROLLOUTS, DEFAULT_DEPTH, Policy.GREEDY,
+                ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool pool para simular as posições em paralelo, ou null para simular na thread atual
+     */
+    public RolloutEvaluator(int width, int height, HeuristicEvaluator evaluator, int rollouts, int depth,
+                            Policy policy, ForkJoinPool pool) {
+        if (rollouts < 1 || depth < 0) {
+            throw new IllegalArgumentException("Número de continuações ou profundidade inválidos");
+        }
+        this.evaluator = evaluator;
+        this.rollouts = rollouts;
+        this.depth = depth;
+        this.policy = policy;
+        this.pool = pool;
+        this.width = width;
+        this.moveGenerator = new MoveGenerator(width, height);
+        // Cada thread com uma semente diferente, para as continuações não se repetirem entre núcleos
+        SplittableRandom seeds = new SplittableRandom(System.nanoTime());
+        this.workers = ThreadLocal.withInitial(() -> {
+            synchronized (seeds) {
+                return new RolloutWorker(new BoardPool(width, height), seeds.split());
+            }
+        });
+        int maxPlacements = (width + 4) * height * 4;
+        this.scores = new double[maxPlacements];
+        this.path = new byte[maxPlacements * 2];
+    }
+
+    /**
+     * Escolhe a jogada da peça atual com melhor média nas continuações e guarda o caminho até ela.
+     *
+     * @return false se não houver jogada possível (ex: fim de jogo)
+     */
+    public boolean decide(Board board) {
+        long start = System.nanoTime();
+        long rolloutsBefore = totalRollouts.sum();
+        pathLength = 0;
+        int count = moveGenerator.generate(board);
+        if (count == 0) {
+            return false;
+        }
+
+        EvaluateTask task = new EvaluateTask(board, 0, count);
+        if (pool != null && count > 1) {
+            pool.invoke(task);
+        } else {
+            task.compute();
+        }
+
+        int best = 0;
+        for (int i = 1; i < count; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        pathLength = moveGenerator.getPath(best, path);
+        lastDecisionNanos = System.nanoTime() - start;
+        lastDecisionRollouts = totalRollouts.sum() - rolloutsBefore;
+        return true;
+    }
+
+    /**
+     * Decide e joga a peça atual no engine: aplica o caminho e bloqueia com HARD_DROP.
+     *
+     * @return false se não havia jogada possível
+     */
+    public boolean playMove(GameEngine engine) {
+        if (!decide(engine.getBoard())) {
+            return false;
+        }
+        for (int i = 0; i < pathLength; i++) {
+            engine.step(path[i]);
+        }
+        engine.step(GameEngine.Input.HARD_DROP);
+        return true;
+    }
+
+    /**
+     * Média de uma posição da última decisão (para análise e comparação com outros bots).
+     */
+    public double getScore(int placement) { return scores[placement]; }
+    public int getPathLength() { return pathLength; }
+    public byte getPathInput(int index) { return path[index]; }
+
+    // --- Métricas ---
+
+    /**
+     * Continuações por segundo de CPU de uma thread, somando o tempo de todas as threads.
+     */
+    public double getRolloutsPerCoreSecond() {
+        long nanos = totalRolloutNanos.sum();
+        return nanos == 0 ? 0 : totalRollouts.sum() / (nanos / 1e9);
+    }
+
+    public long getTotalRollouts() { return totalRollouts.sum(); }
+    public long getLastDecisionNanos() { return lastDecisionNanos; }
+    public long getLastDecisionRollouts() { return lastDecisionRollouts; }
+
+    // --- Simulação ---
+
+    // Média das continuações a partir de uma posição final da peça atual
+    private double scorePlacement(Board board, int placement) {
+        RolloutWorker worker = workers.get();
+        long start = System.nanoTime();
+        Board placed = worker.boards.acquire(board);
+        int linesBefore = placed.getLinesCleared();
+        placed.placeCurrentPiece(moveGenerator.getRotation(placement), moveGenerator.getX(placement),
+                moveGenerator.getY(placement));
+        if (placed.isGameOver()) {
+            worker.boards.release(placed);
+            return GAME_OVER_SCORE;
+        }
+
+        Board rollout = worker.boards.acquire(placed);
+        Board scratch = worker.boards.acquire(placed);
+        double sum = 0;
+        for (int r = 0; r < rollouts; r++) {
+            if (r > 0) {
+                rollout.copyFrom(placed);
+            }
+            rollout.getPieceGenerator().reset(worker.random.nextLong());
+            sum += playRollout(rollout, scratch, worker.random, linesBefore);
+        }
+        worker.boards.release(scratch);
+        worker.boards.release(rollout);
+        worker.boards.release(placed);
+
+        totalRollouts.add(rollouts);
+        totalRolloutNanos.add(System.nanoTime() - start);
+        return sum / rollouts;
+    }
+
+    private double playRollout(Board board, Board scratch, SplittableRandom random, int linesBefore) {
+        int landingY = 0;
+        for (int d = 0; d < depth && !board.isGameOver(); d++) {
+            long move = policy == Policy.GREEDY ? greedyMove(board, scratch) : randomMove(board, random);
+            if (move == Long.MIN_VALUE) {
+                break;
+            }
+            int rotation = (int) (move >>> 48);
+            int x = (short) (move >>> 32);
+            landingY = (int) move;
+            board.placeCurrentPiece(rotation, x, landingY);
+        }
+        if (board.isGameOver()) {
+            return GAME_OVER_SCORE;
+        }
+        return evaluator.evaluate(board, board.getLinesCleared() - linesBefore, landingY);
+    }
+
+    // Jogadas das continuações empacotadas num long: rotação (16 bits), x (16 bits), y (32 bits)
+    private static long packMove(int rotation, int x, int y) {
+        return ((long) rotation << 48) | ((long) (x & 0xFFFF) << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    // A queda a direito com melhor nota heurística
+    private long greedyMove(Board board, Board scratch) {
+        Shape.Tetrominoe shape = board.getCurrentPiece().getShape();
+        int linesBefore = board.getLinesCleared();
+        long best = Long.MIN_VALUE;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int rotation = 0; rotation < Shape.rotationCount(shape); rotation++) {
+            for (int x = -2; x < width + 2; x++) {
+                int y = board.getDropY(rotation, x);
+                if (y == Integer.MIN_VALUE) {
+                    continue;
+                }
+                scratch.copyFrom(board);
+                scratch.placeCurrentPiece(rotation, x, y);
+                double score = evaluator.evaluate(scratch, scratch.getLinesCleared() - linesBefore, y);
+                if (best == Long.MIN_VALUE || score > bestScore) {
+                    bestScore = score;
+                    best = packMove(rotation, x, y);
+                }
+            }
+        }
+        return best;
+    }
+
+    // Uma queda a direito qualquer, escolhida uniformemente entre as que cabem no tabuleiro
+    private long randomMove(Board board, SplittableRandom random) {
+        Shape.Tetrominoe shape = board.getCurrentPiece().getShape();
+        int valid = 0;
+        for (int rotation = 0; rotation < Shape.rotationCount(shape); rotation++) {
+            for (int x = -2; x < width + 2; x++) {
+                if (board.getDropY(rotation, x) != Integer.MIN_VALUE) {
+                    valid++;
+                }
+            }
+        }
+        if (valid == 0) {
+            return Long.MIN_VALUE;
+        }
+        int pick = random.nextInt(valid);
+        for (int rotation = 0; rotation < Shape.rotationCount(shape); rotation++) {
+            for (int x = -2; x < width + 2; x++) {
+                int y = board.getDropY(rotation, x);
+                if (y != Integer.MIN_VALUE && pick-- == 0) {
+                    return packMove(rotation, x, y);
+                }
+            }
+        }
+        return Long.MIN_VALUE;
+    }
+
+    /**
+     * Simula as posições [from, to), dividindo até uma posição por tarefa
+     * (cada posição já são rollouts x depth jogadas).
+     */
+    private class EvaluateTask extends RecursiveAction {
+        private final Board board;
+        private final int from;
+        private final int to;
+
+        EvaluateTask(Board board, int from, int to) {
+            this.board = board;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1 || pool == null) {
+                for (int i = from; i < to; i++) {
+                    scores[i] = scorePlacement(board, i);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new EvaluateTask(board, from, mid), new EvaluateTask(board, mid, to));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.tetris.ai;
+
+/**
+ * Conjunto de hashes de Zobrist já vistos numa pesquisa, para não avaliar duas vezes
+ * o mesmo tabuleiro alcançado por caminhos diferentes (ex: rotações simétricas).
+ *
+ * Endereçamento aberto sobre um array de longs, sem objetos por entrada. Limpar é
+ * só avançar a geração: as entradas de gerações anteriores contam como vazias.
+ */
+class TranspositionTable {
+
+    private final long[] keys;
+    private final int[] generations;
+    private final int mask;
+    private final int maxSize;
+    private int generation = 1;
+    private int size;
+
+    /**
+     * @param capacityBits a tabela tem 2^capacityBits posições
+     */
+    TranspositionTable(int capacityBits) {
+        int capacity = 1 << capacityBits;
+        keys = new long[capacity];
+        generations = new int[capacity];
+        mask = capacity - 1;
+        maxSize = capacity - (capacity >>> 2); // Até 75% de ocupação
+    }
+
+    void clear() {
+        generation++;
+        size = 0;
+    }
+
+    /**
+     * Regista o hash.
+     *
+     * @return false se o hash já estava na tabela; true se é novo (ou se a tabela está cheia)
+     */
+    boolean add(long key) {
+        if (size >= maxSize) {
+            return true;
+        }
+        // Os bits baixos do Zobrist já estão bem misturados: servem de índice diretamente
+        int index = (int) key & mask;
+        while (generations[index] == generation) {
+            if (keys[index] == key) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        generations[index] = generation;
+        keys[index] = key;
+        size++;
+        return true;
+    }
+}
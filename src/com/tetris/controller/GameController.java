@@ -1,33 +1,96 @@
 package com.tetris.controller;
 
+import com.tetris.ai.BeamSearchPlanner;
+import com.tetris.ai.HeuristicEvaluator;
+import com.tetris.ai.PerfectClearSolver;
+import com.tetris.db.AutoSave;
 import com.tetris.db.Database;
+import com.tetris.db.HighScoreStore;
 import com.tetris.model.Board;
+import com.tetris.model.BoardSnapshot;
+import com.tetris.model.GameEngine;
 import com.tetris.model.Theme;
+import com.tetris.replay.ReplayArchive;
+import com.tetris.replay.ReplayCapture;
 import com.tetris.view.GameFrame;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 import javax.swing.Timer;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * O Controller no padrão MVC.
  * Faz a ponte entre o Model (Board) e a View (GameFrame).
  * Contém o game loop (Timer) e gere os inputs do utilizador.
+ * As regras do jogo correm no GameEngine; este controller é apenas um cliente Swing dele.
  */
 public class GameController extends KeyAdapter implements ActionListener {
 
     private static final int INITIAL_DELAY = 400;
 
     private final GameFrame gameFrame;
+    private final GameEngine engine;
     private final Board board;
     private final Timer timer;
     private int currentThemeIndex = 0;
     private String playerName = "";
+    private int savedHighScore;
+    private final BeamSearchPlanner autoPlayer;
+    private boolean isAutoPlayEnabled = false; // Modo automático: o bot joga uma peça por tick
+    // O bot pensa numa thread própria, sobre uma cópia do Board; a EDT só aplica a jogada
+    private final ExecutorService autoPlayThread;
+    private final Board autoPlayBoard;
+    private Future<byte[]> pendingAutoMove;
+    private long pendingAutoMoveHash;
+    private long pendingAutoMovePieces;
+    private ReplayArchive replayArchive;
+    private ReplayCapture replayCapture;
+    private AutoSave autoSave;
+    private long autoSavedPieces = -1;
+    // Gravação do fim de partida (recorde, game_session e replay) numa thread própria: a
+    // base de dados é partilhada com o histórico, e a EDT não deve esperar pelo seu lock
+    private final ExecutorService persistenceThread;
+    // Posto ao sair (ver stop): ticks e teclas já não mexem no Board
+    private volatile boolean stopped;
+    // Dica de perfect clear (tecla H): uma pesquisa de cada vez, sobre uma cópia do Board
+    private final PerfectClearSolver perfectClearSolver;
+    private final Board perfectClearBoard;
+    private boolean perfectClearRunning;
+    private long perfectClearPieces = -1; // Peças tiradas quando a dica mostrada foi pedida
 
-    public GameController(GameFrame gameFrame, Board board) {
+    public GameController(GameFrame gameFrame, GameEngine engine) {
         this.gameFrame = gameFrame;
-        this.board = board;
+        this.engine = engine;
+        this.board = engine.getBoard();
+        this.savedHighScore = board.getHighScore();
+        this.autoPlayer = new BeamSearchPlanner(board.getWidth(), board.getHeight(), new HeuristicEvaluator(),
+                BeamSearchPlanner.DEFAULT_BEAM_WIDTH, BeamSearchPlanner.DEFAULT_TIME_BUDGET_NANOS,
+                ForkJoinPool.commonPool());
+        this.autoPlayBoard = new Board(board.getWidth(), board.getHeight());
+        this.autoPlayThread = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "autoplay-planner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.persistenceThread = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "game-persistence");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.perfectClearSolver = new PerfectClearSolver(board.getWidth());
+        this.perfectClearBoard = new Board(board.getWidth(), board.getHeight());
         this.timer = new Timer(getDelayForLevel(), this);
         this.gameFrame.getGamePanel().addKeyListener(this);
         this.gameFrame.getGamePanel().setFocusable(true);
@@ -35,7 +98,7 @@ public class GameController extends KeyAdapter implements ActionListener {
         // Adiciona o listener de pause ao botão
         this.gameFrame.getGamePanel().getInfoPanel().setPauseActionListener(e -> {
             if (board.isStarted() && !board.isGameOver()) {
-                board.togglePause();
+                engine.step(GameEngine.Input.PAUSE);
                 updateView();
                 // Retorna o foco ao painel do jogo
                 gameFrame.getGamePanel().requestFocusInWindow();
@@ -58,7 +121,7 @@ public class GameController extends KeyAdapter implements ActionListener {
                 return;
             }
 
-            board.start();
+            engine.reset(System.nanoTime());
             if (!timer.isRunning()) {
                 timer.start();
             }
@@ -68,6 +131,23 @@ public class GameController extends KeyAdapter implements ActionListener {
         }
     }
 
+    /**
+     * Grava cada partida no arquivo indicado, ligada à sua linha em game_session
+     * (para o ReplayVerifier poder confirmar a pontuação).
+     */
+    public void setReplayArchive(ReplayArchive replayArchive) {
+        this.replayArchive = replayArchive;
+        this.replayCapture = new ReplayCapture();
+        engine.setInputListener(replayCapture);
+    }
+
+    /**
+     * Grava a partida em curso a cada peça bloqueada, para a poder retomar depois de um crash.
+     */
+    public void setAutoSave(AutoSave autoSave) {
+        this.autoSave = autoSave;
+    }
+
     public void setPlayerName(String name) {
         this.playerName = name == null ? "" : name.trim();
     }
@@ -81,16 +161,23 @@ public class GameController extends KeyAdapter implements ActionListener {
 
     @Override
     public void actionPerformed(ActionEvent e) {
-        if (board.isStarted() && !board.isPaused() && !board.isGameOver()) {
-            board.movePieceDown();
+        if (stopped) {
+            return;
+        }
+        if (isAutoPlayEnabled && board.isStarted() && !board.isPaused() && !board.isGameOver()) {
+            playAutoMove();
+        } else {
+            engine.tick();
         }
+        autoSaveIfPieceLocked();
         
         if (board.isGameOver()) {
             // Parar o timer e gravar a sessão no DB
             timer.stop();
-            Database.createTable();
-            String playerToSave = (playerName == null || playerName.trim().isEmpty()) ? "Jogador1" : playerName;
-            Database.saveGame(playerToSave, board.getScore(), board.getLevel(), board.getLinesCleared());
+            if (autoSave != null) {
+                autoSave.clear();
+            }
+            saveFinishedGame();
             updateView();
             return;
         }
@@ -99,10 +186,72 @@ public class GameController extends KeyAdapter implements ActionListener {
         updateView();
     }
 
+    /**
+     * Grava a partida acabada fora da EDT. Os valores (e a gravação do replay, cujo buffer
+     * é reutilizado na partida seguinte) são copiados aqui, antes de um possível reinício.
+     */
+    private void saveFinishedGame() {
+        int highScore = board.getHighScore() > savedHighScore ? board.getHighScore() : -1;
+        if (highScore >= 0) {
+            savedHighScore = highScore;
+        }
+        String playerToSave = (playerName == null || playerName.trim().isEmpty()) ? "Jogador1" : playerName;
+        int score = board.getScore();
+        int level = board.getLevel();
+        int lines = board.getLinesCleared();
+        ReplayArchive archive = replayArchive;
+        byte[] recording = archive != null && replayCapture.isComplete() ? replayCapture.toByteArray() : null;
+        persistenceThread.execute(() -> {
+            if (highScore >= 0) {
+                HighScoreStore.save(highScore);
+            }
+            long sessionId = Database.saveGame(playerToSave, score, level, lines);
+            if (recording != null) {
+                try {
+                    archive.append(ByteBuffer.wrap(recording), sessionId, playerToSave, score);
+                } catch (IOException ex) {
+                    System.out.println("Não foi possível arquivar o replay -> " + ex.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Pára o jogo ao sair: o timer e as teclas deixam de mexer no Board, e espera (até
+     * alguns segundos) que as gravações de fim de partida em curso terminem. Chamado no
+     * hook de saída, antes de fechar o gravador, a gravação automática, a base de dados
+     * e o arquivo de replays.
+     */
+    public void stop() {
+        stopped = true;
+        timer.stop();
+        autoPlayThread.shutdownNow();
+        try {
+            // Deixa acabar o tick ou a tecla que a EDT esteja a tratar. Se a saída veio da
+            // própria EDT (fechar a janela), ela está parada no System.exit: o prazo evita esperar
+            CountDownLatch edtIdle = new CountDownLatch(1);
+            SwingUtilities.invokeLater(edtIdle::countDown);
+            edtIdle.await(1, TimeUnit.SECONDS);
+            persistenceThread.shutdown();
+            persistenceThread.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private void updateView() {
-        gameFrame.getGamePanel().getBoardPanel().updateBoard(board);
-        gameFrame.getGamePanel().getInfoPanel().updateInfo(board);
-        gameFrame.getOverlayPanel().updateBoard(board);
+        // A dica só vale para a peça em que foi pedida (também some num reinício)
+        if (perfectClearPieces >= 0 && (board.getPieceGenerator().getDrawn() != perfectClearPieces
+                || !board.isStarted() || board.isGameOver())) {
+            perfectClearPieces = -1;
+            gameFrame.getOverlayPanel().clearPerfectClearHint();
+        }
+        // A View só lê snapshots imutáveis, nunca o Board enquanto ele é alterado
+        board.publishSnapshot();
+        BoardSnapshot snapshot = board.acquireSnapshot();
+        gameFrame.getGamePanel().getBoardPanel().updateBoard(snapshot);
+        gameFrame.getGamePanel().getInfoPanel().updateInfo(snapshot);
+        gameFrame.getOverlayPanel().updateBoard(snapshot);
 
         Theme currentTheme = Theme.AVAILABLE_THEMES[currentThemeIndex];
         gameFrame.getGamePanel().updateTheme(currentTheme);
@@ -113,6 +262,9 @@ public class GameController extends KeyAdapter implements ActionListener {
 
     @Override
     public void keyPressed(KeyEvent e) {
+        if (stopped) {
+            return;
+        }
         int keycode = e.getKeyCode();
 
         if (keycode == KeyEvent.VK_T) {
@@ -128,6 +280,13 @@ public class GameController extends KeyAdapter implements ActionListener {
             return;
         }
 
+        // Novo: Liga/desliga o modo automático (bot)
+        if (keycode == KeyEvent.VK_A) {
+            isAutoPlayEnabled = !isAutoPlayEnabled;
+            updateView();
+            return;
+        }
+
         if ((!board.isStarted() || board.isGameOver()) && keycode == KeyEvent.VK_ENTER) {
             // exige nome antes de iniciar com ENTER
             if (playerName == null || playerName.trim().isEmpty()) {
@@ -137,7 +296,7 @@ public class GameController extends KeyAdapter implements ActionListener {
                 return;
             }
 
-            board.start();
+            engine.reset(System.nanoTime());
             if (!timer.isRunning()) {
                 timer.start();
             }
@@ -150,39 +309,150 @@ public class GameController extends KeyAdapter implements ActionListener {
         }
 
         if (keycode == KeyEvent.VK_P) {
-            board.togglePause();
+            engine.step(GameEngine.Input.PAUSE);
             updateView();
             return;
         }
 
-        if (board.isPaused()) {
+        if (board.isPaused() || isAutoPlayEnabled) {
+            return;
+        }
+
+        if (keycode == KeyEvent.VK_H) {
+            showPerfectClearHint();
             return;
         }
 
         switch (keycode) {
             case KeyEvent.VK_LEFT:
-                board.moveLeft();
+                engine.step(GameEngine.Input.LEFT);
                 break;
             case KeyEvent.VK_RIGHT:
-                board.moveRight();
+                engine.step(GameEngine.Input.RIGHT);
                 break;
             case KeyEvent.VK_DOWN:
-                board.movePieceDown();
+                engine.step(GameEngine.Input.SOFT_DROP);
                 break;
             case KeyEvent.VK_UP:
-                board.rotateRight();
+                engine.step(GameEngine.Input.ROTATE_RIGHT);
                 break;
             case KeyEvent.VK_Z:
-                board.rotateLeft();
+                engine.step(GameEngine.Input.ROTATE_LEFT);
                 break;
             case KeyEvent.VK_SPACE:
-                board.dropDown();
+                engine.step(GameEngine.Input.HARD_DROP);
                 break;
         }
         
+        autoSaveIfPieceLocked();
         updateView();
     }
 
+    /**
+     * Um tick do modo automático: aplica a jogada que o bot já escolheu e pede-lhe a da
+     * peça seguinte, que ele planeia enquanto o timer espera. O planeador pára no seu
+     * orçamento de tempo, bem abaixo do intervalo mínimo de 100 ms; se ainda não acabou,
+     * este tick fica sem jogada.
+     */
+    private void playAutoMove() {
+        if (pendingAutoMove != null) {
+            if (!pendingAutoMove.isDone()) {
+                return;
+            }
+            byte[] path;
+            try {
+                path = pendingAutoMove.get();
+            } catch (InterruptedException | ExecutionException ex) {
+                path = null;
+            }
+            pendingAutoMove = null;
+            // A jogada só serve para o tabuleiro em que foi pensada (ex: não depois de um reinício)
+            if (path != null && board.getZobristHash() == pendingAutoMoveHash
+                    && board.getPieceGenerator().getDrawn() == pendingAutoMovePieces) {
+                for (byte input : path) {
+                    engine.step(input);
+                }
+                engine.step(GameEngine.Input.HARD_DROP);
+            }
+        }
+        if (!board.isGameOver()) {
+            autoPlayBoard.copyFrom(board);
+            pendingAutoMoveHash = board.getZobristHash();
+            pendingAutoMovePieces = board.getPieceGenerator().getDrawn();
+            pendingAutoMove = autoPlayThread.submit(this::planAutoMove);
+        }
+    }
+
+    // Corre na thread do bot: só lê a cópia do Board
+    private byte[] planAutoMove() {
+        if (!autoPlayer.decide(autoPlayBoard)) {
+            return null;
+        }
+        byte[] path = new byte[autoPlayer.getPathLength()];
+        for (int i = 0; i < path.length; i++) {
+            path[i] = autoPlayer.getPathInput(i);
+        }
+        return path;
+    }
+
+    /**
+     * Procura um perfect clear com a fila visível, numa thread à parte: com 10 peças a
+     * resposta costuma vir em milissegundos, mas pode chegar ao limite de nós do solver
+     * (cerca de meio segundo). O resultado só é mostrado se a peça ainda for a mesma.
+     */
+    private void showPerfectClearHint() {
+        if (perfectClearRunning) {
+            return;
+        }
+        perfectClearRunning = true;
+        perfectClearBoard.copyFrom(board);
+        long pieces = board.getPieceGenerator().getDrawn();
+        perfectClearPieces = pieces;
+        gameFrame.getOverlayPanel().showPerfectClearHint("PERFECT CLEAR: A PROCURAR...", null);
+        new SwingWorker<int[][], Void>() {
+            private String message;
+
+            // Corre fora da EDT: só lê a cópia do Board
+            @Override
+            protected int[][] doInBackground() {
+                if (perfectClearSolver.solve(perfectClearBoard)) {
+                    message = "PERFECT CLEAR EM " + perfectClearSolver.getSolutionLength() + " PEÇAS";
+                    return perfectClearSolver.getSolutionSteps();
+                }
+                message = perfectClearSolver.isNodeLimitReached()
+                        ? "PERFECT CLEAR: PESQUISA INTERROMPIDA" : "SEM PERFECT CLEAR";
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                perfectClearRunning = false;
+                int[][] steps;
+                try {
+                    steps = get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    steps = null;
+                    message = "PERFECT CLEAR: ERRO NA PESQUISA";
+                }
+                if (perfectClearPieces == pieces && board.getPieceGenerator().getDrawn() == pieces) {
+                    gameFrame.getOverlayPanel().showPerfectClearHint(message, steps);
+                }
+            }
+        }.execute();
+    }
+
+    private void autoSaveIfPieceLocked() {
+        if (autoSave == null || !board.isStarted() || board.isGameOver()) {
+            return;
+        }
+        // Cada peça bloqueada tira a seguinte do gerador: basta comparar o contador
+        long pieces = board.getPieceGenerator().getDrawn();
+        if (pieces != autoSavedPieces) {
+            autoSavedPieces = pieces;
+            autoSave.save(board, playerName);
+        }
+    }
+
     private int getDelayForLevel() {
         return Math.max(100, INITIAL_DELAY - (board.getLevel() - 1) * 30);
     }
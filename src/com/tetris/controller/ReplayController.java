@@ -0,0 +1,143 @@
+package com.tetris.controller;
+
+import com.tetris.model.Board;
+import com.tetris.model.BoardSnapshot;
+import com.tetris.model.Theme;
+import com.tetris.replay.ReplayPlayer;
+import com.tetris.view.GameFrame;
+import javax.swing.Timer;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+
+/**
+ * Controller do modo replay: mostra uma partida gravada na mesma janela do jogo.
+ * A cada frame avança o ReplayPlayer os ticks correspondentes ao tempo passado,
+ * com o intervalo de gravidade do nível (como no jogo) dividido pela velocidade.
+ *
+ * Teclas: ESPAÇO pausa, CIMA/BAIXO duplica/divide a velocidade, ESQUERDA/DIREITA
+ * recuam/avançam 100 ticks, PAGE UP/PAGE DOWN 1000 ticks, HOME/END vão ao início/fim
+ * e T troca o tema.
+ */
+public class ReplayController extends KeyAdapter implements ActionListener {
+
+    private static final int FRAME_DELAY = 16;
+    private static final int INITIAL_DELAY = 400;
+    private static final double MAX_SPEED = 256;
+    private static final long SMALL_STEP = 100;
+    private static final long LARGE_STEP = 1000;
+
+    private final GameFrame gameFrame;
+    private final ReplayPlayer player;
+    private final Board board;
+    private final Timer timer;
+    private double speed;
+    private double pendingMillis;
+    private boolean isPlaying = true;
+    private int currentThemeIndex = 0;
+
+    public ReplayController(GameFrame gameFrame, ReplayPlayer player, double speed) {
+        this.gameFrame = gameFrame;
+        this.player = player;
+        this.board = player.getBoard();
+        this.speed = Math.max(1 / MAX_SPEED, Math.min(speed, MAX_SPEED));
+        this.timer = new Timer(FRAME_DELAY, this);
+        this.gameFrame.getGamePanel().addKeyListener(this);
+        this.gameFrame.getGamePanel().setFocusable(true);
+    }
+
+    public void start() {
+        timer.start();
+        gameFrame.getGamePanel().requestFocusInWindow();
+        updateView();
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        if (!isPlaying || player.isFinished()) {
+            return;
+        }
+        // Pode avançar vários ticks por frame em velocidades altas
+        pendingMillis += FRAME_DELAY * speed;
+        long ticks = 0;
+        int delay = getDelayForLevel();
+        while (pendingMillis >= delay) {
+            pendingMillis -= delay;
+            ticks++;
+        }
+        if (ticks > 0) {
+            player.advance(ticks);
+            updateView();
+        }
+    }
+
+    private void updateView() {
+        board.publishSnapshot();
+        BoardSnapshot snapshot = board.acquireSnapshot();
+        gameFrame.getGamePanel().getBoardPanel().updateBoard(snapshot);
+        gameFrame.getGamePanel().getInfoPanel().updateInfo(snapshot);
+        gameFrame.getOverlayPanel().updateBoard(snapshot);
+
+        Theme currentTheme = Theme.AVAILABLE_THEMES[currentThemeIndex];
+        gameFrame.getGamePanel().updateTheme(currentTheme);
+        gameFrame.getOverlayPanel().updateTheme(currentTheme);
+
+        gameFrame.setTitle(String.format("Tetris - Replay  tick %d/%d  %sx%s", player.getTick(),
+                player.getLength(), formatSpeed(), isPlaying ? "" : "  (pausa)"));
+        gameFrame.repaint();
+    }
+
+    @Override
+    public void keyPressed(KeyEvent e) {
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_SPACE:
+            case KeyEvent.VK_P:
+                isPlaying = !isPlaying;
+                break;
+            case KeyEvent.VK_UP:
+                speed = Math.min(speed * 2, MAX_SPEED);
+                break;
+            case KeyEvent.VK_DOWN:
+                speed = Math.max(speed / 2, 1 / MAX_SPEED);
+                break;
+            case KeyEvent.VK_LEFT:
+                seek(player.getTick() - SMALL_STEP);
+                break;
+            case KeyEvent.VK_RIGHT:
+                seek(player.getTick() + SMALL_STEP);
+                break;
+            case KeyEvent.VK_PAGE_UP:
+                seek(player.getTick() - LARGE_STEP);
+                break;
+            case KeyEvent.VK_PAGE_DOWN:
+                seek(player.getTick() + LARGE_STEP);
+                break;
+            case KeyEvent.VK_HOME:
+                seek(0);
+                break;
+            case KeyEvent.VK_END:
+                seek(player.getLength());
+                break;
+            case KeyEvent.VK_T:
+                currentThemeIndex = (currentThemeIndex + 1) % Theme.AVAILABLE_THEMES.length;
+                break;
+            default:
+                return;
+        }
+        updateView();
+    }
+
+    private void seek(long tick) {
+        player.seek(tick);
+        pendingMillis = 0;
+    }
+
+    private String formatSpeed() {
+        return speed >= 1 ? String.valueOf((long) speed) : "1/" + (long) (1 / speed);
+    }
+
+    private int getDelayForLevel() {
+        return Math.max(100, INITIAL_DELAY - (board.getLevel() - 1) * 30);
+    }
+}
@@ -0,0 +1,210 @@
+package com.tetris.db;
+
+import com.tetris.model.Board;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Gravação automática da partida em curso num ficheiro pequeno mapeado em memória,
+ * para a poder retomar depois de um crash ou de a janela ser fechada a meio.
+ *
+ * O ficheiro tem um cabeçalho ("TTSV", versão, tamanho dos slots) e dois slots.
+ * Cada gravação vai para o slot que não tem a gravação mais recente, com um número
+ * de sequência e um CRC32 do conteúdo: se a escrita for interrompida a meio, o CRC
+ * desse slot não bate certo e a leitura usa o outro. Gravar é escrever umas centenas
+ * de bytes na memória mapeada (o sistema operativo passa-os para o disco), por isso
+ * custa microssegundos e pode ser feito a cada peça bloqueada.
+ *
+ * Conteúdo de um slot: nome do jogador (1 byte de tamanho + UTF-8) e Board.writeState.
+ * Um slot vazio (tamanho 0) quer dizer que não há partida para retomar.
+ */
+public class AutoSave implements Closeable {
+
+    public static final String DEFAULT_FILE = "autosave.bin";
+
+    private static final int MAGIC = 0x54545356; // "TTSV"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 12;
+    // Sequência (8), tamanho do conteúdo (4), CRC32 (4)
+    private static final int SLOT_HEADER_SIZE = 16;
+    private static final int MAX_NAME_BYTES = 64;
+
+    /**
+     * Uma partida gravada, pronta a retomar.
+     */
+    public record SavedGame(Board board, String playerName) {
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final int slotSize;
+    // Conteúdo de cada slot, fatias fixas do mapeamento (gravar não aloca buffers)
+    private final ByteBuffer[] payloads = new ByteBuffer[2];
+    private final CRC32 crc = new CRC32();
+    private final ByteBuffer checksumHeader = ByteBuffer.allocate(12);
+    private long sequence;
+
+    private AutoSave(FileChannel channel, MappedByteBuffer map, int slotSize) {
+        this.channel = channel;
+        this.map = map;
+        this.slotSize = slotSize;
+        for (int slot = 0; slot < 2; slot++) {
+            payloads[slot] = map.slice(slotOffset(slot, slotSize) + SLOT_HEADER_SIZE, slotSize - SLOT_HEADER_SIZE);
+        }
+        this.sequence = Math.max(0, Math.max(checkSlot(map, 0, slotSize), checkSlot(map, 1, slotSize)));
+    }
+
+    /**
+     * Abre o ficheiro para gravar partidas num tabuleiro com estas dimensões. Se o ficheiro
+     * não existir, estiver estragado ou for de outras dimensões, é recriado (vazio).
+     */
+    public static AutoSave open(Path file, int width, int height) throws IOException {
+        int slotSize = SLOT_HEADER_SIZE + 1 + MAX_NAME_BYTES + Board.maxStateSize(width, height);
+        long fileSize = FILE_HEADER_SIZE + 2L * slotSize;
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            boolean reuse = channel.size() == fileSize;
+            if (!reuse) {
+                channel.truncate(0); // O mapeamento volta a estendê-lo, com zeros
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            if (!reuse || map.getInt(0) != MAGIC || map.getInt(4) != VERSION || map.getInt(8) != slotSize) {
+                for (int i = 0; i < fileSize; i++) {
+                    map.put(i, (byte) 0);
+                }
+                map.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, slotSize);
+            }
+            return new AutoSave(channel, map, slotSize);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Lê a partida gravada, se houver uma e estiver intacta.
+     *
+     * @return a partida, ou null se não houver nada para retomar
+     */
+    public static SavedGame load(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < FILE_HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            ByteBuffer contents = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (contents.getInt(0) != MAGIC || contents.getInt(4) != VERSION) {
+                return null;
+            }
+            int slotSize = contents.getInt(8);
+            if (slotSize <= SLOT_HEADER_SIZE || FILE_HEADER_SIZE + 2L * slotSize != channel.size()) {
+                return null;
+            }
+            long first = checkSlot(contents, 0, slotSize);
+            long second = checkSlot(contents, 1, slotSize);
+            if (first < 0 && second < 0) {
+                return null;
+            }
+            int offset = slotOffset(first >= second ? 0 : 1, slotSize);
+            int length = contents.getInt(offset + 8);
+            if (length == 0) {
+                return null;
+            }
+            ByteBuffer payload = contents.slice(offset + SLOT_HEADER_SIZE, length);
+            byte[] name = new byte[payload.get() & 0xFF];
+            payload.get(name);
+            Board board = Board.fromState(payload);
+            if (!board.isStarted() || board.isGameOver()) {
+                return null;
+            }
+            return new SavedGame(board, new String(name, StandardCharsets.UTF_8));
+        } catch (IOException | RuntimeException e) {
+            System.out.println("AutoSave: gravação automática ilegível -> " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Grava a partida em curso no slot mais antigo.
+     */
+    public void save(Board board, String playerName) {
+        int slot = (int) ((sequence + 1) & 1);
+        ByteBuffer payload = payloads[slot].clear();
+        byte[] name = encodeName(playerName);
+        payload.put((byte) name.length).put(name);
+        board.writeState(payload);
+        writeSlot(slot, payload.position());
+    }
+
+    /**
+     * Marca que não há partida para retomar (ex: no fim da partida).
+     */
+    public void clear() {
+        writeSlot((int) ((sequence + 1) & 1), 0);
+    }
+
+    // O cabeçalho vai depois do conteúdo: um slot só fica válido quando o CRC bate com tudo
+    private void writeSlot(int slot, int length) {
+        long next = sequence + 1;
+        int checksum = checksum(crc, checksumHeader, next, length, payloads[slot].position(0).limit(length));
+        int offset = slotOffset(slot, slotSize);
+        map.putLong(offset, next).putInt(offset + 8, length).putInt(offset + 12, checksum);
+        sequence = next;
+    }
+
+    private static int slotOffset(int slot, int slotSize) {
+        return FILE_HEADER_SIZE + slot * slotSize;
+    }
+
+    // CRC32 da sequência, do tamanho e do conteúdo (do position ao limit de payload)
+    private static int checksum(CRC32 crc, ByteBuffer header, long sequence, int length, ByteBuffer payload) {
+        crc.reset();
+        crc.update(header.clear().putLong(sequence).putInt(length).flip());
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    // Sequência do slot se o conteúdo estiver intacto, -1 se não estiver
+    private static long checkSlot(ByteBuffer contents, int slot, int slotSize) {
+        int offset = slotOffset(slot, slotSize);
+        long slotSequence = contents.getLong(offset);
+        int length = contents.getInt(offset + 8);
+        if (slotSequence <= 0 || length < 0 || length > slotSize - SLOT_HEADER_SIZE) {
+            return -1;
+        }
+        int checksum = checksum(new CRC32(), ByteBuffer.allocate(12), slotSequence, length,
+                contents.slice(offset + SLOT_HEADER_SIZE, length));
+        return checksum == contents.getInt(offset + 12) ? slotSequence : -1;
+    }
+
+    private static byte[] encodeName(String playerName) {
+        String name = playerName == null ? "" : playerName;
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        while (bytes.length > MAX_NAME_BYTES) {
+            name = name.substring(0, name.offsetByCodePoints(name.length(), -1));
+            bytes = name.getBytes(StandardCharsets.UTF_8);
+        }
+        return bytes;
+    }
+
+    /**
+     * Passa o que falta para o disco e fecha o ficheiro.
+     */
+    @Override
+    public void close() throws IOException {
+        map.force();
+        channel.close();
+    }
+}
@@ -5,20 +5,27 @@ import java.time.ZonedDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 
+/**
+ * Acesso à base de dados SQLite (tetris.db).
+ *
+ * Usa uma só conexão, aberta uma vez (open, ou no primeiro acesso) e partilhada por
+ * todas as threads: os métodos são synchronized e os PreparedStatements ficam em cache
+ * (um por SQL). Se a abertura falhar (ex: sem o driver SQLite), os acessos seguintes
+ * devolvem logo o resultado vazio, sem tentar de novo, até a um open() explícito.
+ * A conexão usa o journal WAL com synchronous=NORMAL: um commit é uma escrita no fim do
+ * ficheiro -wal, sem fsync, e as leituras não bloqueiam as escritas.
+ * O esquema é atualizado uma só vez, na abertura (ver MIGRATIONS).
+ */
 public class Database {
     private static final String URL = "jdbc:sqlite:tetris.db";
+    private static final String INSERT_SESSION =
+            "INSERT INTO game_session (player_name, score, level, lines_cleared, date_time) VALUES (?, ?, ?, ?, ?)";
 
-    public static Connection connect() {
-        try {
-            return DriverManager.getConnection(URL);
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return null;
-        }
-    }
-
-    public static void createTable() {
-        String sql = """
+    // Migrações do esquema, por ordem: a de índice i leva a base de dados da versão i para a i + 1
+    // (guardada em PRAGMA user_version). As bases de dados anteriores a este controlo estão na
+    // versão 0 mas já têm a tabela, daí o IF NOT EXISTS.
+    private static final String[] MIGRATIONS = {
+        """
             CREATE TABLE IF NOT EXISTS game_session (
                 id INTEGER PRIMARY KEY AUTOINCREMENT,
                 player_name TEXT,
@@ -27,77 +34,259 @@ public class Database {
                 lines_cleared INTEGER,
                 date_time TEXT
             );
-        """;
-        try (Connection conn = connect()) {
-            if (conn == null) return;
+        """,
+    };
+
+    private static Connection connection;
+    private static boolean openFailed;
+    private static final java.util.Map<String, PreparedStatement> statements = new java.util.HashMap<>();
+
+    /**
+     * Abre a conexão e atualiza o esquema, se ainda não estiver aberta. Convém chamar no
+     * arranque, para não pagar este custo na primeira partida gravada. Tenta sempre, mesmo
+     * que uma abertura anterior tenha falhado.
+     *
+     * @return se a base de dados está disponível
+     */
+    public static synchronized boolean open() {
+        openFailed = false;
+        return connect();
+    }
+
+    private static boolean connect() {
+        if (connection != null) return true;
+        if (openFailed) return false;
+        Connection conn = null;
+        try {
+            conn = DriverManager.getConnection(URL);
             try (Statement stmt = conn.createStatement()) {
-                stmt.execute(sql);
+                stmt.execute("PRAGMA journal_mode = WAL");
+                stmt.execute("PRAGMA synchronous = NORMAL");
+                stmt.execute("PRAGMA busy_timeout = 5000");
+            }
+            migrate(conn);
+            connection = conn;
+            return true;
+        } catch (SQLException e) {
+            // Só se vê o erro uma vez: os acessos seguintes não voltam a tentar (ver open)
+            System.out.println("Base de dados indisponível, as partidas não serão gravadas -> " + e.getMessage());
+            openFailed = true;
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException ignored) {
+                }
+            }
+            return false;
+        }
+    }
+
+    private static void migrate(Connection conn) throws SQLException {
+        int version;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            version = rs.next() ? rs.getInt(1) : 0;
+        }
+        if (version >= MIGRATIONS.length) return;
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            for (int v = version; v < MIGRATIONS.length; v++) {
+                stmt.execute(MIGRATIONS[v]);
+            }
+            // O PRAGMA não aceita parâmetros; o valor é uma constante nossa
+            stmt.execute("PRAGMA user_version = " + MIGRATIONS.length);
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Fecha os statements em cache e a conexão (ex: ao sair da aplicação).
+     */
+    public static synchronized void close() {
+        if (connection == null) return;
+        try {
+            for (PreparedStatement pstmt : statements.values()) {
+                pstmt.close();
             }
+            connection.close();
         } catch (SQLException e) {
             e.printStackTrace();
+        } finally {
+            statements.clear();
+            connection = null;
+        }
+    }
+
+    // Statement em cache para este SQL, ou null se a base de dados não estiver disponível
+    private static PreparedStatement prepare(String sql) throws SQLException {
+        if (!connect()) return null;
+        PreparedStatement pstmt = statements.get(sql);
+        if (pstmt == null) {
+            pstmt = connection.prepareStatement(sql);
+            statements.put(sql, pstmt);
         }
+        return pstmt;
     }
 
-    public static void saveGame(String player, int score, int level, int lines) {
-        // Calcula a data/hora no fuso de Brasília (America/Sao_Paulo) e grava como texto
-        String sql = "INSERT INTO game_session (player_name, score, level, lines_cleared, date_time) VALUES (?, ?, ?, ?, ?)";
-        // Formato legível: yyyy-MM-dd HH:mm:ss
-        String dateTime = ZonedDateTime.now(ZoneId.of("America/Sao_Paulo")).format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-        try (Connection conn = connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    // Id da última linha inserida nesta conexão
+    private static long lastInsertId() throws SQLException {
+        try (ResultSet rs = prepare("SELECT last_insert_rowid()").executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Grava uma sessão.
+     *
+     * @return id gerado para a sessão, ou 0 se a gravação falhou
+     */
+    public static synchronized long saveGame(String player, int score, int level, int lines) {
+        String dateTime = currentDateTime();
+        try {
+            PreparedStatement pstmt = prepare(INSERT_SESSION);
+            if (pstmt == null) return 0;
             pstmt.setString(1, player);
             pstmt.setInt(2, score);
             pstmt.setInt(3, level);
             pstmt.setInt(4, lines);
             pstmt.setString(5, dateTime);
             pstmt.executeUpdate();
+            return lastInsertId();
         } catch (SQLException e) {
             e.printStackTrace();
+            return 0;
         }
     }
 
-    // 👇 INSIRA AQUI ESTE MÉTODO
-    public static void listGames() {
-        String sql = "SELECT player_name, score, level, lines_cleared, date_time FROM game_session ORDER BY id DESC";
-        try (Connection conn = connect()) {
-            if (conn == null) return;
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
+    /**
+     * Grava várias sessões de uma vez: uma só transação, com os INSERTs enviados em
+     * lote (muito mais rápido do que um saveGame por partida).
+     *
+     * @return as sessões gravadas, pela mesma ordem, com o id gerado (vazia se a gravação falhou)
+     */
+    public static synchronized java.util.List<GameSession> saveGames(java.util.List<GameSession> sessions) {
+        java.util.List<GameSession> saved = new java.util.ArrayList<>(sessions.size());
+        if (sessions.isEmpty()) return saved;
+        try {
+            PreparedStatement pstmt = prepare(INSERT_SESSION);
+            if (pstmt == null) return saved;
+            connection.setAutoCommit(false);
+            try {
+                for (GameSession session : sessions) {
+                    pstmt.setString(1, session.playerName());
+                    pstmt.setInt(2, session.score());
+                    pstmt.setInt(3, session.level());
+                    pstmt.setInt(4, session.linesCleared());
+                    pstmt.setString(5, session.dateTime());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                // Dentro da transação ninguém mais escreve na tabela: os ids do lote são
+                // consecutivos e o último é o last_insert_rowid()
+                long lastId = lastInsertId();
+                connection.commit();
+                long id = lastId - sessions.size() + 1;
+                for (GameSession session : sessions) {
+                    saved.add(new GameSession(id++, session.playerName(), session.score(), session.level(),
+                            session.linesCleared(), session.dateTime()));
+                }
+                return saved;
+            } catch (SQLException e) {
+                pstmt.clearBatch();
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            saved.clear();
+            return saved;
+        }
+    }
 
-                System.out.println("\n=== Histórico de partidas ===");
+    /**
+     * Sessões com id em [fromId, toId], por ordem de id (ex: para as comparar com replays).
+     */
+    public static synchronized java.util.List<GameSession> getSessions(long fromId, long toId) {
+        java.util.List<GameSession> sessions = new java.util.ArrayList<>();
+        String sql = "SELECT id, player_name, score, level, lines_cleared, date_time FROM game_session"
+                + " WHERE id BETWEEN ? AND ? ORDER BY id";
+        try {
+            PreparedStatement pstmt = prepare(sql);
+            if (pstmt == null) return sessions;
+            pstmt.setLong(1, fromId);
+            pstmt.setLong(2, toId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    sessions.add(readSession(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return sessions;
+    }
+
+    /**
+     * Uma página do histórico, da partida mais recente para a mais antiga: as sessões com
+     * id menor que beforeId (Long.MAX_VALUE na primeira página). A página seguinte começa
+     * no id da última sessão devolvida; uma página com menos de limit sessões é a última.
+     * A procura é feita pela chave primária, por isso cada página custa o mesmo por mais
+     * para trás que se vá no histórico (ao contrário de LIMIT/OFFSET).
+     */
+    public static synchronized java.util.List<GameSession> getHistoryPage(long beforeId, int limit) {
+        java.util.List<GameSession> page = new java.util.ArrayList<>(limit);
+        String sql = "SELECT id, player_name, score, level, lines_cleared, date_time FROM game_session"
+                + " WHERE id < ? ORDER BY id DESC LIMIT ?";
+        try {
+            PreparedStatement pstmt = prepare(sql);
+            if (pstmt == null) return page;
+            pstmt.setLong(1, beforeId);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    System.out.println(
-                        rs.getString("player_name") + " - " +
-                        rs.getInt("score") + " pontos, nível " +
-                        rs.getInt("level") + " (" + rs.getString("date_time") + ")"
-                    );
+                    page.add(readSession(rs));
                 }
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        return page;
+    }
+
+    private static GameSession readSession(ResultSet rs) throws SQLException {
+        return new GameSession(rs.getLong("id"), rs.getString("player_name"), rs.getInt("score"),
+                rs.getInt("level"), rs.getInt("lines_cleared"), rs.getString("date_time"));
     }
 
     /**
-     * Retorna o histórico de partidas como uma lista de strings (cada entrada é uma linha formatada).
+     * Data/hora atual no fuso de Brasília (America/Sao_Paulo), no formato legível yyyy-MM-dd HH:mm:ss.
      */
-    public static java.util.List<String> getGameHistory() {
-        java.util.List<String> history = new java.util.ArrayList<>();
-        String sql = "SELECT player_name, score, level, lines_cleared, date_time FROM game_session ORDER BY id DESC";
-        try (Connection conn = connect()) {
-            if (conn == null) return history;
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
+    static String currentDateTime() {
+        return ZonedDateTime.now(ZoneId.of("America/Sao_Paulo")).format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+    }
+
+    // 👇 INSIRA AQUI ESTE MÉTODO
+    public static synchronized void listGames() {
+        String sql = "SELECT id, player_name, score, level, lines_cleared, date_time FROM game_session ORDER BY id DESC";
+        try {
+            PreparedStatement pstmt = prepare(sql);
+            if (pstmt == null) return;
+            try (ResultSet rs = pstmt.executeQuery()) {
+
+                System.out.println("\n=== Histórico de partidas ===");
                 while (rs.next()) {
-                    String line = rs.getString("player_name") + " - " +
-                            rs.getInt("score") + " pontos, nível " +
-                            rs.getInt("level") + " (" + rs.getString("date_time") + ")";
-                    history.add(line);
+                    System.out.println(readSession(rs).historyLine());
                 }
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return history;
     }
 }
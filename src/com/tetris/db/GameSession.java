@@ -0,0 +1,24 @@
+package com.tetris.db;
+
+/**
+ * Uma linha da tabela game_session.
+ *
+ * @param id identificador gerado pela base de dados (0 para sessões ainda não gravadas)
+ * @param dateTime data/hora no formato yyyy-MM-dd HH:mm:ss (fuso de Brasília)
+ */
+public record GameSession(long id, String playerName, int score, int level, int linesCleared, String dateTime) {
+
+    /**
+     * Sessão nova, com a data/hora atual, pronta para ser gravada.
+     */
+    public static GameSession of(String playerName, int score, int level, int linesCleared) {
+        return new GameSession(0, playerName, score, level, linesCleared, Database.currentDateTime());
+    }
+
+    /**
+     * A sessão como linha do histórico, ex: "Ana - 1200 pontos, nível 3 (2024-05-01 20:15:00)".
+     */
+    public String historyLine() {
+        return playerName + " - " + score + " pontos, nível " + level + " (" + dateTime + ")";
+    }
+}
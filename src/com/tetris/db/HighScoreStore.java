@@ -0,0 +1,31 @@
+package com.tetris.db;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * Leitura e gravação do recorde no ficheiro highscore.txt.
+ * Fica fora do Model para que o Board não faça I/O.
+ */
+public class HighScoreStore {
+    private static final String HIGHSCORE_FILE = "highscore.txt";
+
+    public static int load() {
+        try (BufferedReader reader = new BufferedReader(new FileReader(HIGHSCORE_FILE))) {
+            return Integer.parseInt(reader.readLine());
+        } catch (IOException | NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public static void save(int highScore) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(HIGHSCORE_FILE))) {
+            writer.write(String.valueOf(highScore));
+        } catch (IOException e) {
+            System.err.println("Erro ao salvar o high score: " + e.getMessage());
+        }
+    }
+}
@@ -1,23 +1,28 @@
 package com.tetris.model;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Representa o estado completo do tabuleiro de jogo.
  * Contém a grelha de peças, a peça atual, a pontuação e toda a lógica principal do jogo.
  * Esta classe é o coração do "Model" no padrão MVC.
+ * Não faz I/O: o recorde é carregado e gravado por quem a usa (ver HighScoreStore).
  */
 public class Board {
 
     // --- Constantes do Jogo ---
+    // Dimensões padrão; cada Board pode ter as suas (até MAX_WIDTH colunas, uma long por linha)
     public static final int BOARD_WIDTH = 10;
     public static final int BOARD_HEIGHT = 20;
+    public static final int MAX_WIDTH = 64;
+    public static final int MIN_SIZE = 4;
     private static final int LEVEL_UP_LINES = 10;
-    private static final String HIGHSCORE_FILE = "highscore.txt";
+    // Limite de peças tiradas num estado lido: fromState repõe o gerador tirando-as uma a uma
+    private static final long MAX_STATE_DRAWN = 1L << 24;
+    // Parte fixa de writeState: dimensões, estado, pontuação, as duas peças, gerador e topo da pilha
+    private static final int STATE_FIXED_BYTES = 2 + 4 + 1 + 4 * 4 + 2 * 10 + 1 + 8 + 8 + 4;
 
     // --- Estado do Jogo ---
     private boolean isStarted = false;
@@ -32,17 +37,80 @@ public class Board {
 
     private Piece currentPiece;
     private Piece nextPiece;
-    private Shape.Tetrominoe[] boardGrid; 
+    private PieceGenerator pieceGenerator;
+
+    // --- Grelha em bitboard ---
+    // Cada linha é uma máscara de bits (bit x = coluna x ocupada) e a cor de cada
+    // célula fica num array compacto de bytes com o ordinal de Shape.Tetrominoe.
+    // Os arrays de cor só são criados quando a linha recebe a primeira peça, e
+    // todos os ciclos param em stackHeight: linhas vazias acima da pilha não custam nada.
+    private static final Shape.Tetrominoe[] SHAPES = Shape.Tetrominoe.values();
+    private final int width;
+    private final int height;
+    private final long fullRow;
+    private final long[] rows;
+    private final byte[][] colors;
+    private final byte[][] spareColorRows = new byte[4][]; // Linhas removidas, reaproveitadas no topo
+    // Altura de cada coluna (1 + linha ocupada mais alta, 0 se vazia), mantida a cada bloqueio/limpeza
+    private final int[] columnHeights;
+    private int stackHeight; // Altura da coluna mais alta; acima dela todas as linhas estão vazias
+    // Buracos, transições, poços, etc., atualizados junto com a grelha (ver BoardFeatures)
+    private final BoardFeatures features;
+
+    // --- Hash de Zobrist (ver Zobrist) ---
+    // Atualizado incrementalmente: ao bloquear peças, ao limpar linhas e ao mover a peça atual.
+    private long gridHash;
+    private long pieceHash;
+
+    // --- Snapshots para a View (triple buffering) ---
+    // Três buffers reutilizados: um é escrito pelo Board, outro está a ser lido pela View
+    // e o terceiro está na "handoff", a única referência partilhada entre as duas threads.
+    private final AtomicReference<BoardSnapshot> snapshotHandoff;
+    private BoardSnapshot snapshotWriteBuffer;
+    private BoardSnapshot snapshotReadBuffer;
+    private long snapshotVersion = 0;
+
+    // Última limpeza de linhas (para animações e pontuação): bit k = linha lastClearedBase + k
+    private int lastClearedRows;
+    private int lastClearedBase;
 
     public Board() {
-        boardGrid = new Shape.Tetrominoe[BOARD_WIDTH * BOARD_HEIGHT];
+        this(BOARD_WIDTH, BOARD_HEIGHT);
+    }
+
+    /**
+     * Cria um tabuleiro com dimensões próprias (ex: tabuleiros gigantes para testes de stress).
+     */
+    public Board(int width, int height) {
+        if (width < MIN_SIZE || width > MAX_WIDTH || height < MIN_SIZE) {
+            throw new IllegalArgumentException("Dimensões inválidas: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        fullRow = width == 64 ? -1L : (1L << width) - 1;
+        rows = new long[height];
+        colors = new byte[height][];
+        columnHeights = new int[width];
+        features = new BoardFeatures(width, rows, columnHeights);
         currentPiece = new Piece();
         nextPiece = new Piece();
-        loadHighScore();
+        pieceGenerator = new SevenBagGenerator(System.nanoTime());
+        snapshotHandoff = new AtomicReference<>(new BoardSnapshot(width, height));
+        snapshotWriteBuffer = new BoardSnapshot(width, height);
+        snapshotReadBuffer = new BoardSnapshot(width, height);
         clearBoard();
     }
 
     public void start() {
+        start(System.nanoTime());
+    }
+
+    /**
+     * Inicia uma partida com uma semente conhecida: a mesma semente gera
+     * sempre a mesma sequência de peças (útil para simulações e replays).
+     */
+    public void start(long seed) {
+        pieceGenerator.reset(seed);
         isStarted = true;
         isGameOver = false;
         isPaused = false;
@@ -51,126 +119,409 @@ public class Board {
         linesCleared = 0;
         clearBoard();
         
-        nextPiece.setRandomShape();
+        nextPiece.setShape(pieceGenerator.next());
         newPiece();
     }
 
     private void clearBoard() {
-        for (int i = 0; i < BOARD_WIDTH * BOARD_HEIGHT; i++) {
-            boardGrid[i] = Shape.Tetrominoe.NoShape;
+        Arrays.fill(rows, 0, stackHeight, 0L);
+        for (int y = 0; y < stackHeight; y++) {
+            if (colors[y] != null) Arrays.fill(colors[y], (byte) 0);
         }
+        Arrays.fill(columnHeights, 0);
+        stackHeight = 0;
+        features.reset();
+        gridHash = 0;
+        lastClearedRows = 0;
+        lastClearedBase = 0;
     }
 
     private void newPiece() {
-        currentPiece = nextPiece;
-        currentPiece.setX(BOARD_WIDTH / 2);
-        currentPiece.setY(BOARD_HEIGHT - 1 + currentPiece.minY());
+        // Troca as duas peças em vez de criar uma nova a cada spawn
+        Piece spawned = nextPiece;
+        nextPiece = currentPiece;
+        currentPiece = spawned;
+        currentPiece.setX(width / 2);
+        currentPiece.setY(height - 1 + currentPiece.minY());
 
-        nextPiece = new Piece();
-        nextPiece.setRandomShape();
+        nextPiece.setShape(pieceGenerator.next());
 
-        if (!tryMove(currentPiece, currentPiece.getX(), currentPiece.getY())) {
+        if (!tryMove(currentPiece.getRotation(), currentPiece.getX(), currentPiece.getY())) {
             isGameOver = true;
             currentPiece.setShape(Shape.Tetrominoe.NoShape);
+            updatePieceHash();
             
             if (score > highScore) {
                 highScore = score;
-                saveHighScore();
             }
         }
     }
 
-    private boolean tryMove(Piece piece, int newX, int newY) {
-        for (int i = 0; i < 4; i++) {
-            int x = newX + piece.x(i);
-            int y = newY - piece.y(i);
-
-            if (x < 0 || x >= BOARD_WIDTH || y < 0) {
-                return false;
-            }
-
-            if (y < BOARD_HEIGHT && shapeAt(x, y) != Shape.Tetrominoe.NoShape) {
-                return false;
-            }
+    private boolean tryMove(int rotation, int newX, int newY) {
+        if (!canMoveTo(currentPiece.getShape(), rotation, newX, newY)) {
+            return false;
         }
 
-        currentPiece = piece;
+        currentPiece.setRotation(rotation);
         currentPiece.setX(newX);
         currentPiece.setY(newY);
+        updatePieceHash();
         return true;
     }
 
+    private void updatePieceHash() {
+        pieceHash = Zobrist.pieceKey(currentPiece.getShape(), currentPiece.getRotation(),
+                currentPiece.getX(), currentPiece.getY());
+    }
+
     private void pieceDropped() {
+        // Só as linhas e colunas tocadas pela peça mudam
+        int state = currentPiece.getState();
+        int top = currentPiece.getY() - Shape.minY(state);
+        int bottom = Math.max(0, top - Shape.height(state) + 1);
+        int lastRow = Math.min(top, height - 1);
+        int left = currentPiece.getX() + Shape.minX(state);
+        int right = left + Shape.width(state) - 1;
+        features.removeRows(bottom, lastRow);
+        features.removeColumns(left, right);
+
+        int placed = 0;
         for (int i = 0; i < 4; i++) {
             int x = currentPiece.getX() + currentPiece.x(i);
             int y = currentPiece.getY() - currentPiece.y(i);
-            if (y >= 0 && y < BOARD_HEIGHT) {
-                boardGrid[y * BOARD_WIDTH + x] = currentPiece.getShape();
+            if (y >= 0 && y < height) {
+                gridHash ^= Zobrist.rowKey(y, rows[y]);
+                rows[y] |= 1L << x;
+                gridHash ^= Zobrist.rowKey(y, rows[y]);
+                if (colors[y] == null) colors[y] = new byte[width];
+                colors[y][x] = (byte) currentPiece.getShape().ordinal();
+                columnHeights[x] = Math.max(columnHeights[x], y + 1);
+                stackHeight = Math.max(stackHeight, y + 1);
+                placed++;
             }
         }
-        removeFullLines();
+        features.addRows(bottom, lastRow);
+        features.addColumns(left, right);
+        features.addFilledCells(placed);
+
+        // Só as linhas tocadas pela peça podem ter ficado cheias
+        lastClearedBase = bottom;
+        lastClearedRows = removeFullLines(bottom, lastRow);
         if (!isGameOver) {
             newPiece();
         }
     }
 
-    private void removeFullLines() {
+    /**
+     * Remove as linhas cheias entre {@code fromRow} e {@code toRow} numa única passagem:
+     * as linhas sobreviventes descem de uma vez (um arraycopy por bloco contíguo)
+     * e o topo libertado é zerado em bloco.
+     *
+     * @return máscara das linhas removidas (bit k = linha fromRow + k)
+     */
+    private int removeFullLines(int fromRow, int toRow) {
+        int clearedMask = 0;
+        for (int y = fromRow; y <= toRow; y++) {
+            // Uma linha cheia é uma única comparação com a máscara completa
+            if (rows[y] == fullRow) {
+                clearedMask |= 1 << (y - fromRow);
+            }
+        }
+        if (clearedMask == 0) {
+            return 0;
+        }
+
+        // Guarda os arrays de cor das linhas removidas para os reutilizar no topo
         int numFullLines = 0;
-        for (int i = BOARD_HEIGHT - 1; i >= 0; i--) {
-            boolean lineIsFull = true;
-            for (int j = 0; j < BOARD_WIDTH; j++) {
-                if (shapeAt(j, i) == Shape.Tetrominoe.NoShape) {
-                    lineIsFull = false;
-                    break;
-                }
+        for (int pending = clearedMask; pending != 0; pending &= pending - 1) {
+            spareColorRows[numFullLines++] = colors[fromRow + Integer.numberOfTrailingZeros(pending)];
+        }
+
+        // Compactação: cada bloco de linhas entre duas linhas cheias desce
+        // tantas posições quantas linhas cheias existem abaixo dele.
+        int write = fromRow + Integer.numberOfTrailingZeros(clearedMask);
+        int firstChanged = write;
+        int oldStackHeight = stackHeight;
+        for (int y = firstChanged; y < oldStackHeight; y++) {
+            gridHash ^= Zobrist.rowKey(y, rows[y]);
+        }
+        features.removeRows(firstChanged, oldStackHeight - 1);
+        features.removeColumns(0, width - 1);
+        int pending = clearedMask;
+        while (pending != 0) {
+            int full = fromRow + Integer.numberOfTrailingZeros(pending);
+            pending &= pending - 1;
+            int nextFull = pending != 0 ? fromRow + Integer.numberOfTrailingZeros(pending) : stackHeight;
+            int run = nextFull - full - 1;
+            if (run > 0) {
+                System.arraycopy(rows, full + 1, rows, write, run);
+                System.arraycopy(colors, full + 1, colors, write, run);
+                write += run;
             }
+        }
+        Arrays.fill(rows, write, stackHeight, 0L);
+        for (int i = 0; i < numFullLines; i++) {
+            byte[] spare = spareColorRows[i];
+            Arrays.fill(spare, (byte) 0);
+            colors[write + i] = spare;
+            spareColorRows[i] = null;
+        }
 
-            if (lineIsFull) {
-                numFullLines++;
-                for (int k = i; k < BOARD_HEIGHT - 1; k++) {
-                    for (int j = 0; j < BOARD_WIDTH; j++) {
-                        boardGrid[k * BOARD_WIDTH + j] = shapeAt(j, k + 1);
-                    }
-                }
+        stackHeight -= numFullLines;
+        for (int y = firstChanged; y < stackHeight; y++) {
+            gridHash ^= Zobrist.rowKey(y, rows[y]);
+        }
+        recomputeColumnHeights();
+        features.addRows(firstChanged, stackHeight - 1);
+        features.addColumns(0, width - 1);
+        features.addFilledCells(-numFullLines * width);
+        updateScore(numFullLines);
+        linesCleared += numFullLines;
+
+        if (linesCleared / LEVEL_UP_LINES >= level) {
+            level++;
+        }
+        return clearedMask;
+    }
+
+    // Recalcula as alturas descendo linha a linha a partir do topo da pilha:
+    // cada coluna recebe a altura da primeira linha em que aparece ocupada.
+    private void recomputeColumnHeights() {
+        long found = 0;
+        for (int y = stackHeight - 1; y >= 0 && found != fullRow; y--) {
+            long newColumns = rows[y] & ~found;
+            while (newColumns != 0) {
+                columnHeights[Long.numberOfTrailingZeros(newColumns)] = y + 1;
+                newColumns &= newColumns - 1;
             }
+            found |= rows[y];
+        }
+        long empty = ~found & fullRow;
+        while (empty != 0) {
+            columnHeights[Long.numberOfTrailingZeros(empty)] = 0;
+            empty &= empty - 1;
         }
+    }
 
-        if (numFullLines > 0) {
-            updateScore(numFullLines);
-            linesCleared += numFullLines;
-            
-            if (linesCleared / LEVEL_UP_LINES >= level) {
-                level++;
+    // --- Simulação (bots e análise) ---
+
+    /**
+     * Torna este Board uma cópia de outro com as mesmas dimensões, sem criar objetos:
+     * grelha, peças, pontuação, hash e estado do gerador de peças.
+     */
+    public void copyFrom(Board other) {
+        if (other.width != width || other.height != height) {
+            throw new IllegalArgumentException("Tabuleiros de tamanhos diferentes");
+        }
+        int limit = Math.max(stackHeight, other.stackHeight);
+        System.arraycopy(other.rows, 0, rows, 0, limit);
+        for (int y = 0; y < limit; y++) {
+            byte[] source = other.colors[y];
+            if (source != null) {
+                if (colors[y] == null) colors[y] = new byte[width];
+                System.arraycopy(source, 0, colors[y], 0, width);
+            } else if (colors[y] != null) {
+                Arrays.fill(colors[y], (byte) 0);
+            }
+        }
+        System.arraycopy(other.columnHeights, 0, columnHeights, 0, width);
+        stackHeight = other.stackHeight;
+        features.copyFrom(other.features);
+        lastClearedRows = other.lastClearedRows;
+        lastClearedBase = other.lastClearedBase;
+        gridHash = other.gridHash;
+        pieceHash = other.pieceHash;
+
+        currentPiece.copyFrom(other.currentPiece);
+        nextPiece.copyFrom(other.nextPiece);
+        if (pieceGenerator.getClass() != other.pieceGenerator.getClass()) {
+            pieceGenerator = other.pieceGenerator.newInstance(0);
+        }
+        pieceGenerator.copyFrom(other.pieceGenerator);
+
+        isStarted = other.isStarted;
+        isPaused = other.isPaused;
+        isGameOver = other.isGameOver;
+        isGhostPieceEnabled = other.isGhostPieceEnabled;
+        score = other.score;
+        highScore = other.highScore;
+        level = other.level;
+        linesCleared = other.linesCleared;
+    }
+
+    /**
+     * Coloca a peça atual diretamente numa posição final (ex: uma das geradas pelo
+     * MoveGenerator) e bloqueia-a, como se tivesse caído até lá.
+     *
+     * @return false se a posição não for válida para a peça atual
+     */
+    public boolean placeCurrentPiece(int rotation, int x, int y) {
+        if (isGameOver || !tryMove(rotation, x, y)) {
+            return false;
+        }
+        dropDown();
+        return true;
+    }
+
+    // --- Estado serializado (ex: gravação automática da partida em curso) ---
+
+    /**
+     * Número máximo de bytes que writeState escreve para um tabuleiro com estas dimensões.
+     */
+    public static int maxStateSize(int width, int height) {
+        return STATE_FIXED_BYTES + height * (8 + width);
+    }
+
+    /**
+     * Escreve a partida em curso: dimensões, estado, pontuação, nível, linhas, as duas
+     * peças, a posição na sequência do gerador (tipo, semente e peças tiradas) e as
+     * linhas da grelha até ao topo da pilha (máscara + cores). Não aloca.
+     */
+    public void writeState(ByteBuffer out) {
+        out.putShort((short) width).putInt(height);
+        out.put((byte) ((isStarted ? 1 : 0) | (isPaused ? 2 : 0) | (isGameOver ? 4 : 0)
+                | (isGhostPieceEnabled ? 8 : 0)));
+        out.putInt(score).putInt(highScore).putInt(level).putInt(linesCleared);
+        writePiece(out, currentPiece);
+        writePiece(out, nextPiece);
+        out.put((byte) (pieceGenerator instanceof UniformGenerator ? 1 : 0));
+        out.putLong(pieceGenerator.getSeed()).putLong(pieceGenerator.getDrawn());
+        out.putInt(stackHeight);
+        for (int y = 0; y < stackHeight; y++) {
+            out.putLong(rows[y]);
+            if (colors[y] != null) {
+                out.put(colors[y]);
+            } else {
+                for (int x = 0; x < width; x++) out.put((byte) 0);
+            }
+        }
+    }
+
+    private static void writePiece(ByteBuffer out, Piece piece) {
+        out.put((byte) piece.getShape().ordinal()).put((byte) piece.getRotation());
+        out.putInt(piece.getX()).putInt(piece.getY());
+    }
+
+    /**
+     * Recria um Board a partir do que writeState escreveu. O gerador volta ao mesmo
+     * ponto da sequência reiniciando-o com a semente e tirando as mesmas peças.
+     *
+     * @throws IllegalArgumentException se o estado for inválido
+     */
+    public static Board fromState(ByteBuffer in) {
+        Board board = new Board(in.getShort(), in.getInt());
+        board.readState(in);
+        return board;
+    }
+
+    private void readState(ByteBuffer in) {
+        int flags = in.get();
+        score = in.getInt();
+        highScore = in.getInt();
+        level = in.getInt();
+        linesCleared = in.getInt();
+        readPiece(in, currentPiece);
+        readPiece(in, nextPiece);
+        byte generatorKind = in.get();
+        long seed = in.getLong();
+        long drawn = in.getLong();
+        int savedStackHeight = in.getInt();
+        if (savedStackHeight < 0 || savedStackHeight > height || drawn < 0 || drawn > MAX_STATE_DRAWN
+                || level < 1) {
+            throw new IllegalArgumentException("Estado de tabuleiro inválido");
+        }
+        if (generatorKind != 0 && generatorKind != 1) {
+            throw new IllegalArgumentException("Tipo de gerador desconhecido no estado: " + generatorKind);
+        }
+
+        if (generatorKind == 1) {
+            pieceGenerator = new UniformGenerator(seed);
+        }
+        pieceGenerator.reset(seed);
+        for (long i = 0; i < drawn; i++) {
+            pieceGenerator.next();
+        }
+
+        // Mesmo protocolo de pieceDropped: retira as linhas vazias, altera, soma as novas
+        features.removeRows(0, savedStackHeight - 1);
+        features.removeColumns(0, width - 1);
+        int filled = 0;
+        for (int y = 0; y < savedStackHeight; y++) {
+            rows[y] = in.getLong();
+            if ((rows[y] & ~fullRow) != 0) {
+                throw new IllegalArgumentException("Estado de tabuleiro inválido na linha " + y);
+            }
+            colors[y] = new byte[width];
+            in.get(colors[y]);
+            // Cor só nas células ocupadas, e sempre uma peça válida
+            for (int x = 0; x < width; x++) {
+                int color = colors[y][x];
+                boolean filledCell = (rows[y] >>> x & 1) != 0;
+                if (filledCell ? color <= 0 || color >= SHAPES.length : color != 0) {
+                    throw new IllegalArgumentException("Estado de tabuleiro inválido na célula " + x + ", " + y);
+                }
             }
+            filled += Long.bitCount(rows[y]);
+            gridHash ^= Zobrist.rowKey(y, rows[y]);
+        }
+        stackHeight = savedStackHeight;
+        recomputeColumnHeights();
+        features.addRows(0, stackHeight - 1);
+        features.addColumns(0, width - 1);
+        features.addFilledCells(filled);
+
+        isStarted = (flags & 1) != 0;
+        isPaused = (flags & 2) != 0;
+        isGameOver = (flags & 4) != 0;
+        isGhostPieceEnabled = (flags & 8) != 0;
+        if (isStarted && !isGameOver && !canMoveTo(currentPiece.getShape(), currentPiece.getRotation(),
+                currentPiece.getX(), currentPiece.getY())) {
+            throw new IllegalArgumentException("Estado de tabuleiro inválido: peça atual sobreposta");
+        }
+        updatePieceHash();
+    }
+
+    private static void readPiece(ByteBuffer in, Piece piece) {
+        int shape = in.get();
+        int rotation = in.get();
+        if (shape < 0 || shape >= SHAPES.length || rotation < 0 || rotation >= 4) {
+            throw new IllegalArgumentException("Peça inválida no estado do tabuleiro");
         }
+        piece.setShape(SHAPES[shape]);
+        piece.setRotation(rotation);
+        piece.setX(in.getInt());
+        piece.setY(in.getInt());
     }
 
     // --- Ações do Jogador ---
 
     public void moveLeft() {
-        tryMove(currentPiece, currentPiece.getX() - 1, currentPiece.getY());
+        tryMove(currentPiece.getRotation(), currentPiece.getX() - 1, currentPiece.getY());
     }
 
     public void moveRight() {
-        tryMove(currentPiece, currentPiece.getX() + 1, currentPiece.getY());
+        tryMove(currentPiece.getRotation(), currentPiece.getX() + 1, currentPiece.getY());
     }
 
     public void rotateLeft() {
-        tryMove(currentPiece.rotateLeft(), currentPiece.getX(), currentPiece.getY());
+        tryMove(Shape.rotateLeft(currentPiece.getShape(), currentPiece.getRotation()), currentPiece.getX(), currentPiece.getY());
     }
 
     public void rotateRight() {
-        tryMove(currentPiece.rotateRight(), currentPiece.getX(), currentPiece.getY());
+        tryMove(Shape.rotateRight(currentPiece.getShape(), currentPiece.getRotation()), currentPiece.getX(), currentPiece.getY());
     }
 
     public void dropDown() {
+        // Depois do game over a peça atual é NoShape: largá-la marcava células sem cor
+        if (isGameOver) return;
         int newY = getGhostPieceY();
-        tryMove(currentPiece, currentPiece.getX(), newY);
+        tryMove(currentPiece.getRotation(), currentPiece.getX(), newY);
         pieceDropped();
     }
     
     public void movePieceDown() {
-        if (!tryMove(currentPiece, currentPiece.getX(), currentPiece.getY() - 1)) {
+        if (isGameOver) return;
+        if (!tryMove(currentPiece.getRotation(), currentPiece.getX(), currentPiece.getY() - 1)) {
             pieceDropped();
         }
     }
@@ -187,66 +538,161 @@ public class Board {
         isGhostPieceEnabled = !isGhostPieceEnabled;
     }
 
-    // Novo: Calcula a posição Y final da peça atual (para a peça fantasma)
+    // Novo: Calcula a posição Y final da peça atual (para a peça fantasma e a queda instantânea).
+    // Com as alturas das colunas é uma consulta às (no máximo 4) colunas da peça.
     public int getGhostPieceY() {
+        int state = currentPiece.getState();
+        int landing = skylineLanding(state, currentPiece.getX() + Shape.minX(state));
+        if (landing <= currentPiece.getY()) {
+            return landing;
+        }
+
+        // A peça está abaixo do topo de alguma coluna (ex: encaixada sob uma saliência):
+        // nesse caso a altura da coluna não diz onde ela pousa e procuramos linha a linha.
         int y = currentPiece.getY();
         while (true) {
-            if (!canMoveTo(currentPiece, currentPiece.getX(), y - 1)) {
+            if (!canMoveTo(currentPiece.getShape(), currentPiece.getRotation(), currentPiece.getX(), y - 1)) {
                 return y;
             }
             y--;
         }
     }
 
-    // Novo: Método auxiliar para verificar se a peça pode mover-se para uma posição
-    private boolean canMoveTo(Piece piece, int newX, int newY) {
-        for (int i = 0; i < 4; i++) {
-            int x = newX + piece.x(i);
-            int y = newY - piece.y(i);
-            if (x < 0 || x >= BOARD_WIDTH || y < 0) return false;
-            if (y < BOARD_HEIGHT && shapeAt(x, y) != Shape.Tetrominoe.NoShape) return false;
+    /**
+     * Linha onde a peça atual pousa se cair a direito desde o topo, com a rotação e o x
+     * indicados (a queda simples de uma peça acabada de aparecer, sem deslizes por baixo
+     * de saliências). Custa uma consulta às alturas das colunas da peça.
+     *
+     * @return a linha de pouso, ou Integer.MIN_VALUE se a peça sair das colunas do tabuleiro
+     */
+    public int getDropY(int rotation, int x) {
+        int state = Shape.state(currentPiece.getShape(), rotation);
+        int left = x + Shape.minX(state);
+        if (left < 0 || left + Shape.width(state) > width) {
+            return Integer.MIN_VALUE;
+        }
+        return skylineLanding(state, left);
+    }
+
+    // Pouso pelo perfil das colunas: a peça pára na primeira coluna em que encosta
+    private int skylineLanding(int state, int left) {
+        int landing = Integer.MIN_VALUE;
+        for (int k = 0; k < Shape.width(state); k++) {
+            landing = Math.max(landing, columnHeights[left + k] + Shape.columnBottom(state, k));
+        }
+        return landing;
+    }
+
+    // Novo: Método auxiliar para verificar se a peça pode mover-se para uma posição.
+    // Usa as máscaras pré-calculadas da rotação: uma operação AND por linha da peça.
+    boolean canMoveTo(Shape.Tetrominoe shape, int rotation, int newX, int newY) {
+        int state = Shape.state(shape, rotation);
+        int left = newX + Shape.minX(state);
+        if (left < 0 || left + Shape.width(state) > width) return false;
+
+        int top = newY - Shape.minY(state);
+        int pieceHeight = Shape.height(state);
+        if (top - pieceHeight + 1 < 0) return false;
+
+        for (int k = 0; k < pieceHeight; k++) {
+            int y = top - k;
+            if (y < height && (rows[y] & ((long) Shape.rowMask(state, k) << left)) != 0) return false;
         }
         return true;
     }
 
-    // --- Pontuação ---
+    // --- Hash e igualdade de estado ---
 
-    private void updateScore(int lines) {
-        int[] points = {0, 40, 100, 300, 1200};
-        score += points[lines] * level;
+    /**
+     * Hash de Zobrist de 64 bits da grelha e da peça atual (forma, rotação e posição).
+     * Custo constante: é mantido a cada alteração, nunca recalculado célula a célula.
+     */
+    public long getZobristHash() {
+        return gridHash ^ pieceHash;
     }
 
-    private void loadHighScore() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(HIGHSCORE_FILE))) {
-            highScore = Integer.parseInt(reader.readLine());
-        } catch (IOException | NumberFormatException e) {
-            highScore = 0;
+    /**
+     * Compara a grelha e a peça atual com outro Board. O hash descarta quase todos os
+     * casos diferentes de imediato; só se coincidir é que as linhas são comparadas.
+     */
+    public boolean stateEquals(Board other) {
+        if (getZobristHash() != other.getZobristHash() || width != other.width
+                || stackHeight != other.stackHeight) {
+            return false;
+        }
+        Piece a = currentPiece, b = other.currentPiece;
+        if (a.getShape() != b.getShape() || a.getRotation() != b.getRotation()
+                || a.getX() != b.getX() || a.getY() != b.getY()) {
+            return false;
         }
+        return Arrays.equals(rows, 0, stackHeight, other.rows, 0, stackHeight);
     }
 
-    private void saveHighScore() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(HIGHSCORE_FILE))) {
-            writer.write(String.valueOf(highScore));
-        } catch (IOException e) {
-            System.err.println("Erro ao salvar o high score: " + e.getMessage());
+    // --- Snapshots ---
+
+    /**
+     * Publica o estado atual para a thread de desenho. Deve ser chamado pela thread
+     * que altera o Board, depois de cada atualização completa. Não aloca: escreve
+     * num buffer livre e troca-o atomicamente com o que está na handoff.
+     */
+    public void publishSnapshot() {
+        snapshotWriteBuffer.copyFrom(this, ++snapshotVersion, rows, colors);
+        snapshotWriteBuffer = snapshotHandoff.getAndSet(snapshotWriteBuffer);
+    }
+
+    /**
+     * Devolve o snapshot publicado mais recente. Pensado para um único leitor (a EDT):
+     * o snapshot devolvido fica estável até à próxima chamada deste método.
+     */
+    public BoardSnapshot acquireSnapshot() {
+        if (snapshotHandoff.get().getVersion() > snapshotReadBuffer.getVersion()) {
+            snapshotReadBuffer = snapshotHandoff.getAndSet(snapshotReadBuffer);
         }
+        return snapshotReadBuffer;
+    }
+
+    // --- Pontuação ---
+
+    private void updateScore(int lines) {
+        int[] points = {0, 40, 100, 300, 1200};
+        score += points[lines] * level;
     }
 
     // --- Getters para o View e Controller ---
 
     public Shape.Tetrominoe shapeAt(int x, int y) {
-        return boardGrid[y * BOARD_WIDTH + x];
+        byte[] row = colors[y];
+        return row == null ? Shape.Tetrominoe.NoShape : SHAPES[row[x]];
     }
 
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+
     public boolean isStarted() { return isStarted; }
     public boolean isPaused() { return isPaused; }
     public boolean isGameOver() { return isGameOver; }
     public boolean isGhostPieceEnabled() { return isGhostPieceEnabled; } // Novo
     public int getScore() { return score; }
     public int getHighScore() { return highScore; }
+    public void setHighScore(int highScore) { this.highScore = highScore; }
     public int getLevel() { return level; }
     public int getLinesCleared() { return linesCleared; }
+    public int getColumnHeight(int x) { return columnHeights[x]; }
+    public long getRow(int y) { return rows[y]; }
+    public int getStackHeight() { return stackHeight; }
+    public BoardFeatures getFeatures() { return features; }
+    public int getLastClearedRows() { return lastClearedRows; }
+    public int getLastClearedBase() { return lastClearedBase; }
     public Piece getCurrentPiece() { return currentPiece; }
     public Piece getNextPiece() { return nextPiece; }
+    public PieceGenerator getPieceGenerator() { return pieceGenerator; }
+
+    /**
+     * Troca o gerador de peças (ex: UniformGenerator para o sorteio original).
+     * Passa a valer a partir do próximo start().
+     */
+    public void setPieceGenerator(PieceGenerator pieceGenerator) {
+        this.pieceGenerator = pieceGenerator;
+    }
 }
 
@@ -0,0 +1,166 @@
+package com.tetris.model;
+
+/**
+ * Características do tabuleiro usadas pelas heurísticas dos bots, mantidas pelo
+ * próprio Board a cada bloqueio e limpeza de linhas. Ler qualquer uma custa
+ * uma leitura de campo: avaliar um tabuleiro candidato não percorre a grelha.
+ *
+ * Só são recalculadas as linhas e colunas tocadas pela alteração, e sempre com
+ * operações de bits sobre as máscaras das linhas (popcount, deslocamentos, XOR).
+ * Definições:
+ * - buracos: células vazias abaixo do topo da sua coluna (altura agregada - células ocupadas);
+ * - transições de linha: mudanças ocupado/vazio ao longo de cada linha não vazia,
+ *   contando as paredes como ocupadas;
+ * - transições de coluna: mudanças ocupado/vazio entre células vizinhas na vertical,
+ *   contando o chão como ocupado;
+ * - irregularidade (bumpiness): soma das diferenças de altura entre colunas vizinhas;
+ * - poços: para cada coluna mais baixa que as vizinhas (as paredes contam como altas),
+ *   1 + 2 + ... + profundidade.
+ */
+public class BoardFeatures {
+
+    private final int width;
+    private final long fullRow;
+    // Os mesmos arrays do Board (nunca são substituídos, só alterados)
+    private final long[] rows;
+    private final int[] columnHeights;
+
+    private int filledCells;
+    private int aggregateHeight;
+    private int rowTransitions;
+    private int columnTransitions;
+    private int bumpiness;
+    private int wells;
+
+    BoardFeatures(int width, long[] rows, int[] columnHeights) {
+        this.width = width;
+        this.fullRow = width == 64 ? -1L : (1L << width) - 1;
+        this.rows = rows;
+        this.columnHeights = columnHeights;
+    }
+
+    // --- Atualização (chamada pelo Board) ---
+
+    /**
+     * Estado de um tabuleiro vazio.
+     */
+    void reset() {
+        filledCells = 0;
+        aggregateHeight = 0;
+        rowTransitions = 0;
+        columnTransitions = width; // Chão ocupado sob cada coluna vazia
+        bumpiness = 0;
+        wells = 0;
+    }
+
+    /**
+     * Retira a contribuição das linhas [fromRow, toRow] antes de serem alteradas.
+     */
+    void removeRows(int fromRow, int toRow) {
+        for (int y = fromRow; y <= toRow; y++) {
+            rowTransitions -= rowTransitionsAt(rows[y]);
+        }
+        int last = Math.min(toRow + 1, rows.length - 1);
+        for (int y = fromRow; y <= last; y++) {
+            columnTransitions -= columnTransitionsBelow(y);
+        }
+    }
+
+    /**
+     * Soma a contribuição das linhas [fromRow, toRow] depois de alteradas.
+     */
+    void addRows(int fromRow, int toRow) {
+        for (int y = fromRow; y <= toRow; y++) {
+            rowTransitions += rowTransitionsAt(rows[y]);
+        }
+        int last = Math.min(toRow + 1, rows.length - 1);
+        for (int y = fromRow; y <= last; y++) {
+            columnTransitions += columnTransitionsBelow(y);
+        }
+    }
+
+    /**
+     * Retira a contribuição das colunas [fromColumn, toColumn] antes de mudarem de altura.
+     */
+    void removeColumns(int fromColumn, int toColumn) {
+        for (int x = fromColumn; x <= toColumn; x++) {
+            aggregateHeight -= columnHeights[x];
+        }
+        updateNeighbours(fromColumn, toColumn, -1);
+    }
+
+    /**
+     * Soma a contribuição das colunas [fromColumn, toColumn] depois de mudarem de altura.
+     */
+    void addColumns(int fromColumn, int toColumn) {
+        for (int x = fromColumn; x <= toColumn; x++) {
+            aggregateHeight += columnHeights[x];
+        }
+        updateNeighbours(fromColumn, toColumn, 1);
+    }
+
+    void addFilledCells(int count) {
+        filledCells += count;
+    }
+
+    void copyFrom(BoardFeatures other) {
+        filledCells = other.filledCells;
+        aggregateHeight = other.aggregateHeight;
+        rowTransitions = other.rowTransitions;
+        columnTransitions = other.columnTransitions;
+        bumpiness = other.bumpiness;
+        wells = other.wells;
+    }
+
+    // Irregularidade e poços dependem das colunas vizinhas: uma coluna alterada
+    // mexe nos pares à sua volta e nos poços de uma coluna para cada lado.
+    private void updateNeighbours(int fromColumn, int toColumn, int sign) {
+        int firstPair = Math.max(0, fromColumn - 1);
+        int lastPair = Math.min(toColumn, width - 2);
+        for (int x = firstPair; x <= lastPair; x++) {
+            bumpiness += sign * Math.abs(columnHeights[x] - columnHeights[x + 1]);
+        }
+        int firstWell = Math.max(0, fromColumn - 1);
+        int lastWell = Math.min(toColumn + 1, width - 1);
+        for (int x = firstWell; x <= lastWell; x++) {
+            wells += sign * wellAt(x);
+        }
+    }
+
+    // Transições ao longo de uma linha: vizinhos diferentes dão 1 no XOR da linha com
+    // ela própria deslocada; as paredes contam como ocupadas (bordas vazias somam 1).
+    private int rowTransitionsAt(long row) {
+        if (row == 0) {
+            return 0;
+        }
+        int inner = Long.bitCount((row ^ (row >>> 1)) & (fullRow >>> 1));
+        int leftWall = (int) (~row & 1);
+        int rightWall = (int) (~(row >>> (width - 1)) & 1);
+        return inner + leftWall + rightWall;
+    }
+
+    // Transições entre a linha y e a de baixo (o chão, abaixo da linha 0, está ocupado)
+    private int columnTransitionsBelow(int y) {
+        if (y == 0) {
+            return Long.bitCount(~rows[0] & fullRow);
+        }
+        return Long.bitCount(rows[y] ^ rows[y - 1]);
+    }
+
+    private int wellAt(int x) {
+        int left = x > 0 ? columnHeights[x - 1] : Integer.MAX_VALUE;
+        int right = x < width - 1 ? columnHeights[x + 1] : Integer.MAX_VALUE;
+        int depth = Math.min(left, right) - columnHeights[x];
+        return depth > 0 ? depth * (depth + 1) / 2 : 0;
+    }
+
+    // --- Leitura ---
+
+    public int getFilledCells() { return filledCells; }
+    public int getAggregateHeight() { return aggregateHeight; }
+    public int getHoles() { return aggregateHeight - filledCells; }
+    public int getRowTransitions() { return rowTransitions; }
+    public int getColumnTransitions() { return columnTransitions; }
+    public int getBumpiness() { return bumpiness; }
+    public int getWells() { return wells; }
+}
@@ -0,0 +1,101 @@
+package com.tetris.model;
+
+import java.util.Arrays;
+
+/**
+ * Cópia imutável (para quem a lê) do estado do Board num dado momento:
+ * grelha em bitboard, peça atual e próxima, e estatísticas.
+ * É o que a View desenha, para nunca ver um Board a meio de uma atualização.
+ *
+ * Os snapshots são reutilizados pelo Board (ver Board.publishSnapshot), por isso
+ * quem lê não deve guardar a referência depois de pedir o próximo.
+ */
+public class BoardSnapshot {
+
+    private static final Shape.Tetrominoe[] SHAPES = Shape.Tetrominoe.values();
+
+    private long version = -1;
+    private final int width;
+    private final int height;
+    private final long[] rows;
+    private final byte[][] colors;
+    private int stackHeight;
+
+    private final Piece currentPiece = new Piece();
+    private final Piece nextPiece = new Piece();
+    private int ghostPieceY;
+
+    private boolean isStarted;
+    private boolean isPaused;
+    private boolean isGameOver;
+    private boolean isGhostPieceEnabled;
+    private int score;
+    private int highScore;
+    private int level;
+    private int linesCleared;
+
+    BoardSnapshot(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.rows = new long[height];
+        this.colors = new byte[height][];
+    }
+
+    /**
+     * Preenche este snapshot a partir do Board. Só copia as linhas até ao topo da
+     * pilha (e limpa as que este snapshot tinha ocupadas acima dele).
+     */
+    void copyFrom(Board board, long version, long[] boardRows, byte[][] boardColors) {
+        int newStack = board.getStackHeight();
+        int limit = Math.max(stackHeight, newStack);
+        System.arraycopy(boardRows, 0, rows, 0, limit);
+        for (int y = 0; y < limit; y++) {
+            byte[] source = boardColors[y];
+            if (source != null) {
+                if (colors[y] == null) colors[y] = new byte[width];
+                System.arraycopy(source, 0, colors[y], 0, width);
+            } else if (colors[y] != null) {
+                Arrays.fill(colors[y], (byte) 0);
+            }
+        }
+        stackHeight = newStack;
+
+        currentPiece.copyFrom(board.getCurrentPiece());
+        nextPiece.copyFrom(board.getNextPiece());
+        ghostPieceY = board.getGhostPieceY();
+
+        isStarted = board.isStarted();
+        isPaused = board.isPaused();
+        isGameOver = board.isGameOver();
+        isGhostPieceEnabled = board.isGhostPieceEnabled();
+        score = board.getScore();
+        highScore = board.getHighScore();
+        level = board.getLevel();
+        linesCleared = board.getLinesCleared();
+        this.version = version;
+    }
+
+    // --- Getters (mesmo contrato do Board) ---
+
+    public Shape.Tetrominoe shapeAt(int x, int y) {
+        byte[] row = colors[y];
+        return row == null ? Shape.Tetrominoe.NoShape : SHAPES[row[x]];
+    }
+
+    public boolean isOccupied(int x, int y) { return (rows[y] & (1L << x)) != 0; }
+    public long getVersion() { return version; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int getStackHeight() { return stackHeight; }
+    public Piece getCurrentPiece() { return currentPiece; }
+    public Piece getNextPiece() { return nextPiece; }
+    public int getGhostPieceY() { return ghostPieceY; }
+    public boolean isStarted() { return isStarted; }
+    public boolean isPaused() { return isPaused; }
+    public boolean isGameOver() { return isGameOver; }
+    public boolean isGhostPieceEnabled() { return isGhostPieceEnabled; }
+    public int getScore() { return score; }
+    public int getHighScore() { return highScore; }
+    public int getLevel() { return level; }
+    public int getLinesCleared() { return linesCleared; }
+}
@@ -0,0 +1,156 @@
+package com.tetris.model;
+
+/**
+ * API "headless" do jogo: aplica inputs e avança a gravidade sobre um Board
+ * sem depender de Swing, AWT ou ficheiros. O GameController é apenas um dos
+ * clientes desta classe; bots, replays e simulações usam-na diretamente.
+ */
+public class GameEngine {
+
+    /**
+     * Ações que um jogador (humano ou bot) pode aplicar.
+     * O ordinal é o código usado em gravações, por isso a ordem não deve mudar.
+     */
+    public enum Input {
+        NONE, LEFT, RIGHT, SOFT_DROP, ROTATE_RIGHT, ROTATE_LEFT, HARD_DROP, PAUSE
+    }
+
+    /**
+     * Versão das regras do jogo. Gravações feitas com outra versão podem não se reproduzir
+     * igual, por isso deve mudar sempre que uma alteração mude o resultado de um input.
+     */
+    public static final int RULES_VERSION = 1;
+
+    /**
+     * Recebe a partida tal como o engine a aplica (ex: para a gravar): o início com a
+     * semente, cada input aceite e o tick em que acabou. É chamado na thread do engine.
+     */
+    public interface InputListener {
+        void gameStarted(GameEngine engine, long seed);
+        void inputApplied(long tick, Input input);
+        void gameEnded(long tick);
+    }
+
+    private static final Input[] INPUTS = Input.values();
+
+    private final Board board;
+    private long tickCount = 0;
+    private InputListener inputListener;
+
+    public GameEngine() {
+        this(new Board());
+    }
+
+    public GameEngine(Board board) {
+        this.board = board;
+    }
+
+    /**
+     * Começa uma nova partida com a semente indicada.
+     */
+    public void reset(long seed) {
+        board.start(seed);
+        tickCount = 0;
+        if (inputListener != null) {
+            inputListener.gameStarted(this, seed);
+        }
+    }
+
+    /**
+     * Aplica um input do jogador, sem avançar a gravidade.
+     * Inputs fora de uma partida em curso (ou em pausa, exceto PAUSE) são ignorados.
+     *
+     * @return true se o input foi aceite
+     */
+    public boolean step(Input input) {
+        if (!board.isStarted() || board.isGameOver()) {
+            return false;
+        }
+        if (input == Input.PAUSE) {
+            board.togglePause();
+            notifyInput(input);
+            return true;
+        }
+        if (board.isPaused()) {
+            return false;
+        }
+
+        switch (input) {
+            case LEFT:
+                board.moveLeft();
+                break;
+            case RIGHT:
+                board.moveRight();
+                break;
+            case SOFT_DROP:
+                board.movePieceDown();
+                break;
+            case ROTATE_RIGHT:
+                board.rotateRight();
+                break;
+            case ROTATE_LEFT:
+                board.rotateLeft();
+                break;
+            case HARD_DROP:
+                board.dropDown();
+                break;
+            default:
+                return false;
+        }
+        notifyInput(input);
+        return true;
+    }
+
+    /**
+     * Versão de step() a partir do código numérico da ação (ordinal de Input).
+     */
+    public boolean step(int inputCode) {
+        return step(INPUTS[inputCode]);
+    }
+
+    /**
+     * Avança um passo de gravidade. Só conta como tick quando a partida está a
+     * correr (não conta em pausa nem depois do game over).
+     *
+     * @return true se o tick foi aplicado
+     */
+    public boolean tick() {
+        if (!board.isStarted() || board.isPaused() || board.isGameOver()) {
+            return false;
+        }
+        board.movePieceDown();
+        tickCount++;
+        if (inputListener != null && board.isGameOver()) {
+            inputListener.gameEnded(tickCount);
+        }
+        return true;
+    }
+
+    /**
+     * Repõe um estado guardado (ex: um keyframe de um replay): copia o Board e o
+     * contador de ticks. Não notifica o InputListener.
+     */
+    public void restore(Board state, long tickCount) {
+        board.copyFrom(state);
+        this.tickCount = tickCount;
+    }
+
+    private void notifyInput(Input input) {
+        if (inputListener != null) {
+            inputListener.inputApplied(tickCount, input);
+            if (board.isGameOver()) {
+                inputListener.gameEnded(tickCount);
+            }
+        }
+    }
+
+    /**
+     * Liga (ou desliga, com null) quem recebe os inputs aplicados, ex: um gravador de partidas.
+     */
+    public void setInputListener(InputListener inputListener) {
+        this.inputListener = inputListener;
+    }
+
+    public Board getBoard() { return board; }
+    public long getTickCount() { return tickCount; }
+}
@@ -0,0 +1,196 @@
+package com.tetris.model;
+
+/**
+ * Gera todas as posições finais (x, rotação, y de pouso) que a peça atual consegue
+ * alcançar com os movimentos do jogo: moveLeft, moveRight, rotateLeft, rotateRight
+ * e movePieceDown. Inclui encaixes por baixo de saliências que a queda direta não alcança.
+ *
+ * É uma busca em largura (BFS) sobre os estados (x, y, rotação), com um bitset de
+ * visitados e arrays pré-alocados: gerar jogadas não aloca nada. Uma instância
+ * serve para qualquer Board com as dimensões indicadas no construtor, mas não deve
+ * ser partilhada entre threads.
+ */
+public class MoveGenerator {
+
+    // Movimentos da BFS, pela ordem em que são tentados (códigos de GameEngine.Input)
+    private static final byte[] MOVES = {
+        (byte) GameEngine.Input.LEFT.ordinal(),
+        (byte) GameEngine.Input.RIGHT.ordinal(),
+        (byte) GameEngine.Input.ROTATE_LEFT.ordinal(),
+        (byte) GameEngine.Input.ROTATE_RIGHT.ordinal(),
+        (byte) GameEngine.Input.SOFT_DROP.ordinal()
+    };
+    // Margem para posições de x fora do tabuleiro (o pivô pode estar até 2 colunas fora)
+    private static final int X_MARGIN = 2;
+
+    private final int width;
+    private final int height;
+    private final int xRange;
+    private final long[] visited;
+
+    // Fila da BFS: cada entrada guarda o estado, o índice do pai e o movimento que lá levou
+    private final int[] queueX;
+    private final int[] queueY;
+    private final byte[] queueRotation;
+    private final int[] queueParent;
+    private final byte[] queueMove;
+    private final int[] queueRepeat; // Quantas vezes o movimento é repetido (quedas longas)
+    private int queueSize;
+
+    // Resultado: índices na fila dos nós finais
+    private final int[] placements;
+    private int placementCount;
+
+    public MoveGenerator(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.xRange = width + 2 * X_MARGIN;
+        int states = xRange * height * Shape.ROTATIONS;
+        visited = new long[(states + 63) >>> 6];
+        queueX = new int[states];
+        queueY = new int[states];
+        queueRotation = new byte[states];
+        queueParent = new int[states];
+        queueMove = new byte[states];
+        queueRepeat = new int[states];
+        placements = new int[states];
+    }
+
+    /**
+     * Gera as posições finais da peça atual do Board, a partir da posição em que está.
+     *
+     * @return número de posições encontradas
+     */
+    public int generate(Board board) {
+        Piece piece = board.getCurrentPiece();
+        return generate(board, piece.getShape(), piece.getRotation(), piece.getX(), piece.getY());
+    }
+
+    /**
+     * Gera as posições finais de uma peça qualquer, partindo de (x, y, rotação).
+     *
+     * @return número de posições encontradas (0 se a posição inicial não for válida)
+     */
+    public int generate(Board board, Shape.Tetrominoe shape, int rotation, int x, int y) {
+        if (board.getWidth() != width || board.getHeight() != height) {
+            throw new IllegalArgumentException("MoveGenerator criado para outro tamanho de tabuleiro");
+        }
+        clearVisited();
+        queueSize = 0;
+        placementCount = 0;
+        if (shape == Shape.Tetrominoe.NoShape || y >= height || !board.canMoveTo(shape, rotation, x, y)) {
+            return 0;
+        }
+
+        int stackHeight = board.getStackHeight();
+        visit(x, y, rotation, -1, (byte) GameEngine.Input.NONE.ordinal(), 0);
+        for (int head = 0; head < queueSize; head++) {
+            int cx = queueX[head];
+            int cy = queueY[head];
+            int cr = queueRotation[head];
+            boolean canFall = false;
+
+            for (int m = 0; m < MOVES.length; m++) {
+                int nx = cx, ny = cy, nr = cr;
+                switch (m) {
+                    case 0: nx--; break;
+                    case 1: nx++; break;
+                    case 2: nr = Shape.rotateLeft(shape, cr); break;
+                    case 3: nr = Shape.rotateRight(shape, cr); break;
+                    default: ny--; break;
+                }
+
+                if (!board.canMoveTo(shape, nr, nx, ny)) {
+                    continue;
+                }
+                int repeat = 1;
+                if (m == MOVES.length - 1) {
+                    canFall = true;
+                    // Acima da pilha o tabuleiro está vazio e as jogadas possíveis são as mesmas
+                    // a qualquer altura: desce de uma vez até a peça encostar ao topo da pilha.
+                    int state = Shape.state(shape, cr);
+                    int lowestOffset = Shape.minY(state) + Shape.height(state) - 1;
+                    int floorY = stackHeight + lowestOffset;
+                    if (floorY < ny) {
+                        repeat = cy - floorY;
+                        ny = floorY;
+                    }
+                }
+                if (!isVisited(nx, ny, nr)) {
+                    visit(nx, ny, nr, head, MOVES[m], repeat);
+                }
+            }
+            // Não consegue descer mais: é uma posição final
+            if (!canFall) {
+                placements[placementCount++] = head;
+            }
+        }
+        return placementCount;
+    }
+
+    // --- Resultado ---
+
+    public int getCount() { return placementCount; }
+    public int getX(int placement) { return queueX[placements[placement]]; }
+    public int getY(int placement) { return queueY[placements[placement]]; }
+    public int getRotation(int placement) { return queueRotation[placements[placement]]; }
+
+    /**
+     * Escreve em {@code out} a sequência de inputs (ordinais de GameEngine.Input) que leva
+     * a peça da posição inicial até à posição final indicada. Para a bloquear basta
+     * depois aplicar HARD_DROP (ou SOFT_DROP), já que ela não consegue descer mais.
+     *
+     * @return o número de inputs escritos
+     */
+    public int getPath(int placement, byte[] out) {
+        int length = getPathLength(placement);
+        int i = length;
+        for (int node = placements[placement]; queueParent[node] >= 0; node = queueParent[node]) {
+            for (int r = 0; r < queueRepeat[node]; r++) {
+                out[--i] = queueMove[node];
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Tamanho do caminho de getPath (o array de saída tem de ter pelo menos este tamanho).
+     */
+    public int getPathLength(int placement) {
+        int length = 0;
+        for (int node = placements[placement]; queueParent[node] >= 0; node = queueParent[node]) {
+            length += queueRepeat[node];
+        }
+        return length;
+    }
+
+    // --- Bitset de visitados ---
+
+    private int stateIndex(int x, int y, int rotation) {
+        return ((y * xRange) + x + X_MARGIN) * Shape.ROTATIONS + rotation;
+    }
+
+    private boolean isVisited(int x, int y, int rotation) {
+        int index = stateIndex(x, y, rotation);
+        return (visited[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private void visit(int x, int y, int rotation, int parent, byte move, int repeat) {
+        int index = stateIndex(x, y, rotation);
+        visited[index >>> 6] |= 1L << index;
+        queueX[queueSize] = x;
+        queueY[queueSize] = y;
+        queueRotation[queueSize] = (byte) rotation;
+        queueParent[queueSize] = parent;
+        queueMove[queueSize] = move;
+        queueRepeat[queueSize] = repeat;
+        queueSize++;
+    }
+
+    // Limpa só as palavras tocadas na última geração, não o bitset inteiro
+    private void clearVisited() {
+        for (int i = 0; i < queueSize; i++) {
+            visited[stateIndex(queueX[i], queueY[i], queueRotation[i]) >>> 6] = 0;
+        }
+    }
+}
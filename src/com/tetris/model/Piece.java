@@ -1,40 +1,36 @@
 package com.tetris.model;
-import java.util.Random;
-
-import com.tetris.model.Shape.Tetrominoe;
 
 /**
  * Representa a peça (tetrominó) que está caindo.
- * Contém a forma, coordenadas, e a lógica de rotação.
- * Agora também armazena sua posição (x, y) no tabuleiro.
+ * Uma peça é apenas forma + índice de rotação + posição (x, y) no tabuleiro;
+ * as coordenadas de cada rotação vêm das tabelas partilhadas de {@link Shape},
+ * por isso rodar a peça não cria novos objetos.
  */
 public class Piece {
 
     private Shape.Tetrominoe pieceShape;
-    private int[][] coords;
+    private int rotation;
+    private int state; // Cache de Shape.state(pieceShape, rotation)
     private int x, y; // Posição da peça no tabuleiro
 
     public Piece() {
-        coords = new int[4][2];
         setShape(Shape.Tetrominoe.NoShape);
     }
 
     public void setShape(Shape.Tetrominoe shape) {
-        int[][][] coordsTable = new int[][][]{
-            {{0, 0}, {0, 0}, {0, 0}, {0, 0}},
-            {{0, -1}, {0, 0}, {-1, 0}, {-1, 1}},
-            {{0, -1}, {0, 0}, {1, 0}, {1, 1}},
-            {{0, -1}, {0, 0}, {0, 1}, {0, 2}},
-            {{-1, 0}, {0, 0}, {1, 0}, {0, 1}},
-            {{0, 0}, {1, 0}, {0, 1}, {1, 1}},
-            {{-1, -1}, {0, -1}, {0, 0}, {0, 1}},
-            {{1, -1}, {0, -1}, {0, 0}, {0, 1}}
-        };
-
-        for (int i = 0; i < 4; i++) {
-            System.arraycopy(coordsTable[shape.ordinal()][i], 0, this.coords[i], 0, 2);
-        }
         pieceShape = shape;
+        setRotation(0);
+    }
+
+    /**
+     * Copia forma, rotação e posição de outra peça (sem alocar).
+     */
+    public void copyFrom(Piece other) {
+        pieceShape = other.pieceShape;
+        rotation = other.rotation;
+        state = other.state;
+        x = other.x;
+        y = other.y;
     }
 
     // --- Getters e Setters para posição ---
@@ -43,54 +39,34 @@ public class Piece {
     public int getY() { return y; }
     public void setY(int y) { this.y = y; }
 
-    // --- Getters e Setters para coordenadas relativas ---
-    private void setCoordX(int index, int val) { coords[index][0] = val; }
-    private void setCoordY(int index, int val) { coords[index][1] = val; }
-    public int x(int index) { return coords[index][0]; }
-    public int y(int index) { return coords[index][1]; }
-    public Shape.Tetrominoe getShape() { return pieceShape; }
-
-    public void setRandomShape() {
-        Random r = new Random();
-        int x = Math.abs(r.nextInt()) % 7 + 1;
-        Shape.Tetrominoe[] values = Shape.Tetrominoe.values();
-        setShape(values[x]);
+    // --- Rotação ---
+    public int getRotation() { return rotation; }
+    public void setRotation(int rotation) {
+        this.rotation = rotation;
+        this.state = Shape.state(pieceShape, rotation);
     }
+    public int getState() { return state; }
+
+    // --- Coordenadas relativas (da tabela pré-calculada) ---
+    public int x(int index) { return Shape.cellX(state, index); }
+    public int y(int index) { return Shape.cellY(state, index); }
+    public Shape.Tetrominoe getShape() { return pieceShape; }
 
     public int minX() {
-        int m = coords[0][0];
-        for (int i = 1; i < 4; i++) m = Math.min(m, coords[i][0]);
-        return m;
+        return Shape.minX(state);
     }
 
     public int minY() {
-        int m = coords[0][1];
-        for (int i = 1; i < 4; i++) m = Math.min(m, coords[i][1]);
-        return m;
+        return Shape.minY(state);
     }
 
     // Rotaciona a peça para a esquerda (sentido anti-horário)
-    public Piece rotateLeft() {
-        if (pieceShape == Shape.Tetrominoe.SquareShape) return this;
-        Piece result = new Piece();
-        result.pieceShape = this.pieceShape;
-        for (int i = 0; i < 4; i++) {
-            result.setCoordX(i, -y(i));
-            result.setCoordY(i, x(i));
-        }
-        return result;
+    public void rotateLeft() {
+        setRotation(Shape.rotateLeft(pieceShape, rotation));
     }
 
     // Rotaciona a peça para a direita (sentido horário)
-    public Piece rotateRight() {
-        if (pieceShape == Shape.Tetrominoe.SquareShape) return this;
-        Piece result = new Piece();
-        result.pieceShape = this.pieceShape;
-        for (int i = 0; i < 4; i++) {
-            result.setCoordX(i, y(i));
-            result.setCoordY(i, -x(i));
-        }
-        return result;
+    public void rotateRight() {
+        setRotation(Shape.rotateRight(pieceShape, rotation));
     }
 }
-
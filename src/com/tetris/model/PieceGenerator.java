@@ -0,0 +1,135 @@
+package com.tetris.model;
+
+/**
+ * Gerador da sequência de peças do jogo.
+ * As peças são geradas em bloco para um buffer circular de bytes (ordinais de
+ * Shape.Tetrominoe), por isso tirar a próxima peça é só uma leitura no array.
+ * O gerador usa o seu próprio RNG (SplitMix64) com semente, o que torna as
+ * partidas reproduzíveis: a mesma semente produz sempre a mesma sequência.
+ */
+public abstract class PieceGenerator {
+
+    private static final int BUFFER_SIZE = 256; // Potência de 2 para usar máscara no índice
+    private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+    // Peças geradas de cada vez: poucas, para um reset seguido de meia dúzia de peças
+    // (ex: simulações de Monte Carlo) não pagar o buffer inteiro
+    private static final int REFILL_SIZE = 32;
+    private static final Shape.Tetrominoe[] SHAPES = Shape.Tetrominoe.values();
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int head;  // Posição da próxima peça no buffer
+    private int size;  // Quantidade de peças já geradas e ainda não consumidas
+    private long seed;
+    private long drawn; // Total de peças consumidas desde o último reset
+    private long rngState;
+
+    protected PieceGenerator(long seed) {
+        this.seed = seed;
+        this.rngState = seed;
+    }
+
+    /**
+     * Reinicia a sequência a partir de uma nova semente.
+     */
+    public void reset(long seed) {
+        this.seed = seed;
+        this.rngState = seed;
+        this.head = 0;
+        this.size = 0;
+        this.drawn = 0;
+        resetState();
+    }
+
+    /**
+     * Retira a próxima peça da sequência.
+     */
+    public Shape.Tetrominoe next() {
+        if (size == 0) {
+            refill();
+        }
+        byte ordinal = buffer[head];
+        head = (head + 1) & BUFFER_MASK;
+        size--;
+        drawn++;
+        return SHAPES[ordinal];
+    }
+
+    /**
+     * Consulta uma peça futura sem a consumir (0 = a próxima a sair de next()).
+     */
+    public Shape.Tetrominoe peek(int ahead) {
+        if (ahead < 0 || ahead >= BUFFER_SIZE) {
+            throw new IllegalArgumentException("Consulta fora do buffer: " + ahead);
+        }
+        while (size <= ahead) {
+            refill();
+        }
+        return SHAPES[buffer[(head + ahead) & BUFFER_MASK]];
+    }
+
+    /**
+     * Copia a sequência inteira de outro gerador do mesmo tipo (sem alocar).
+     */
+    public void copyFrom(PieceGenerator other) {
+        if (other.getClass() != getClass()) {
+            throw new IllegalArgumentException("Geradores de tipos diferentes: " + other.getClass().getSimpleName());
+        }
+        System.arraycopy(other.buffer, 0, buffer, 0, BUFFER_SIZE);
+        head = other.head;
+        size = other.size;
+        seed = other.seed;
+        drawn = other.drawn;
+        rngState = other.rngState;
+        copyStateFrom(other);
+    }
+
+    /**
+     * Cria um gerador do mesmo tipo (usado quando um Board copia outro com outro tipo de gerador).
+     */
+    public abstract PieceGenerator newInstance(long seed);
+
+    public long getSeed() { return seed; }
+    public long getDrawn() { return drawn; }
+
+    // Gera mais REFILL_SIZE peças (ou o espaço livre, se for menor) no fim do buffer circular.
+    // A sequência não depende do tamanho dos blocos: fill continua sempre do mesmo estado.
+    private void refill() {
+        int tail = (head + size) & BUFFER_MASK;
+        int count = Math.min(REFILL_SIZE, BUFFER_SIZE - size);
+        int firstChunk = Math.min(count, BUFFER_SIZE - tail);
+        fill(buffer, tail, firstChunk);
+        if (count > firstChunk) {
+            fill(buffer, 0, count - firstChunk);
+        }
+        size += count;
+    }
+
+    /**
+     * Escreve {@code length} ordinais de peças (1 a 7) em {@code dst} a partir de {@code offset}.
+     */
+    protected abstract void fill(byte[] dst, int offset, int length);
+
+    /**
+     * Reinicia o estado próprio da subclasse (ex: o saco atual).
+     */
+    protected abstract void resetState();
+
+    /**
+     * Copia o estado próprio da subclasse.
+     */
+    protected abstract void copyStateFrom(PieceGenerator other);
+
+    // --- RNG SplitMix64 ---
+
+    protected final long nextLong() {
+        long z = (rngState += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Inteiro uniforme em [0, bound) sem divisão
+    protected final int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+}
@@ -0,0 +1,56 @@
+package com.tetris.model;
+
+/**
+ * Gerador "7-bag": cada saco contém as 7 peças uma vez, em ordem aleatória.
+ * Garante que nenhuma peça fica mais de 12 peças sem aparecer.
+ */
+public class SevenBagGenerator extends PieceGenerator {
+
+    private final byte[] bag = new byte[7];
+    private int remaining; // Peças ainda por tirar do saco atual
+
+    public SevenBagGenerator(long seed) {
+        super(seed);
+    }
+
+    @Override
+    protected void fill(byte[] dst, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            if (remaining == 0) {
+                shuffleBag();
+            }
+            dst[offset + i] = bag[7 - remaining--];
+        }
+    }
+
+    private void shuffleBag() {
+        for (int i = 0; i < 7; i++) {
+            bag[i] = (byte) (i + 1);
+        }
+        // Fisher-Yates
+        for (int i = 6; i > 0; i--) {
+            int j = nextInt(i + 1);
+            byte tmp = bag[i];
+            bag[i] = bag[j];
+            bag[j] = tmp;
+        }
+        remaining = 7;
+    }
+
+    @Override
+    public PieceGenerator newInstance(long seed) {
+        return new SevenBagGenerator(seed);
+    }
+
+    @Override
+    protected void resetState() {
+        remaining = 0; // Força um saco novo na primeira peça
+    }
+
+    @Override
+    protected void copyStateFrom(PieceGenerator other) {
+        SevenBagGenerator o = (SevenBagGenerator) other;
+        System.arraycopy(o.bag, 0, bag, 0, 7);
+        remaining = o.remaining;
+    }
+}
@@ -1,7 +1,12 @@
 package com.tetris.model;
 
+import java.util.Arrays;
+
 /**
  * Enum que define todas as formas dos Tetrominós e a tabela de coordenadas.
+ * A partir da tabela base são pré-calculados, uma única vez, os 4 estados de
+ * rotação de cada forma (células e máscaras de bits por linha). Estas tabelas
+ * são partilhadas e nunca alteradas, por isso rodar uma peça não aloca nada.
  */
 public class Shape {
 
@@ -9,22 +14,107 @@ public class Shape {
         NoShape, ZShape, SShape, LineShape, TShape, SquareShape, LShape, MirroredLShape
     }
 
-    private static int[][][] coordsTable;
+    public static final int ROTATIONS = 4;
+
+    private static final int[][][] coordsTable = new int[][][] {
+        { { 0, 0 },  { 0, 0 },  { 0, 0 },  { 0, 0 } }, // NoShape
+        { { 0, -1 }, { 0, 0 },  { -1, 0 }, { -1, 1 } }, // ZShape
+        { { 0, -1 }, { 0, 0 },  { 1, 0 },  { 1, 1 } },  // SShape
+        { { 0, -1 }, { 0, 0 },  { 0, 1 },  { 0, 2 } },  // LineShape
+        { { -1, 0 }, { 0, 0 },  { 1, 0 },  { 0, 1 } },  // TShape
+        { { 0, 0 },  { 1, 0 },  { 0, 1 },  { 1, 1 } },  // SquareShape
+        { { -1, -1 },{ 0, -1 }, { 0, 0 },  { 0, 1 } },  // LShape
+        { { 1, -1 }, { 0, -1 }, { 0, 0 },  { 0, 1 } }   // MirroredLShape
+    };
+
+    // --- Tabelas pré-calculadas, indexadas por estado = ordinal * ROTATIONS + rotação ---
+    private static final int STATES = coordsTable.length * ROTATIONS;
+    private static final int[] CELL_X = new int[STATES * 4];
+    private static final int[] CELL_Y = new int[STATES * 4];
+    private static final int[] MIN_X = new int[STATES];
+    private static final int[] MIN_Y = new int[STATES];
+    private static final int[] WIDTH = new int[STATES];
+    private static final int[] HEIGHT = new int[STATES];
+    // Máscara de cada linha da peça (k = 0 é a linha de cima, y = MIN_Y), com o bit 0 na coluna MIN_X
+    private static final int[] ROW_MASK = new int[STATES * 4];
+    // Maior y relativo (célula mais baixa no tabuleiro) de cada coluna da peça, k = x - MIN_X
+    private static final int[] COLUMN_BOTTOM = new int[STATES * 4];
+    private static final int[] ROTATION_COUNT = new int[coordsTable.length];
 
     static {
-        coordsTable = new int[][][] {
-            { { 0, 0 },  { 0, 0 },  { 0, 0 },  { 0, 0 } }, // NoShape
-            { { 0, -1 }, { 0, 0 },  { -1, 0 }, { -1, 1 } }, // ZShape
-            { { 0, -1 }, { 0, 0 },  { 1, 0 },  { 1, 1 } },  // SShape
-            { { 0, -1 }, { 0, 0 },  { 0, 1 },  { 0, 2 } },  // LineShape
-            { { -1, 0 }, { 0, 0 },  { 1, 0 },  { 0, 1 } },  // TShape
-            { { 0, 0 },  { 1, 0 },  { 0, 1 },  { 1, 1 } },  // SquareShape
-            { { -1, -1 },{ 0, -1 }, { 0, 0 },  { 0, 1 } },  // LShape
-            { { 1, -1 }, { 0, -1 }, { 0, 0 },  { 0, 1 } }   // MirroredLShape
-        };
+        for (int s = 0; s < coordsTable.length; s++) {
+            // O quadrado (e a forma vazia) não roda: só têm um estado distinto
+            boolean fixed = s == Tetrominoe.NoShape.ordinal() || s == Tetrominoe.SquareShape.ordinal();
+            ROTATION_COUNT[s] = fixed ? 1 : ROTATIONS;
+
+            int[] xs = new int[4];
+            int[] ys = new int[4];
+            for (int i = 0; i < 4; i++) {
+                xs[i] = coordsTable[s][i][0];
+                ys[i] = coordsTable[s][i][1];
+            }
+            for (int r = 0; r < ROTATIONS; r++) {
+                int state = s * ROTATIONS + r;
+                int minX = xs[0], maxX = xs[0], minY = ys[0], maxY = ys[0];
+                for (int i = 0; i < 4; i++) {
+                    CELL_X[state * 4 + i] = xs[i];
+                    CELL_Y[state * 4 + i] = ys[i];
+                    minX = Math.min(minX, xs[i]);
+                    maxX = Math.max(maxX, xs[i]);
+                    minY = Math.min(minY, ys[i]);
+                    maxY = Math.max(maxY, ys[i]);
+                }
+                MIN_X[state] = minX;
+                MIN_Y[state] = minY;
+                WIDTH[state] = maxX - minX + 1;
+                HEIGHT[state] = maxY - minY + 1;
+                Arrays.fill(COLUMN_BOTTOM, state * 4, state * 4 + 4, Integer.MIN_VALUE);
+                for (int i = 0; i < 4; i++) {
+                    ROW_MASK[state * 4 + ys[i] - minY] |= 1 << (xs[i] - minX);
+                    int column = state * 4 + xs[i] - minX;
+                    COLUMN_BOTTOM[column] = Math.max(COLUMN_BOTTOM[column], ys[i]);
+                }
+
+                // Próximo estado: rotação para a direita (sentido horário), (x, y) -> (y, -x)
+                if (!fixed) {
+                    for (int i = 0; i < 4; i++) {
+                        int x = xs[i];
+                        xs[i] = ys[i];
+                        ys[i] = -x;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Índice do estado (forma + rotação) usado por todas as tabelas abaixo.
+     */
+    public static int state(Tetrominoe shape, int rotation) {
+        return shape.ordinal() * ROTATIONS + rotation;
     }
 
-    public static int[][][] getCoordsTable() {
-        return coordsTable;
+    public static int rotationCount(Tetrominoe shape) {
+        return ROTATION_COUNT[shape.ordinal()];
     }
+
+    public static int rotateRight(Tetrominoe shape, int rotation) {
+        return (rotation + 1) % ROTATION_COUNT[shape.ordinal()];
+    }
+
+    public static int rotateLeft(Tetrominoe shape, int rotation) {
+        int count = ROTATION_COUNT[shape.ordinal()];
+        return (rotation + count - 1) % count;
+    }
+
+    // --- Acesso às tabelas (somente leitura) ---
+
+    public static int cellX(int state, int index) { return CELL_X[state * 4 + index]; }
+    public static int cellY(int state, int index) { return CELL_Y[state * 4 + index]; }
+    public static int minX(int state) { return MIN_X[state]; }
+    public static int minY(int state) { return MIN_Y[state]; }
+    public static int width(int state) { return WIDTH[state]; }
+    public static int height(int state) { return HEIGHT[state]; }
+    public static int rowMask(int state, int row) { return ROW_MASK[state * 4 + row]; }
+    public static int columnBottom(int state, int column) { return COLUMN_BOTTOM[state * 4 + column]; }
 }
@@ -0,0 +1,32 @@
+package com.tetris.model;
+
+/**
+ * Gerador uniforme: cada peça é sorteada de forma independente entre as 7 formas
+ * (o comportamento original do jogo).
+ */
+public class UniformGenerator extends PieceGenerator {
+
+    public UniformGenerator(long seed) {
+        super(seed);
+    }
+
+    @Override
+    protected void fill(byte[] dst, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] = (byte) (nextInt(7) + 1);
+        }
+    }
+
+    @Override
+    public PieceGenerator newInstance(long seed) {
+        return new UniformGenerator(seed);
+    }
+
+    @Override
+    protected void resetState() {
+    }
+
+    @Override
+    protected void copyStateFrom(PieceGenerator other) {
+    }
+}
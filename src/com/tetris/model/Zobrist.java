@@ -0,0 +1,46 @@
+package com.tetris.model;
+
+/**
+ * Chaves de Zobrist para o estado do Board.
+ * Em vez de uma tabela aleatória por célula (que cresceria com tabuleiros de 64x10000),
+ * cada chave é obtida misturando as coordenadas com o finalizador do SplitMix64:
+ * é determinística, custa poucas multiplicações e não ocupa memória.
+ *
+ * A grelha é codificada por linha: a chave de uma linha depende da sua máscara de bits
+ * e da sua altura, e o hash da grelha é o XOR das chaves de todas as linhas não vazias.
+ */
+final class Zobrist {
+
+    private static final long ROW_SEED = 0x7A5C3E1F2B4D6A89L;
+    private static final long PIECE_SEED = 0x1D8E4F7A3C2B6E95L;
+
+    private Zobrist() {
+    }
+
+    /**
+     * Chave de uma linha; linhas vazias valem 0, por isso não entram no hash.
+     */
+    static long rowKey(int y, long mask) {
+        if (mask == 0) {
+            return 0;
+        }
+        return mix(mix(mask ^ ROW_SEED) + y);
+    }
+
+    /**
+     * Chave da peça atual: forma, rotação e posição.
+     */
+    static long pieceKey(Shape.Tetrominoe shape, int rotation, int x, int y) {
+        long packed = ((long) shape.ordinal() << 48) | ((long) rotation << 40)
+                | ((long) (x & 0xFFFF) << 20) | (y & 0xFFFFF);
+        return mix(packed ^ PIECE_SEED);
+    }
+
+    // Finalizador do SplitMix64: espalha bem qualquer alteração de bit pelos 64 bits
+    private static long mix(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,12 @@
+package com.tetris.replay;
+
+/**
+ * Entrada do índice de um ReplayArchive.
+ *
+ * @param id número da partida no arquivo (0, 1, 2, ... pela ordem em que foi acrescentada)
+ * @param sessionId id da linha em game_session, ou 0 se a partida não foi gravada na base de dados
+ * @param position posição da gravação no ficheiro de segmento
+ * @param length tamanho da gravação em bytes
+ */
+public record ArchiveEntry(long id, long sessionId, long position, int length, String playerName, int score) {
+}
@@ -0,0 +1,156 @@
+package com.tetris.replay;
+
+import com.tetris.model.GameEngine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Grava cada partida num ficheiro binário compacto (ver ReplayFormat): a semente e,
+ * para cada input aceite pelo engine, os ticks de gravidade desde o anterior e o código
+ * da ação. Com a semente e os inputs o GameEngine reproduz a partida exatamente.
+ *
+ * Liga-se com GameEngine.setInputListener. Na thread do jogo só se codificam varints
+ * num ByteBuffer; quando ele enche (ou a partida acaba) é entregue a uma thread de
+ * escrita, que o grava com um FileChannel e o devolve para reutilização.
+ * Uma partida típica ocupa poucos KB.
+ */
+public class InputRecorder implements GameEngine.InputListener {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final String FILE_EXTENSION = ".ttr";
+
+    private final Path directory;
+    private final ExecutorService writer;
+    private final ConcurrentLinkedQueue<ByteBuffer> freeBuffers = new ConcurrentLinkedQueue<>();
+    private ByteBuffer current;
+    private boolean recording;
+    private long lastTick;
+
+    // Só usado na thread de escrita
+    private FileChannel channel;
+
+    public InputRecorder(Path directory) {
+        this.directory = directory;
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "input-recorder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.current = ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    @Override
+    public void gameStarted(GameEngine engine, long seed) {
+        if (recording) {
+            // Partida anterior interrompida por um reset: fecha o ficheiro sem marca de fim
+            finishFile();
+        }
+        long startMillis = System.currentTimeMillis();
+        Path file = directory.resolve("game-" + startMillis + "-" + Long.toHexString(seed) + FILE_EXTENSION);
+        writer.execute(() -> open(file));
+
+        ReplayFormat.writeHeader(current, engine, seed, startMillis);
+        recording = true;
+        lastTick = 0;
+    }
+
+    @Override
+    public void inputApplied(long tick, GameEngine.Input input) {
+        if (recording) {
+            writeEvent(tick, input.ordinal());
+        }
+    }
+
+    @Override
+    public void gameEnded(long tick) {
+        if (recording) {
+            writeEvent(tick, ReplayFormat.END_OF_GAME);
+            finishFile();
+        }
+    }
+
+    /**
+     * Grava o que falta e espera que a thread de escrita termine (ex: ao fechar a aplicação).
+     */
+    public void close() {
+        if (recording) {
+            finishFile();
+        }
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeEvent(long tick, int code) {
+        if (current.remaining() < ReplayFormat.MAX_EVENT_BYTES) {
+            flush();
+        }
+        ReplayFormat.writeVarint(current, ((tick - lastTick) << ReplayFormat.CODE_BITS) | code);
+        lastTick = tick;
+    }
+
+    private void finishFile() {
+        flush();
+        writer.execute(this::closeChannel);
+        recording = false;
+    }
+
+    // Entrega o buffer atual à thread de escrita e continua com um buffer livre
+    private void flush() {
+        ByteBuffer full = current;
+        ByteBuffer free = freeBuffers.poll();
+        current = free != null ? free : ByteBuffer.allocate(BUFFER_SIZE);
+        full.flip();
+        writer.execute(() -> write(full));
+    }
+
+    // --- Thread de escrita ---
+
+    private void open(Path file) {
+        try {
+            Files.createDirectories(directory);
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            System.out.println("InputRecorder: não foi possível criar " + file + " -> " + e.getMessage());
+            channel = null;
+        }
+    }
+
+    private void write(ByteBuffer buffer) {
+        try {
+            while (channel != null && buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            System.out.println("InputRecorder: falha ao gravar -> " + e.getMessage());
+            closeChannel();
+        }
+        buffer.clear();
+        freeBuffers.offer(buffer);
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("InputRecorder: falha ao fechar a gravação -> " + e.getMessage());
+        }
+        channel = null;
+    }
+}
@@ -0,0 +1,141 @@
+package com.tetris.replay;
+
+import com.tetris.model.Board;
+import com.tetris.model.GameEngine;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Uma gravação de partida já descodificada (ver ReplayFormat): o cabeçalho e os
+ * eventos em arrays, com o tick absoluto de cada um em vez da diferença.
+ */
+public final class Replay {
+
+    private final int rulesVersion;
+    private final int width;
+    private final int height;
+    private final byte generatorKind;
+    private final long seed;
+    private final long startMillis;
+    private final long[] eventTicks;
+    private final byte[] eventCodes;
+    private final int eventCount;
+    private final boolean complete;
+
+    private Replay(int rulesVersion, int width, int height, byte generatorKind, long seed, long startMillis,
+                   long[] eventTicks, byte[] eventCodes, int eventCount, boolean complete) {
+        this.rulesVersion = rulesVersion;
+        this.width = width;
+        this.height = height;
+        this.generatorKind = generatorKind;
+        this.seed = seed;
+        this.startMillis = startMillis;
+        this.eventTicks = eventTicks;
+        this.eventCodes = eventCodes;
+        this.eventCount = eventCount;
+        this.complete = complete;
+    }
+
+    public static Replay read(Path file) throws IOException {
+        return read(ByteBuffer.wrap(Files.readAllBytes(file)));
+    }
+
+    /**
+     * Descodifica uma gravação a partir da posição atual do buffer até ao fim da partida
+     * (ou ao fim do buffer, se a gravação tiver sido interrompida).
+     */
+    public static Replay read(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != ReplayFormat.MAGIC) {
+                throw new IOException("Não é uma gravação de partida");
+            }
+            byte version = buffer.get();
+            if (version != ReplayFormat.FORMAT_VERSION) {
+                throw new IOException("Versão de gravação não suportada: " + version);
+            }
+            int rulesVersion = (int) ReplayFormat.readVarint(buffer);
+            long width = ReplayFormat.readVarint(buffer);
+            long height = ReplayFormat.readVarint(buffer);
+            // Um cabeçalho corrompido não pode chegar ao construtor do Board (IllegalArgumentException)
+            if (width < Board.MIN_SIZE || width > Board.MAX_WIDTH
+                    || height < Board.MIN_SIZE || height > ReplayFormat.MAX_HEIGHT) {
+                throw new IOException("Dimensões inválidas na gravação: " + width + "x" + height);
+            }
+            byte generatorKind = buffer.get();
+            if (generatorKind != ReplayFormat.GENERATOR_SEVEN_BAG && generatorKind != ReplayFormat.GENERATOR_UNIFORM) {
+                throw new IOException("Tipo de gerador desconhecido na gravação: " + generatorKind);
+            }
+            long seed = buffer.getLong();
+            long startMillis = buffer.getLong();
+
+            // Cada evento ocupa pelo menos 1 byte
+            int capacity = Math.max(16, Math.min(buffer.remaining(), 1 << 16));
+            long[] ticks = new long[capacity];
+            byte[] codes = new byte[capacity];
+            int count = 0;
+            long tick = 0;
+            boolean complete = false;
+            while (buffer.hasRemaining() && !complete) {
+                long value = ReplayFormat.readVarint(buffer);
+                tick += value >>> ReplayFormat.CODE_BITS;
+                int code = (int) (value & ReplayFormat.CODE_MASK);
+                if (count == ticks.length) {
+                    ticks = Arrays.copyOf(ticks, count * 2);
+                    codes = Arrays.copyOf(codes, count * 2);
+                }
+                ticks[count] = tick;
+                codes[count++] = (byte) code;
+                complete = code == ReplayFormat.END_OF_GAME;
+            }
+            return new Replay(rulesVersion, (int) width, (int) height, generatorKind, seed, startMillis,
+                    ticks, codes, count, complete);
+        } catch (BufferUnderflowException | IllegalStateException e) {
+            throw new IOException("Gravação truncada ou corrompida", e);
+        }
+    }
+
+    /**
+     * Cria um engine no estado inicial desta partida: tabuleiro com as dimensões e o
+     * gerador gravados, reiniciado com a semente. Os eventos ficam por aplicar.
+     */
+    public GameEngine newEngine() {
+        Board board = new Board(width, height);
+        board.setPieceGenerator(ReplayFormat.newGenerator(generatorKind, seed));
+        GameEngine engine = new GameEngine(board);
+        engine.reset(seed);
+        return engine;
+    }
+
+    /**
+     * Se a gravação pode ser reproduzida por este engine (mesma versão das regras).
+     */
+    public boolean isCompatible() {
+        return rulesVersion == GameEngine.RULES_VERSION;
+    }
+
+    public int getRulesVersion() { return rulesVersion; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public long getSeed() { return seed; }
+    public long getStartMillis() { return startMillis; }
+    public int getEventCount() { return eventCount; }
+    public long getEventTick(int index) { return eventTicks[index]; }
+    public int getEventCode(int index) { return eventCodes[index]; }
+
+    /**
+     * Se a gravação tem a marca de fim de partida (senão foi interrompida a meio).
+     */
+    public boolean isComplete() { return complete; }
+
+    /**
+     * Duração em ticks de gravidade: o tick do último evento.
+     */
+    public long getLength() {
+        return eventCount == 0 ? 0 : eventTicks[eventCount - 1];
+    }
+}
@@ -0,0 +1,272 @@
+package com.tetris.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Arquivo de muitas gravações de partidas (ver ReplayFormat) numa pasta com dois ficheiros:
+ *
+ * <ul>
+ * <li>replays.seg: "TTRA", versão (4 bytes) e as gravações umas a seguir às outras;</li>
+ * <li>replays.idx: "TTRI", versão (4 bytes) e uma entrada de tamanho fixo por partida:
+ * sessionId (8), posição (8), tamanho (4), pontuação (4), nome do jogador
+ * (1 byte de tamanho + até 31 bytes UTF-8).</li>
+ * </ul>
+ *
+ * Só se acrescenta no fim. A gravação é escrita e forçada para o disco antes de a entrada
+ * do índice ser escrita, por isso uma escrita interrompida (ou um crash do sistema) deixa no
+ * máximo bytes a mais no fim, que são cortados ao abrir. Ao abrir, as últimas entradas cuja
+ * gravação não está inteira no segmento (ou não começa pelo "TTRP") também são cortadas.
+ * O id de uma partida é a sua posição no índice, logo a entrada é lida sem procura.
+ *
+ * A leitura em massa ({@link #forEach}) mapeia o índice e o segmento em memória e entrega
+ * cada gravação como uma fatia do mapeamento, sem cópias: Replay.read lê-a diretamente.
+ */
+public class ReplayArchive implements Closeable {
+
+    public static final String SEGMENT_FILE = "replays.seg";
+    public static final String INDEX_FILE = "replays.idx";
+
+    private static final int SEGMENT_MAGIC = 0x54545241; // "TTRA"
+    private static final int INDEX_MAGIC = 0x54545249; // "TTRI"
+    private static final int ARCHIVE_VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int ENTRY_SIZE = 56;
+    private static final int MAX_PLAYER_BYTES = 31;
+    // Janelas de mapeamento: um MappedByteBuffer não passa de 2 GB
+    private static final long SEGMENT_WINDOW = 1L << 30;
+    private static final int INDEX_WINDOW_ENTRIES = 1 << 20;
+
+    /**
+     * Recebe cada partida de uma leitura em massa. A gravação é uma fatia só de leitura do
+     * ficheiro mapeado e só deve ser usada durante a chamada.
+     */
+    public interface Visitor {
+        void visit(ArchiveEntry entry, ByteBuffer recording);
+    }
+
+    private final FileChannel segment;
+    private final FileChannel index;
+    private final ByteBuffer entryBuffer = ByteBuffer.allocate(ENTRY_SIZE);
+    private long count;
+    private long segmentEnd;
+
+    private ReplayArchive(FileChannel segment, FileChannel index) {
+        this.segment = segment;
+        this.index = index;
+    }
+
+    /**
+     * Abre (ou cria) o arquivo na pasta indicada.
+     */
+    public static ReplayArchive open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        FileChannel segment = FileChannel.open(directory.resolve(SEGMENT_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel index;
+        try {
+            index = FileChannel.open(directory.resolve(INDEX_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            segment.close();
+            throw e;
+        }
+        ReplayArchive archive = new ReplayArchive(segment, index);
+        try {
+            archive.recover();
+        } catch (IOException e) {
+            archive.close();
+            throw e;
+        }
+        return archive;
+    }
+
+    // Valida os cabeçalhos e corta o que uma escrita interrompida possa ter deixado a meio
+    private void recover() throws IOException {
+        if (segment.size() < HEADER_SIZE && index.size() < HEADER_SIZE) {
+            writeHeader(segment, SEGMENT_MAGIC);
+            writeHeader(index, INDEX_MAGIC);
+        } else {
+            checkHeader(segment, SEGMENT_MAGIC, SEGMENT_FILE);
+            checkHeader(index, INDEX_MAGIC, INDEX_FILE);
+        }
+        count = (index.size() - HEADER_SIZE) / ENTRY_SIZE;
+        segmentEnd = HEADER_SIZE;
+        long segmentSize = segment.size();
+        ByteBuffer magic = ByteBuffer.allocate(4);
+        while (count > 0) {
+            ArchiveEntry last = getEntry(count - 1);
+            long end = last.position() + last.length();
+            if (last.position() >= HEADER_SIZE && last.length() >= magic.capacity() && end <= segmentSize) {
+                magic.clear();
+                readFully(segment, magic, last.position());
+                if (magic.getInt(0) == ReplayFormat.MAGIC) {
+                    segmentEnd = end;
+                    break;
+                }
+            }
+            count--;
+        }
+        index.truncate(HEADER_SIZE + count * ENTRY_SIZE);
+        segment.truncate(segmentEnd);
+    }
+
+    private static void writeHeader(FileChannel channel, int magic) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(magic).putInt(ARCHIVE_VERSION).flip();
+        writeFully(channel, header, 0);
+    }
+
+    private static void checkHeader(FileChannel channel, int magic, String name) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(channel, header, 0);
+        if (header.getInt(0) != magic) {
+            throw new IOException("Não é um ficheiro de arquivo de replays: " + name);
+        }
+        if (header.getInt(4) != ARCHIVE_VERSION) {
+            throw new IOException("Versão de arquivo de replays não suportada: " + header.getInt(4));
+        }
+    }
+
+    /**
+     * Acrescenta uma gravação ao arquivo (do position ao limit do buffer).
+     *
+     * @param sessionId id da linha em game_session, ou 0 se não houver
+     * @return id da partida no arquivo
+     */
+    public synchronized long append(ByteBuffer recording, long sessionId, String playerName, int score)
+            throws IOException {
+        int length = recording.remaining();
+        long position = segmentEnd;
+        writeFully(segment, recording.duplicate(), position);
+        // A entrada só pode chegar ao disco depois da gravação para que aponta
+        segment.force(false);
+
+        byte[] name = encodePlayerName(playerName);
+        entryBuffer.clear();
+        entryBuffer.putLong(sessionId).putLong(position).putInt(length).putInt(score);
+        entryBuffer.put((byte) name.length).put(name);
+        while (entryBuffer.hasRemaining()) {
+            entryBuffer.put((byte) 0);
+        }
+        entryBuffer.flip();
+        writeFully(index, entryBuffer, HEADER_SIZE + count * ENTRY_SIZE);
+
+        segmentEnd = position + length;
+        return count++;
+    }
+
+    /**
+     * Número de partidas no arquivo.
+     */
+    public synchronized long size() {
+        return count;
+    }
+
+    public ArchiveEntry getEntry(long id) throws IOException {
+        if (id < 0 || id >= size()) {
+            throw new IndexOutOfBoundsException("Partida inexistente no arquivo: " + id);
+        }
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+        readFully(index, entry, HEADER_SIZE + id * ENTRY_SIZE);
+        return decodeEntry(id, entry, 0);
+    }
+
+    /**
+     * A gravação de uma partida, mapeada do segmento (só de leitura).
+     */
+    public ByteBuffer getRecording(long id) throws IOException {
+        ArchiveEntry entry = getEntry(id);
+        return segment.map(FileChannel.MapMode.READ_ONLY, entry.position(), entry.length());
+    }
+
+    /**
+     * Percorre todas as partidas pela ordem do arquivo.
+     */
+    public void forEach(Visitor visitor) throws IOException {
+        forEach(0, size(), visitor);
+    }
+
+    /**
+     * Percorre as partidas com id em [from, to). Várias threads podem percorrer
+     * intervalos diferentes ao mesmo tempo.
+     */
+    public void forEach(long from, long to, Visitor visitor) throws IOException {
+        to = Math.min(to, size());
+        MappedByteBuffer window = null;
+        long windowStart = 0;
+        long windowEnd = 0;
+        for (long chunk = from; chunk < to; chunk += INDEX_WINDOW_ENTRIES) {
+            int entries = (int) Math.min(INDEX_WINDOW_ENTRIES, to - chunk);
+            MappedByteBuffer entryWindow = index.map(FileChannel.MapMode.READ_ONLY,
+                    HEADER_SIZE + chunk * ENTRY_SIZE, (long) entries * ENTRY_SIZE);
+            // O fim do segmento desta leva de partidas: a janela nunca passa dele
+            long chunkEnd = entryWindow.getLong((entries - 1) * ENTRY_SIZE + 8)
+                    + entryWindow.getInt((entries - 1) * ENTRY_SIZE + 16);
+            for (int i = 0; i < entries; i++) {
+                ArchiveEntry entry = decodeEntry(chunk + i, entryWindow, i * ENTRY_SIZE);
+                long start = entry.position();
+                long end = start + entry.length();
+                if (window == null || start < windowStart || end > windowEnd) {
+                    windowStart = start;
+                    windowEnd = Math.max(end, Math.min(chunkEnd, start + SEGMENT_WINDOW));
+                    window = segment.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+                }
+                visitor.visit(entry, window.slice((int) (start - windowStart), entry.length()).asReadOnlyBuffer());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            segment.close();
+        } finally {
+            index.close();
+        }
+    }
+
+    private static ArchiveEntry decodeEntry(long id, ByteBuffer buffer, int offset) {
+        long sessionId = buffer.getLong(offset);
+        long position = buffer.getLong(offset + 8);
+        int length = buffer.getInt(offset + 16);
+        int score = buffer.getInt(offset + 20);
+        int nameLength = Math.min(buffer.get(offset + 24) & 0xFF, MAX_PLAYER_BYTES);
+        byte[] name = new byte[nameLength];
+        buffer.get(offset + 25, name);
+        return new ArchiveEntry(id, sessionId, position, length, new String(name, StandardCharsets.UTF_8), score);
+    }
+
+    // Corta o nome ao limite de bytes sem partir um carácter UTF-8 a meio
+    private static byte[] encodePlayerName(String playerName) {
+        String name = playerName == null ? "" : playerName;
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        while (bytes.length > MAX_PLAYER_BYTES) {
+            name = name.substring(0, name.offsetByCodePoints(name.length(), -1));
+            bytes = name.getBytes(StandardCharsets.UTF_8);
+        }
+        return bytes;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Fim de ficheiro inesperado no arquivo de replays");
+            }
+            position += read;
+        }
+    }
+}
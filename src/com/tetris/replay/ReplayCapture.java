@@ -0,0 +1,74 @@
+package com.tetris.replay;
+
+import com.tetris.model.GameEngine;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Grava a partida em curso em memória, no mesmo formato do InputRecorder (ver
+ * ReplayFormat), para quem a guarda de outra forma, ex: num ReplayArchive.
+ * O buffer é reutilizado de partida para partida e só cresce.
+ */
+public class ReplayCapture implements GameEngine.InputListener {
+
+    private ByteBuffer buffer = ByteBuffer.allocate(4096);
+    private long lastTick;
+    private boolean started;
+    private boolean complete;
+
+    @Override
+    public void gameStarted(GameEngine engine, long seed) {
+        buffer.clear();
+        ReplayFormat.writeHeader(buffer, engine, seed, System.currentTimeMillis());
+        lastTick = 0;
+        started = true;
+        complete = false;
+    }
+
+    @Override
+    public void inputApplied(long tick, GameEngine.Input input) {
+        // Sem gameStarted (ex: partida retomada de uma gravação automática) não há o que gravar
+        if (started) {
+            writeEvent(tick, input.ordinal());
+        }
+    }
+
+    @Override
+    public void gameEnded(long tick) {
+        if (started) {
+            writeEvent(tick, ReplayFormat.END_OF_GAME);
+            complete = true;
+        }
+    }
+
+    private void writeEvent(long tick, int code) {
+        if (buffer.remaining() < ReplayFormat.MAX_EVENT_BYTES) {
+            ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+        ReplayFormat.writeVarint(buffer, ((tick - lastTick) << ReplayFormat.CODE_BITS) | code);
+        lastTick = tick;
+    }
+
+    /**
+     * A gravação da partida atual, só de leitura. Fica válida até ao próximo reset do engine.
+     */
+    public ByteBuffer getRecording() {
+        return buffer.asReadOnlyBuffer().flip();
+    }
+
+    /**
+     * Cópia da gravação da partida atual (ex: para entregar a outra thread).
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * Se a partida atual já terminou (a gravação tem a marca de fim).
+     */
+    public boolean isComplete() { return complete; }
+}
@@ -0,0 +1,84 @@
+package com.tetris.replay;
+
+import com.tetris.model.Board;
+import com.tetris.model.GameEngine;
+import com.tetris.model.PieceGenerator;
+import com.tetris.model.SevenBagGenerator;
+import com.tetris.model.UniformGenerator;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Formato binário das gravações de partidas.
+ *
+ * Cabeçalho:
+ * "TTRP" | versão do formato (1 byte) | versão das regras (varint) | largura (varint) |
+ * altura (varint) | tipo de gerador (1 byte) | semente (8 bytes) | início em ms desde 1970 (8 bytes)
+ *
+ * Eventos, um varint cada: {@code (ticks desde o evento anterior << 3) | código}, em que o
+ * código é o ordinal de GameEngine.Input. Um input no mesmo tick ou no seguinte ocupa 1 byte.
+ * O código 0 (NONE) marca o fim da partida, no tick em que ela acabou.
+ */
+final class ReplayFormat {
+
+    static final int MAGIC = 0x54545250; // "TTRP"
+    static final byte FORMAT_VERSION = 1;
+    static final int CODE_BITS = 3;
+    static final int CODE_MASK = (1 << CODE_BITS) - 1;
+    static final int END_OF_GAME = 0;
+
+    static final byte GENERATOR_SEVEN_BAG = 0;
+    static final byte GENERATOR_UNIFORM = 1;
+
+    // Limite de sanidade da altura lida de uma gravação: o Board aloca uma linha por unidade
+    static final int MAX_HEIGHT = 1 << 16;
+
+    // Pior caso de um evento: varint de 64 bits
+    static final int MAX_EVENT_BYTES = 10;
+    // Pior caso do cabeçalho: magic, versão, três varints de 32 bits, gerador, semente e início
+    static final int MAX_HEADER_BYTES = 4 + 1 + 3 * 5 + 1 + 8 + 8;
+
+    private ReplayFormat() {
+    }
+
+    static byte generatorKind(PieceGenerator generator) {
+        return generator instanceof UniformGenerator ? GENERATOR_UNIFORM : GENERATOR_SEVEN_BAG;
+    }
+
+    static PieceGenerator newGenerator(byte kind, long seed) {
+        return kind == GENERATOR_UNIFORM ? new UniformGenerator(seed) : new SevenBagGenerator(seed);
+    }
+
+    static void writeHeader(ByteBuffer buffer, GameEngine engine, long seed, long startMillis) {
+        Board board = engine.getBoard();
+        buffer.putInt(MAGIC);
+        buffer.put(FORMAT_VERSION);
+        writeVarint(buffer, GameEngine.RULES_VERSION);
+        writeVarint(buffer, board.getWidth());
+        writeVarint(buffer, board.getHeight());
+        buffer.put(generatorKind(board.getPieceGenerator()));
+        buffer.putLong(seed);
+        buffer.putLong(startMillis);
+    }
+
+    // Inteiro sem sinal em blocos de 7 bits (LEB128), o bit alto indica que há mais bytes
+    static void writeVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static long readVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Varint demasiado longo");
+    }
+}
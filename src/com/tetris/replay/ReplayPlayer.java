@@ -0,0 +1,138 @@
+package com.tetris.replay;
+
+import com.tetris.model.Board;
+import com.tetris.model.GameEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reproduz uma gravação re-simulando os inputs no GameEngine, a qualquer velocidade:
+ * quem chama decide quantos ticks avança de cada vez (um por frame, vários, ou até ao fim).
+ *
+ * Para saltar para qualquer tick sem voltar ao início, guarda um keyframe (uma cópia do
+ * Board) a cada {@code keyframeInterval} ticks, na primeira vez que a simulação lá passa.
+ * Um seek repõe o keyframe mais próximo antes do destino e simula só o resto, no máximo
+ * {@code keyframeInterval} ticks, por mais longa que seja a partida.
+ *
+ * O estado no tick t é o da partida depois de t ticks de gravidade e de todos os inputs
+ * gravados até ao tick t, inclusive.
+ */
+public class ReplayPlayer {
+
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 500;
+
+    private final Replay replay;
+    private final GameEngine engine;
+    private final Board board;
+    private final int keyframeInterval;
+    private final long length;
+
+    // Keyframe k é o estado no tick k * keyframeInterval; keyframeEvents[k] é o evento seguinte
+    private final List<Board> keyframes = new ArrayList<>();
+    private int[] keyframeEvents = new int[16];
+    private int eventIndex;
+    private boolean finished;
+
+    public ReplayPlayer(Replay replay) {
+        this(replay, DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    public ReplayPlayer(Replay replay, int keyframeInterval) {
+        if (!replay.isCompatible()) {
+            throw new IllegalArgumentException("Gravação feita com outra versão das regras: "
+                    + replay.getRulesVersion());
+        }
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException("Intervalo de keyframes inválido: " + keyframeInterval);
+        }
+        this.replay = replay;
+        this.keyframeInterval = keyframeInterval;
+        this.length = replay.getLength();
+        this.engine = replay.newEngine();
+        this.board = engine.getBoard();
+        simulateTo(0);
+    }
+
+    /**
+     * Avança a reprodução {@code ticks} ticks (até ao fim da gravação).
+     *
+     * @return false se a reprodução já tinha terminado
+     */
+    public boolean advance(long ticks) {
+        if (finished) {
+            return false;
+        }
+        simulateTo(getTick() + ticks);
+        return true;
+    }
+
+    /**
+     * Avança até ao fim da gravação sem limite de velocidade.
+     */
+    public void playToEnd() {
+        simulateTo(length);
+    }
+
+    /**
+     * Salta para um tick (limitado a [0, duração]), para a frente ou para trás.
+     */
+    public void seek(long tick) {
+        long target = Math.max(0, Math.min(tick, length));
+        int keyframe = (int) Math.min(target / keyframeInterval, keyframes.size() - 1);
+        long keyframeTick = (long) keyframe * keyframeInterval;
+        long current = getTick();
+        // Continua a partir do estado atual se ele estiver entre o keyframe e o destino
+        if (current > target || current < keyframeTick) {
+            engine.restore(keyframes.get(keyframe), keyframeTick);
+            eventIndex = keyframeEvents[keyframe];
+            finished = false;
+        }
+        simulateTo(target);
+    }
+
+    private void simulateTo(long target) {
+        target = Math.min(target, length);
+        while (true) {
+            long tick = engine.getTickCount();
+            while (eventIndex < replay.getEventCount() && replay.getEventTick(eventIndex) == tick) {
+                int code = replay.getEventCode(eventIndex++);
+                if (code != ReplayFormat.END_OF_GAME && !engine.step(code)) {
+                    throw new IllegalStateException("Gravação dessincronizada no tick " + tick);
+                }
+            }
+            if (tick % keyframeInterval == 0 && tick / keyframeInterval == keyframes.size()) {
+                addKeyframe();
+            }
+            if (tick >= length) {
+                finished = true;
+                return;
+            }
+            if (tick >= target) {
+                return;
+            }
+            if (!engine.tick()) {
+                throw new IllegalStateException("Gravação dessincronizada no tick " + tick);
+            }
+        }
+    }
+
+    private void addKeyframe() {
+        Board keyframe = new Board(board.getWidth(), board.getHeight());
+        keyframe.copyFrom(board);
+        int index = keyframes.size();
+        keyframes.add(keyframe);
+        if (index == keyframeEvents.length) {
+            keyframeEvents = Arrays.copyOf(keyframeEvents, index * 2);
+        }
+        keyframeEvents[index] = eventIndex;
+    }
+
+    public Replay getReplay() { return replay; }
+    public Board getBoard() { return board; }
+    public long getTick() { return engine.getTickCount(); }
+    public long getLength() { return length; }
+    public boolean isFinished() { return finished; }
+    public int getKeyframeCount() { return keyframes.size(); }
+}
@@ -1,6 +1,7 @@
 package com.tetris.view;
 
 import com.tetris.model.Board;
+import com.tetris.model.BoardSnapshot;
 import com.tetris.model.Piece;
 import com.tetris.model.Shape;
 import com.tetris.model.Theme;
@@ -19,7 +20,7 @@ import java.io.IOException;
  */
 public class BoardPanel extends JPanel {
 
-    private Board board;
+    private BoardSnapshot board; // Snapshot publicado pelo Board, nunca o Board mutável
     private Theme currentTheme;
     // Imagens das peças (mesmo índice do Shape.Tetrominoe.ordinal())
     private BufferedImage[] pieceImages;
@@ -28,9 +29,20 @@ public class BoardPanel extends JPanel {
     // Tamanho para o qual as imagens estão escaladas atualmente
     private int currentScaledSize;
 
+    // Tamanho do quadrado no tabuleiro padrão; o painel mantém sempre estas dimensões
+    private static final int DEFAULT_SQUARE_SIZE = 40;
+    private static final int PANEL_WIDTH = DEFAULT_SQUARE_SIZE * Board.BOARD_WIDTH;
+    private static final int PANEL_HEIGHT = DEFAULT_SQUARE_SIZE * Board.BOARD_HEIGHT;
+
+    // Janela visível do tabuleiro: em tabuleiros maiores que o padrão os quadrados encolhem
+    // para caber a largura, e só se desenham as linhas visíveis à volta da peça atual.
+    private int squareSize = DEFAULT_SQUARE_SIZE;
+    private int visibleRows = Board.BOARD_HEIGHT;
+    private int viewBottom = 0; // Primeira linha do tabuleiro visível (a de baixo)
+
     public BoardPanel() {
         this.currentTheme = Theme.AVAILABLE_THEMES[0];
-        setPreferredSize(new Dimension(getSquareSize() * Board.BOARD_WIDTH, getSquareSize() * Board.BOARD_HEIGHT));
+        setPreferredSize(new Dimension(PANEL_WIDTH, PANEL_HEIGHT));
         // Tenta carregar imagens das peças; se não existirem, cai para o desenho por cor
         loadPieceImages();
     }
@@ -71,8 +83,29 @@ public class BoardPanel extends JPanel {
         }
     }
 
-    public void updateBoard(Board board) {
+    public void updateBoard(BoardSnapshot board) {
         this.board = board;
+        if (board != null) {
+            squareSize = Math.max(1, Math.min(DEFAULT_SQUARE_SIZE, PANEL_WIDTH / board.getWidth()));
+            visibleRows = Math.min(board.getHeight(), PANEL_HEIGHT / squareSize);
+            updateViewBottom();
+        }
+    }
+
+    // Segue a peça atual quando o tabuleiro é mais alto do que a área visível
+    private void updateViewBottom() {
+        int maxBottom = board.getHeight() - visibleRows;
+        if (maxBottom <= 0) {
+            viewBottom = 0;
+            return;
+        }
+        int pieceY = board.getCurrentPiece().getY();
+        viewBottom = Math.max(0, Math.min(maxBottom, pieceY - visibleRows + 4));
+    }
+
+    // Converte uma linha do tabuleiro na coordenada y do ecrã
+    private int screenY(int row) {
+        return (viewBottom + visibleRows - 1 - row) * squareSize;
     }
 
     public void updateTheme(Theme theme) {
@@ -121,10 +154,12 @@ public class BoardPanel extends JPanel {
      * game over acontece (quando uma nova peça não consegue ser posicionada).
      */
     private void drawGameOverLine(Graphics g) {
-        int squareSize = getSquareSize();
         // Uma nova peça começa no topo + minY(); se não couber ali = game over
-        int gameOverY = Board.BOARD_HEIGHT - 2; // 2 blocos mais abaixo
-        int y = (Board.BOARD_HEIGHT - 1 - gameOverY) * squareSize;
+        int gameOverY = board.getHeight() - 2; // 2 blocos mais abaixo
+        if (gameOverY >= viewBottom + visibleRows) {
+            return;
+        }
+        int y = screenY(gameOverY);
 
         // Cria uma linha vermelha semi-transparente
         Color redLine = new Color(0xc8c7a8, true);
@@ -135,21 +170,23 @@ public class BoardPanel extends JPanel {
     private void drawGrid(Graphics g) {
         g.setColor(currentTheme.grid());
         int squareSize = getSquareSize();
-        for (int i = 0; i <= Board.BOARD_WIDTH; i++) {
+        for (int i = 0; i <= board.getWidth(); i++) {
             g.drawLine(i * squareSize, 0, i * squareSize, getHeight());
         }
-        for (int i = 0; i <= Board.BOARD_HEIGHT; i++) {
+        for (int i = 0; i <= visibleRows; i++) {
             g.drawLine(0, i * squareSize, getWidth(), i * squareSize);
         }
     }
 
     private void drawPlacedPieces(Graphics g) {
         int squareSize = getSquareSize();
-        for (int i = 0; i < Board.BOARD_HEIGHT; i++) {
-            for (int j = 0; j < Board.BOARD_WIDTH; j++) {
+        // Acima da pilha não há peças: só percorre as linhas visíveis que podem estar ocupadas
+        int top = Math.min(board.getStackHeight(), viewBottom + visibleRows);
+        for (int i = viewBottom; i < top; i++) {
+            for (int j = 0; j < board.getWidth(); j++) {
                 Shape.Tetrominoe shape = board.shapeAt(j, i);
                 if (shape != Shape.Tetrominoe.NoShape) {
-                    drawSquare(g, j * squareSize, (Board.BOARD_HEIGHT - 1 - i) * squareSize, shape, false);
+                    drawSquare(g, j * squareSize, screenY(i), shape, false);
                 }
             }
         }
@@ -162,8 +199,8 @@ public class BoardPanel extends JPanel {
             for (int i = 0; i < 4; i++) {
                 int x = currentPiece.getX() + currentPiece.x(i);
                 int y = currentPiece.getY() - currentPiece.y(i);
-                if (y < Board.BOARD_HEIGHT) {
-                    drawSquare(g, x * squareSize, (Board.BOARD_HEIGHT - 1 - y) * squareSize, currentPiece.getShape(), false);
+                if (y >= viewBottom && y < viewBottom + visibleRows) {
+                    drawSquare(g, x * squareSize, screenY(y), currentPiece.getShape(), false);
                 }
             }
         }
@@ -188,8 +225,8 @@ public class BoardPanel extends JPanel {
         for (int i = 0; i < 4; i++) {
             int x = currentPiece.getX() + currentPiece.x(i);
             int y = ghostY - currentPiece.y(i);
-             if (y < Board.BOARD_HEIGHT) {
-                drawSquare(g, x * squareSize, (Board.BOARD_HEIGHT - 1 - y) * squareSize, currentPiece.getShape(), true);
+            if (y >= viewBottom && y < viewBottom + visibleRows) {
+                drawSquare(g, x * squareSize, screenY(y), currentPiece.getShape(), true);
             }
         }
     }
@@ -271,7 +308,7 @@ public class BoardPanel extends JPanel {
     }
     
     private int getSquareSize() {
-        return 40;
+        return squareSize;
     }
 }
 
@@ -1,42 +1,65 @@
 package com.tetris.view;
 
 import com.tetris.db.Database;
+import com.tetris.db.GameSession;
 
 import javax.swing.*;
 import java.awt.BorderLayout;
+import java.awt.Component;
 import java.awt.Frame;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 /**
- * Diálogo simples que exibe o histórico de partidas retornado por Database.getGameHistory().
+ * Diálogo que exibe o histórico de partidas, da mais recente para a mais antiga.
+ *
+ * O histórico pode ter centenas de milhares de sessões, por isso não é lido de uma vez:
+ * as páginas vêm de Database.getHistoryPage numa thread de fundo, à medida que o
+ * jogador se aproxima do fim da lista. A JList só desenha as linhas visíveis (todas
+ * têm a mesma altura), por isso o custo de a mostrar não cresce com o histórico.
  */
 public class HistoryDialog extends JDialog {
 
+    private static final int PAGE_SIZE = 200;
+    // Pede a página seguinte quando faltam menos do que estas linhas para o fim da lista
+    private static final int PREFETCH_ROWS = 50;
+
+    private final DefaultListModel<GameSession> model = new DefaultListModel<>();
+    private JList<GameSession> list;
+    private JLabel status;
+    private long nextBeforeId = Long.MAX_VALUE;
+    private boolean loading;
+    private boolean exhausted;
+
     public HistoryDialog(Frame owner) {
         super(owner, "Histórico de Partidas", false);
         initComponents();
+        loadMoreIfNeeded();
     }
 
     private void initComponents() {
         setLayout(new BorderLayout());
 
-        List<String> history = Database.getGameHistory();
-
-        JTextArea textArea = new JTextArea();
-        textArea.setEditable(false);
-        if (history.isEmpty()) {
-            textArea.setText("Nenhuma partida registrada ainda.");
-        } else {
-            StringBuilder sb = new StringBuilder();
-            for (String line : history) {
-                sb.append(line).append('\n');
+        list = new JList<>(model);
+        list.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                return super.getListCellRendererComponent(list, ((GameSession) value).historyLine(), index,
+                        isSelected, cellHasFocus);
             }
-            textArea.setText(sb.toString());
-        }
+        });
+        // Altura fixa: a JList não precisa de medir cada linha do modelo
+        list.setPrototypeCellValue(new GameSession(0, "Jogador1", 999999, 99, 999, "2000-01-01 00:00:00"));
 
-        JScrollPane scroll = new JScrollPane(textArea);
+        JScrollPane scroll = new JScrollPane(list);
+        scroll.getViewport().addChangeListener(e -> loadMoreIfNeeded());
         add(scroll, BorderLayout.CENTER);
 
+        status = new JLabel(" ");
+        status.setBorder(BorderFactory.createEmptyBorder(2, 6, 2, 6));
+        add(status, BorderLayout.SOUTH);
+
         // Não roubar foco da janela principal — apenas visualização
         setFocusableWindowState(false);
         setAlwaysOnTop(true);
@@ -44,5 +67,48 @@ public class HistoryDialog extends JDialog {
         setSize(420, 300);
         setLocationRelativeTo(getOwner());
     }
+
+    // Chamado na EDT. No máximo uma página é pedida de cada vez.
+    private void loadMoreIfNeeded() {
+        if (loading || exhausted || model.size() - list.getLastVisibleIndex() > PREFETCH_ROWS) {
+            return;
+        }
+        loading = true;
+        status.setText("A carregar...");
+        long beforeId = nextBeforeId;
+        new SwingWorker<List<GameSession>, Void>() {
+            @Override
+            protected List<GameSession> doInBackground() {
+                return Database.getHistoryPage(beforeId, PAGE_SIZE);
+            }
+
+            @Override
+            protected void done() {
+                List<GameSession> page;
+                try {
+                    page = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    page = List.of();
+                }
+                loading = false;
+                exhausted = page.size() < PAGE_SIZE;
+                if (!page.isEmpty()) {
+                    nextBeforeId = page.get(page.size() - 1).id();
+                    model.addAll(page);
+                }
+                updateStatus();
+                // A janela pode ainda não estar cheia (ou o jogador já ter descido mais)
+                loadMoreIfNeeded();
+            }
+        }.execute();
+    }
+
+    private void updateStatus() {
+        if (model.isEmpty()) {
+            status.setText("Nenhuma partida registrada ainda.");
+        } else {
+            status.setText(model.size() + (exhausted ? " partidas" : "+ partidas"));
+        }
+    }
 }
 // EXCLUA ESTE ARQUIVO (HistoryDialog.java) DO SEU PROJETO.
\ No newline at end of file
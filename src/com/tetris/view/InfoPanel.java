@@ -1,6 +1,6 @@
 package com.tetris.view;
 
-import com.tetris.model.Board;
+import com.tetris.model.BoardSnapshot;
 import com.tetris.model.Piece;
 import com.tetris.model.Shape;
 import com.tetris.model.Theme;
@@ -22,7 +22,7 @@ public class InfoPanel extends JPanel {
     private static final int PANEL_WIDTH = 250;
     private static final int SQUARE_PREVIEW_SIZE = 20;
 
-    private Board board;
+    private BoardSnapshot board; // Snapshot publicado pelo Board, nunca o Board mutável
     private Theme currentTheme;
     private JButton pauseButton;
     private BufferedImage pauseIcon;
@@ -36,7 +36,8 @@ public class InfoPanel extends JPanel {
         "Z ROTACIONAR",
         "ESPAÇO SOLTAR",
         "P PAUSAR",
-        "G SOMBRA"
+        "G SOMBRA",
+        "A AUTOMÁTICO"
     };
 
     public InfoPanel() {
@@ -88,7 +89,7 @@ public class InfoPanel extends JPanel {
         }
     }
 
-    public void updateInfo(Board board) {
+    public void updateInfo(BoardSnapshot board) {
         this.board = board;
         if (pauseButton != null) {
             pauseButton.setVisible(board != null && board.isStarted());
@@ -1,7 +1,7 @@
 package com.tetris.view;
 
 import com.tetris.controller.GameController;
-import com.tetris.model.Board;
+import com.tetris.model.BoardSnapshot;
 import com.tetris.model.Theme;
 import javax.swing.JPanel;
 import javax.swing.JButton;
@@ -22,7 +22,7 @@ import java.io.IOException;
  */
 public class OverlayPanel extends JPanel {
 
-    private Board board;
+    private BoardSnapshot board; // Snapshot publicado pelo Board, nunca o Board mutável
     private GameController controller;
     // Fonte padrão usada para instruções e controles (mesma do "Pressione ENTER para Jogar")
     private Font uiFont = new Font("Consolas", Font.BOLD, 15);
@@ -37,6 +37,14 @@ public class OverlayPanel extends JPanel {
     private int enterRectOffsetFromCenter = -50; // deslocamento vertical relativo ao centro (positivo desce, negativo sobe)
     private javax.swing.JTextField nameField;
     private int nameFieldYOffset = 5;
+    // Últimas partidas mostradas no ecrã de pausa, lidas em segundo plano quando a pausa começa
+    private static final int PAUSED_HISTORY_LINES = 6;
+    private java.util.List<com.tetris.db.GameSession> recentGames = java.util.List.of();
+    private boolean showingPaused;
+    // Dica de perfect clear (tecla H): mensagem e passo da solução em cada célula ([y][x], 0 = já ocupada)
+    private static final int HINT_CELL = 18;
+    private String perfectClearMessage;
+    private int[][] perfectClearSteps;
 
     public OverlayPanel() {
         setOpaque(false); // Torna o painel transparente
@@ -237,9 +245,14 @@ public class OverlayPanel extends JPanel {
         startButton.setBounds(buttonX, buttonY, buttonW, buttonH);
     }
 
-    public void updateBoard(Board board) {
+    public void updateBoard(BoardSnapshot board) {
         this.board = board;
         boolean showMenu = (board != null && !board.isStarted());
+        boolean paused = board != null && board.isStarted() && !board.isGameOver() && board.isPaused();
+        if (paused && !showingPaused) {
+            loadRecentGames();
+        }
+        showingPaused = paused;
         
         if (nameField != null) {
             nameField.setVisible(showMenu);
@@ -259,6 +272,44 @@ public class OverlayPanel extends JPanel {
         }
     }
 
+    /**
+     * Mostra a dica de perfect clear no canto do tabuleiro: a mensagem e, se houver
+     * solução, as linhas de baixo com o número da peça que preenche cada célula.
+     */
+    public void showPerfectClearHint(String message, int[][] steps) {
+        this.perfectClearMessage = message;
+        this.perfectClearSteps = steps;
+        repaint();
+    }
+
+    public void clearPerfectClearHint() {
+        if (perfectClearMessage != null) {
+            perfectClearMessage = null;
+            perfectClearSteps = null;
+            repaint();
+        }
+    }
+
+    // Lê as últimas partidas fora da EDT: o ecrã de pausa é redesenhado a cada tick
+    private void loadRecentGames() {
+        new javax.swing.SwingWorker<java.util.List<com.tetris.db.GameSession>, Void>() {
+            @Override
+            protected java.util.List<com.tetris.db.GameSession> doInBackground() {
+                return com.tetris.db.Database.getHistoryPage(Long.MAX_VALUE, PAUSED_HISTORY_LINES);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    recentGames = get();
+                    repaint();
+                } catch (InterruptedException | java.util.concurrent.ExecutionException e) {
+                    // Fica a lista anterior
+                }
+            }
+        }.execute();
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
@@ -274,6 +325,8 @@ public class OverlayPanel extends JPanel {
             drawGameOver(g);
         } else if (board.isPaused()) {
             drawPaused(g);
+        } else if (perfectClearMessage != null) {
+            drawPerfectClearHint(g);
         }
     }
 
@@ -384,7 +437,6 @@ public class OverlayPanel extends JPanel {
         g.fillRect(x + recordPanelWidth, y, ob, recordPanelHeight);
 
         // Lista os records
-        java.util.List<String> history = com.tetris.db.Database.getGameHistory();
         g.setFont(new Font("Consolas", Font.PLAIN, 14));
         int lineHeight = g.getFontMetrics().getHeight();
         
@@ -402,11 +454,11 @@ public class OverlayPanel extends JPanel {
         
         // Lista as pontuações
         g.setFont(new Font("Consolas", Font.PLAIN, 14));
-        int maxLines = 6; // Reduzido para 6, para caber com título e margens
+        int maxLines = PAUSED_HISTORY_LINES; // Reduzido para 6, para caber com título e margens
         int count = 0;
-        for (String score : history) {
+        for (com.tetris.db.GameSession session : recentGames) {
             if (count >= maxLines) break;
-            g.drawString(score, textX, textY);
+            g.drawString(session.historyLine(), textX, textY);
             textY += lineHeight;
             count++;
         }
@@ -418,6 +470,51 @@ public class OverlayPanel extends JPanel {
         g.drawString("Pressione P para continuar", getWidth() / 2 - 125, bottomTextY);
     }
 
+    private void drawPerfectClearHint(Graphics g) {
+        g.setFont(new Font("Consolas", Font.BOLD, 14));
+        java.awt.FontMetrics fm = g.getFontMetrics();
+        int rows = perfectClearSteps == null ? 0 : perfectClearSteps.length;
+        int cols = rows == 0 ? 0 : perfectClearSteps[0].length;
+        int padding = 8;
+        int boxW = Math.max(fm.stringWidth(perfectClearMessage), cols * HINT_CELL) + padding * 2;
+        int boxH = fm.getHeight() + padding * 2 + (rows == 0 ? 0 : rows * HINT_CELL + padding);
+        int x = 10;
+        int y = 10;
+
+        g.setColor(UIConstants.OUTER_BORDER_COLOR);
+        int ob = UIConstants.OUTER_BORDER_WIDTH;
+        g.fillRect(x - ob, y - ob, boxW + ob * 2, boxH + ob * 2);
+        g.setColor(UIConstants.BORDER_COLOR);
+        g.fillRect(x, y, boxW, boxH);
+        g.setColor(UIConstants.BOX_BG);
+        g.fillRect(x + 2, y + 2, boxW - 4, boxH - 4);
+
+        g.setColor(UIConstants.BORDER_COLOR);
+        g.drawString(perfectClearMessage, x + padding, y + padding + fm.getAscent());
+
+        // Grelha das linhas de baixo: a linha 0 do tabuleiro fica em baixo, como no jogo
+        g.setFont(new Font("Consolas", Font.PLAIN, 10));
+        java.awt.FontMetrics small = g.getFontMetrics();
+        int gridY = y + padding * 2 + fm.getHeight();
+        for (int row = 0; row < rows; row++) {
+            int cellY = gridY + (rows - 1 - row) * HINT_CELL;
+            for (int col = 0; col < cols; col++) {
+                int cellX = x + padding + col * HINT_CELL;
+                int step = perfectClearSteps[row][col];
+                if (step == 0) {
+                    g.setColor(UIConstants.BORDER_COLOR);
+                    g.fillRect(cellX, cellY, HINT_CELL - 1, HINT_CELL - 1);
+                } else {
+                    g.setColor(UIConstants.BORDER_COLOR);
+                    g.drawRect(cellX, cellY, HINT_CELL - 2, HINT_CELL - 2);
+                    String label = Integer.toString(step);
+                    g.drawString(label, cellX + (HINT_CELL - 1 - small.stringWidth(label)) / 2,
+                            cellY + (HINT_CELL - 1 + small.getAscent()) / 2 - 1);
+                }
+            }
+        }
+    }
+
 
 }
 
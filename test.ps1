@@ -0,0 +1,27 @@
+# Corre os testes (JUnit 4, em lib/) sobre o código de src/.
+
+# 1. Compila o código e os testes para uma pasta à parte (bin/ fica para o jogo)
+Write-Host "Compilando código-fonte e testes..."
+if (Test-Path -Path "bin-test") {
+    Remove-Item -Path "bin-test" -Recurse -Force -ErrorAction SilentlyContinue
+}
+New-Item -ItemType Directory -Path "bin-test" -Force | Out-Null
+$sourcesList = "$PWD\test-sources.txt"
+Get-ChildItem -Path "src", "test" -Filter "*.java" -Recurse | ForEach-Object { '"' + $_.FullName + '"' } |
+    Out-File -FilePath $sourcesList -Encoding ascii
+javac -encoding UTF-8 -d bin-test -cp "lib/junit-4.13.2.jar" "@$sourcesList"
+Remove-Item $sourcesList -Force -ErrorAction SilentlyContinue
+
+if ($LASTEXITCODE -ne 0) {
+    Write-Host "----------------------------------------"
+    Write-Host "ERRO: Falha na compilação."
+    Write-Host "----------------------------------------"
+    exit 1
+}
+
+# 2. Executa todas as classes *Test da pasta test/
+$testRoot = (Resolve-Path "test").Path
+$testClasses = Get-ChildItem -Path "test" -Filter "*Test.java" -Recurse | ForEach-Object {
+    $_.FullName.Substring($testRoot.Length + 1).Replace(".java", "").Replace("\", ".").Replace("/", ".")
+}
+java -cp "bin-test;lib/junit-4.13.2.jar;lib/hamcrest-core-1.3.jar" org.junit.runner.JUnitCore $testClasses
@@ -0,0 +1,20 @@
+#!/bin/bash
+
+# Corre os testes (JUnit 4, em lib/) sobre o código de src/.
+
+# 1. Compila o código e os testes para uma pasta à parte (bin/ fica para o jogo)
+echo "Compilando código-fonte e testes..."
+rm -rf bin-test
+mkdir bin-test
+javac -encoding UTF-8 -d bin-test -cp "lib/junit-4.13.2.jar" $(find src test -name "*.java")
+
+if [ $? -ne 0 ]; then
+    echo "----------------------------------------"
+    echo "ERRO: Falha na compilação."
+    echo "----------------------------------------"
+    exit 1
+fi
+
+# 2. Executa todas as classes *Test da pasta test/
+TEST_CLASSES=$(cd test && find . -name "*Test.java" | sed -e 's|^\./||' -e 's|\.java$||' -e 's|/|.|g' | sort)
+java -cp "bin-test:lib/junit-4.13.2.jar:lib/hamcrest-core-1.3.jar" org.junit.runner.JUnitCore $TEST_CLASSES
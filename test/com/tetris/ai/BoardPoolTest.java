@@ -0,0 +1,125 @@
+package com.tetris.ai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.tetris.model.Board;
+import com.tetris.model.BoardFeatures;
+import com.tetris.model.Shape;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Boards reutilizados pelo BoardPool (e preenchidos com copyFrom) depois de uma
+ * continuação comparados com um Board novo que jogou as mesmas peças desde o início.
+ */
+public class BoardPoolTest {
+
+    @Test
+    public void reusedBoardMatchesFreshBoardAfterRollout() {
+        for (long seed = 1; seed <= 20; seed++) {
+            Board source = new Board();
+            source.start(seed);
+            playRandomDrops(source, new Random(seed), 30);
+            Board fresh = new Board();
+            fresh.start(seed);
+            playRandomDrops(fresh, new Random(seed), 30);
+
+            BoardPool pool = new BoardPool(Board.BOARD_WIDTH, Board.BOARD_HEIGHT);
+            // Continuações até ao fim de jogo, com outras peças, nos Boards do pool
+            Board rollout = pool.acquire(source);
+            Board scratch = pool.acquire(source);
+            rollout.getPieceGenerator().reset(seed * 31);
+            playRandomDrops(rollout, new Random(seed * 17), 1000);
+            assertTrue(rollout.isGameOver());
+            playRandomDrops(scratch, new Random(seed * 13), 10);
+            pool.release(scratch);
+            pool.release(rollout);
+
+            Board reused = pool.acquire(source);
+            assertTrue(reused == rollout || reused == scratch);
+            assertSameBoard("semente " + seed, fresh, reused);
+
+            // O gerador também foi copiado: as peças seguintes são as mesmas
+            Random moves = new Random(seed + 1000);
+            Random sameMoves = new Random(seed + 1000);
+            for (int i = 0; i < 40 && !fresh.isGameOver(); i++) {
+                playRandomDrops(fresh, moves, 1);
+                playRandomDrops(reused, sameMoves, 1);
+                assertSameBoard("semente " + seed + ", peça " + i, fresh, reused);
+            }
+        }
+    }
+
+    @Test
+    public void rolloutsLeaveTheBoardUnchanged() {
+        RolloutEvaluator rollouts = new RolloutEvaluator(Board.BOARD_WIDTH, Board.BOARD_HEIGHT,
+                new HeuristicEvaluator(), 4, 3, RolloutEvaluator.Policy.RANDOM, null);
+        Board board = new Board();
+        board.start(5);
+        Board fresh = new Board();
+        fresh.start(5);
+        Random random = new Random(5);
+        Random sameRandom = new Random(5);
+        for (int move = 0; move < 20 && !board.isGameOver(); move++) {
+            long before = rollouts.getTotalRollouts();
+            assertTrue(rollouts.decide(board));
+            assertTrue(rollouts.getTotalRollouts() > before);
+            assertSameBoard("jogada " + move, fresh, board);
+            playRandomDrops(board, random, 1);
+            playRandomDrops(fresh, sameRandom, 1);
+        }
+    }
+
+    // Larga count peças a direito, numa rotação e coluna ao acaso entre as que cabem
+    private static void playRandomDrops(Board board, Random random, int count) {
+        for (int i = 0; i < count && !board.isGameOver(); i++) {
+            Shape.Tetrominoe shape = board.getCurrentPiece().getShape();
+            int rotation = -1, x = 0, y = 0;
+            for (int attempt = 0; attempt < 64 && rotation < 0; attempt++) {
+                int r = random.nextInt(Shape.rotationCount(shape));
+                int cx = random.nextInt(board.getWidth() + 4) - 2;
+                int cy = board.getDropY(r, cx);
+                if (cy != Integer.MIN_VALUE) {
+                    rotation = r;
+                    x = cx;
+                    y = cy;
+                }
+            }
+            if (rotation < 0) {
+                board.dropDown();
+            } else {
+                board.placeCurrentPiece(rotation, x, y);
+            }
+        }
+    }
+
+    private static void assertSameBoard(String context, Board expected, Board actual) {
+        assertEquals(context, expected.isGameOver(), actual.isGameOver());
+        assertEquals(context, expected.getScore(), actual.getScore());
+        assertEquals(context, expected.getLevel(), actual.getLevel());
+        assertEquals(context, expected.getLinesCleared(), actual.getLinesCleared());
+        assertEquals(context, expected.getStackHeight(), actual.getStackHeight());
+        assertEquals(context, expected.getZobristHash(), actual.getZobristHash());
+        assertTrue(context, expected.stateEquals(actual));
+        assertEquals(context, expected.getNextPiece().getShape(), actual.getNextPiece().getShape());
+        for (int x = 0; x < expected.getWidth(); x++) {
+            assertEquals(context, expected.getColumnHeight(x), actual.getColumnHeight(x));
+        }
+        for (int y = 0; y < expected.getHeight(); y++) {
+            assertEquals(context + ", linha " + y, expected.getRow(y), actual.getRow(y));
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(context, expected.shapeAt(x, y), actual.shapeAt(x, y));
+            }
+        }
+        BoardFeatures a = expected.getFeatures(), b = actual.getFeatures();
+        assertEquals(context, a.getFilledCells(), b.getFilledCells());
+        assertEquals(context, a.getAggregateHeight(), b.getAggregateHeight());
+        assertEquals(context, a.getRowTransitions(), b.getRowTransitions());
+        assertEquals(context, a.getColumnTransitions(), b.getColumnTransitions());
+        assertEquals(context, a.getBumpiness(), b.getBumpiness());
+        assertEquals(context, a.getWells(), b.getWells());
+        assertFalse(context, actual.isPaused());
+    }
+}
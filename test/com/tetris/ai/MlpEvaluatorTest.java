@@ -0,0 +1,180 @@
+package com.tetris.ai;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.tetris.model.Board;
+import com.tetris.model.GameEngine;
+import com.tetris.model.MoveGenerator;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Inferência em lote do MlpEvaluator comparada com a de um tabuleiro de cada vez,
+ * ida e volta do ficheiro de pesos e a escolha do MlpPlayer.
+ */
+public class MlpEvaluatorTest {
+
+    private static final int[] LAYERS = {MlpEvaluator.inputSize(Board.BOARD_WIDTH), 16, 8, 1};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void batchMatchesOneBoardAtATime() {
+        MlpEvaluator network = new MlpEvaluator(LAYERS, 3);
+        MlpEvaluator single = network.copy();
+        MoveGenerator generator = new MoveGenerator(Board.BOARD_WIDTH, Board.BOARD_HEIGHT);
+        Board scratch = new Board();
+        int inputSize = network.getInputSize();
+        for (long seed = 1; seed <= 10; seed++) {
+            Random random = new Random(seed);
+            Board board = new Board();
+            board.start(seed);
+            for (int move = 0; move < 30 && !board.isGameOver(); move++) {
+                int count = generator.generate(board);
+                // Lotes de todos os tamanhos até count: as quatro linhas de cada vez e o resto
+                float[] inputs = new float[count * inputSize];
+                float[] expected = new float[count];
+                for (int i = 0; i < count; i++) {
+                    scratch.copyFrom(board);
+                    int y = generator.getY(i);
+                    scratch.placeCurrentPiece(generator.getRotation(i), generator.getX(i), y);
+                    int lines = scratch.getLinesCleared() - board.getLinesCleared();
+                    MlpEvaluator.encode(scratch, lines, y, inputs, i * inputSize);
+                    expected[i] = scratch.isGameOver()
+                            ? Float.NEGATIVE_INFINITY : single.evaluate(scratch, lines, y);
+                }
+                for (int batch = 1; batch <= count; batch++) {
+                    float[] scores = new float[batch];
+                    network.evaluateBatch(inputs, batch, scores);
+                    for (int i = 0; i < batch; i++) {
+                        if (expected[i] != Float.NEGATIVE_INFINITY) {
+                            assertEquals("semente " + seed + ", lote " + batch, expected[i], scores[i], 0f);
+                        }
+                    }
+                }
+                if (count == 0) {
+                    board.dropDown();
+                } else {
+                    int i = random.nextInt(count);
+                    board.placeCurrentPiece(generator.getRotation(i), generator.getX(i), generator.getY(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void weightsSurviveSaveAndLoad() throws IOException {
+        MlpEvaluator network = new MlpEvaluator(LAYERS, 11);
+        Path file = folder.getRoot().toPath().resolve("rede.mlp");
+        network.save(file);
+        MlpEvaluator loaded = MlpEvaluator.load(file);
+        assertEquals(network.getInputSize(), loaded.getInputSize());
+
+        // Os mesmos bytes ao gravar de novo e as mesmas notas
+        Path again = folder.getRoot().toPath().resolve("outra.mlp");
+        loaded.save(again);
+        assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(again));
+        Random random = new Random(11);
+        int batch = 9;
+        float[] inputs = new float[batch * network.getInputSize()];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = random.nextFloat();
+        }
+        float[] expected = new float[batch];
+        float[] actual = new float[batch];
+        network.evaluateBatch(inputs, batch, expected);
+        loaded.evaluateBatch(inputs, batch, actual);
+        assertArrayEquals(expected, actual, 0f);
+    }
+
+    @Test
+    public void corruptWeightFilesAreRejected() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("rede.mlp");
+        new MlpEvaluator(LAYERS, 5).save(file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        byte[] badMagic = bytes.clone();
+        badMagic[0] ^= 1;
+        assertLoadFails(file, badMagic);
+        byte[] badVersion = bytes.clone();
+        badVersion[7] = 9;
+        assertLoadFails(file, badVersion);
+        assertLoadFails(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertLoadFails(file, Arrays.copyOf(bytes, bytes.length + 1));
+    }
+
+    @Test
+    public void invalidLayerSizesAreRejected() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("rede.mlp");
+        new MlpEvaluator(LAYERS, 5).save(file);
+        byte[] bytes = Files.readAllBytes(file);
+        // Cabeçalho: magic, versão e número de camadas; os tamanhos começam no byte 12
+        assertLoadFails(file, withInt(bytes, 12, -3));
+        assertLoadFails(file, withInt(bytes, 12, 0));
+        assertLoadFails(file, withInt(withInt(bytes, 16, 1 << 30), 20, 1 << 30));
+        assertLoadFails(file, withInt(bytes, 12, Integer.MAX_VALUE));
+        // Várias saídas
+        assertLoadFails(file, withInt(bytes, 12 + 4 * (LAYERS.length - 1), 2));
+    }
+
+    @Test
+    public void playerPicksTheBestScoringPlacement() {
+        MlpEvaluator network = new MlpEvaluator(LAYERS, 7);
+        MlpPlayer player = new MlpPlayer(Board.BOARD_WIDTH, Board.BOARD_HEIGHT, network.copy());
+        MoveGenerator generator = new MoveGenerator(Board.BOARD_WIDTH, Board.BOARD_HEIGHT);
+        Board board = new Board();
+        board.start(7);
+        Board scratch = new Board();
+        GameEngine engine = new GameEngine(scratch);
+        for (int move = 0; move < 40 && !board.isGameOver(); move++) {
+            int count = generator.generate(board);
+            float best = Float.NEGATIVE_INFINITY;
+            for (int i = 0; i < count; i++) {
+                scratch.copyFrom(board);
+                int y = generator.getY(i);
+                scratch.placeCurrentPiece(generator.getRotation(i), generator.getX(i), y);
+                best = Math.max(best, network.evaluate(scratch, scratch.getLinesCleared() - board.getLinesCleared(), y));
+            }
+
+            assertTrue(player.decide(board));
+            scratch.copyFrom(board);
+            for (int k = 0; k < player.getPathLength(); k++) {
+                assertTrue(engine.step(player.getPathInput(k)));
+            }
+            int y = scratch.getCurrentPiece().getY();
+            engine.step(GameEngine.Input.HARD_DROP);
+            if (best != Float.NEGATIVE_INFINITY) {
+                assertEquals("jogada " + move, best,
+                        network.evaluate(scratch, scratch.getLinesCleared() - board.getLinesCleared(), y), 0f);
+            }
+            board.copyFrom(scratch);
+        }
+    }
+
+    private static byte[] withInt(byte[] bytes, int offset, int value) {
+        byte[] copy = bytes.clone();
+        ByteBuffer.wrap(copy).putInt(offset, value);
+        return copy;
+    }
+
+    private static void assertLoadFails(Path file, byte[] contents) throws IOException {
+        Files.write(file, contents);
+        try {
+            MlpEvaluator.load(file);
+            fail("ficheiro de pesos inválido aceite");
+        } catch (IOException expected) {
+            // EOFException no ficheiro cortado
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package com.tetris.ai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.tetris.model.Board;
+import com.tetris.model.MoveGenerator;
+import com.tetris.model.PieceGenerator;
+import com.tetris.model.Shape;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * O PerfectClearSolver em tabuleiros montados à mão (com e sem perfect clear), contra
+ * uma pesquisa exaustiva sem memorização nem podas em tabuleiros de 4 colunas, e com
+ * filas ao acaso num tabuleiro vazio de 10 colunas (4 linhas), que têm de responder
+ * dentro do limite de nós.
+ */
+public class PerfectClearSolverTest {
+
+    private static final Shape.Tetrominoe I = Shape.Tetrominoe.LineShape;
+    private static final Shape.Tetrominoe O = Shape.Tetrominoe.SquareShape;
+    private static final Shape.Tetrominoe[] SHAPES = Arrays.stream(Shape.Tetrominoe.values())
+            .filter(shape -> shape != Shape.Tetrominoe.NoShape).toArray(Shape.Tetrominoe[]::new);
+
+    @Test
+    public void wellOfFourIsClearedByOneLinePiece() {
+        Board board = wellBoard(9);
+        PerfectClearSolver solver = new PerfectClearSolver(Board.BOARD_WIDTH);
+        assertTrue(solver.solve(board, new Shape.Tetrominoe[] {I}, 1));
+        assertEquals(1, solver.getSolutionLength());
+        assertEquals(4, solver.getTargetHeight());
+        assertSolutionClearsBoard(board, solver);
+    }
+
+    @Test
+    public void wellOfFourHasNoPerfectClearWithSquares() {
+        Board board = wellBoard(9);
+        PerfectClearSolver solver = new PerfectClearSolver(Board.BOARD_WIDTH);
+        Shape.Tetrominoe[] squares = new Shape.Tetrominoe[10];
+        Arrays.fill(squares, O);
+        assertFalse(solver.solve(board, squares, squares.length));
+        assertEquals(0, solver.getSolutionLength());
+    }
+
+    @Test
+    public void twoSeparateWellsNeedTwoLinePieces() {
+        // Colunas 2 e 7 vazias: 8 células vazias, mas cada poço só aceita um I vertical
+        Board board = boardWithVerticalLines(new int[] {0, 1, 3, 4, 5, 6, 8, 9});
+        PerfectClearSolver solver = new PerfectClearSolver(Board.BOARD_WIDTH);
+        assertTrue(solver.solve(board, new Shape.Tetrominoe[] {I, I}, 2));
+        assertSolutionClearsBoard(board, solver);
+        assertFalse(solver.solve(board, new Shape.Tetrominoe[] {I, O}, 2));
+        assertFalse(solver.solve(board, new Shape.Tetrominoe[] {I}, 1));
+    }
+
+    @Test
+    public void emptyBoardIsClearedByTenVerticalLines() {
+        Board board = new Board();
+        board.setPieceGenerator(new SequenceGenerator(I));
+        board.start(0);
+        PerfectClearSolver solver = new PerfectClearSolver(Board.BOARD_WIDTH);
+        assertTrue(solver.solve(board));
+        assertEquals(10, solver.getSolutionLength());
+        assertSolutionClearsBoard(board, solver);
+    }
+
+    @Test
+    public void stackAboveMaxHeightHasNoPerfectClear() {
+        Board board = wellBoard(9);
+        PerfectClearSolver solver = new PerfectClearSolver(Board.BOARD_WIDTH, 3);
+        assertFalse(solver.solve(board, new Shape.Tetrominoe[] {I}, 1));
+    }
+
+    @Test
+    public void narrowBoardsMatchExhaustiveSearch() {
+        int width = Board.MIN_SIZE;
+        PerfectClearSolver solver = new PerfectClearSolver(width);
+        MoveGenerator generator = new MoveGenerator(width, 12);
+        Random random = new Random(3);
+        int found = 0;
+        for (int game = 0; game < 300; game++) {
+            Board board = new Board(width, 12);
+            board.setPieceGenerator(new SequenceGenerator(randomQueue(random, 16)));
+            board.start(0);
+            // Algumas peças a direito para sujar o fundo, sem passar das linhas da pesquisa
+            int drops = random.nextInt(4);
+            for (int i = 0; i < drops && !board.isGameOver(); i++) {
+                dropRandomly(board, random);
+            }
+            if (board.isGameOver() || board.getStackHeight() > PerfectClearSolver.DEFAULT_MAX_HEIGHT) {
+                continue;
+            }
+            boolean solved = solver.solve(board);
+            assertFalse(solver.isNodeLimitReached());
+            assertEquals("partida " + game, exhaustiveSearch(board, generator), solved);
+            if (solved) {
+                found++;
+                assertSolutionClearsBoard(board, solver);
+                assertReachable(board, solver, generator);
+            }
+        }
+        assertTrue(found > 20);
+    }
+
+    @Test
+    public void randomQueuesOnEmptyBoardAnswerQuickly() {
+        PerfectClearSolver solver = new PerfectClearSolver(Board.BOARD_WIDTH);
+        MoveGenerator generator = new MoveGenerator(Board.BOARD_WIDTH, Board.BOARD_HEIGHT);
+        Random random = new Random(17);
+        int found = 0;
+        long worstNanos = 0;
+        for (int query = 0; query < 30; query++) {
+            Board board = new Board();
+            board.setPieceGenerator(new SequenceGenerator(randomQueue(random, 12)));
+            board.start(0);
+            long start = System.nanoTime();
+            boolean solved = solver.solve(board);
+            worstNanos = Math.max(worstNanos, System.nanoTime() - start);
+            if (solved) {
+                found++;
+                assertFalse(solver.isNodeLimitReached());
+                assertSolutionClearsBoard(board, solver);
+                assertReachable(board, solver, generator);
+            }
+        }
+        assertTrue("com perfect clear: " + found, found > 5);
+        // Margem larga para máquinas lentas: o limite de nós dá cerca de meio segundo
+        assertTrue("pergunta mais lenta: " + worstNanos / 1_000_000 + " ms", worstNanos < 3_000_000_000L);
+    }
+
+    @Test
+    public void nodeLimitStopsTheSearch() {
+        PerfectClearSolver solver = new PerfectClearSolver(Board.BOARD_WIDTH);
+        solver.setNodeLimit(50);
+        Board board = new Board();
+        board.setPieceGenerator(new SequenceGenerator(O, Shape.Tetrominoe.SShape, Shape.Tetrominoe.ZShape));
+        board.start(0);
+        assertFalse(solver.solve(board));
+        assertTrue(solver.isNodeLimitReached());
+        // Sem limite, a mesma fila dá uma resposta definitiva
+        solver.setNodeLimit(Long.MAX_VALUE);
+        solver.solve(board);
+        assertFalse(solver.isNodeLimitReached());
+    }
+
+    // Poço de 4 linhas na coluna wellX: as outras colunas cheias com I verticais
+    private static Board wellBoard(int wellX) {
+        int[] columns = new int[Board.BOARD_WIDTH - 1];
+        for (int x = 0, i = 0; x < Board.BOARD_WIDTH; x++) {
+            if (x != wellX) columns[i++] = x;
+        }
+        return boardWithVerticalLines(columns);
+    }
+
+    private static Board boardWithVerticalLines(int[] columns) {
+        Board board = new Board();
+        board.setPieceGenerator(new SequenceGenerator(I));
+        board.start(0);
+        int rotation = verticalRotation();
+        for (int x : columns) {
+            int state = Shape.state(I, rotation);
+            int pieceX = x - Shape.minX(state);
+            assertTrue(board.placeCurrentPiece(rotation, pieceX, board.getDropY(rotation, pieceX)));
+        }
+        assertEquals(4, board.getStackHeight());
+        return board;
+    }
+
+    private static int verticalRotation() {
+        for (int rotation = 0; rotation < Shape.rotationCount(I); rotation++) {
+            if (Shape.width(Shape.state(I, rotation)) == 1) return rotation;
+        }
+        throw new AssertionError("I sem rotação vertical");
+    }
+
+    // Aplica a solução num Board de verdade: tem de ficar vazio depois da última peça
+    private static void assertSolutionClearsBoard(Board board, PerfectClearSolver solver) {
+        for (int step = 1; step < solver.getSolutionLength(); step++) {
+            assertTrue(placeOnCopy(board, solver, step).getStackHeight() <= solver.getTargetHeight());
+        }
+        Board done = placeOnCopy(board, solver, solver.getSolutionLength());
+        assertEquals(0, done.getStackHeight());
+        assertEquals(solver.getTargetHeight(), done.getLinesCleared() - board.getLinesCleared());
+        // Cada célula vazia das linhas alvo é preenchida por exatamente uma peça
+        int[][] steps = solver.getSolutionSteps();
+        int[] cells = new int[solver.getSolutionLength() + 1];
+        for (int y = 0; y < solver.getTargetHeight(); y++) {
+            for (int x = 0; x < board.getWidth(); x++) {
+                boolean filled = (board.getRow(y) >>> x & 1) != 0;
+                assertEquals(filled, steps[y][x] == 0);
+                cells[steps[y][x]]++;
+            }
+        }
+        for (int step = 1; step <= solver.getSolutionLength(); step++) {
+            assertEquals(4, cells[step]);
+        }
+    }
+
+    // O Board com as primeiras count peças da solução colocadas, cada uma a ser a peça atual
+    private static Board placeOnCopy(Board board, PerfectClearSolver solver, int count) {
+        Board copy = new Board(board.getWidth(), board.getHeight());
+        copy.copyFrom(board);
+        for (int step = 0; step < count; step++) {
+            assertEquals(solver.getShape(step), copy.getCurrentPiece().getShape());
+            assertTrue(copy.placeCurrentPiece(solver.getRotation(step), solver.getX(step), solver.getY(step)));
+        }
+        return copy;
+    }
+
+    // Cada peça da solução está entre as posições finais que o jogo deixa alcançar
+    private static void assertReachable(Board board, PerfectClearSolver solver, MoveGenerator generator) {
+        Board copy = new Board(board.getWidth(), board.getHeight());
+        copy.copyFrom(board);
+        for (int step = 0; step < solver.getSolutionLength(); step++) {
+            int count = generator.generate(copy);
+            boolean reachable = false;
+            for (int i = 0; i < count && !reachable; i++) {
+                reachable = generator.getRotation(i) == solver.getRotation(step) && generator.getX(i) == solver.getX(step)
+                        && generator.getY(i) == solver.getY(step);
+            }
+            assertTrue("passo " + step, reachable);
+            copy.placeCurrentPiece(solver.getRotation(step), solver.getX(step), solver.getY(step));
+        }
+    }
+
+    /**
+     * Pesquisa de referência: para cada altura alvo possível, todas as sequências de posições
+     * do MoveGenerator que não passam da altura alvo (descontadas as linhas já limpas).
+     */
+    private static boolean exhaustiveSearch(Board board, MoveGenerator generator) {
+        int filled = 0;
+        for (int y = 0; y < board.getStackHeight(); y++) {
+            filled += Long.bitCount(board.getRow(y));
+        }
+        int maxPieces = PerfectClearSolver.DEFAULT_MAX_HEIGHT * board.getWidth() / 4;
+        for (int height = Math.max(1, board.getStackHeight()); height <= PerfectClearSolver.DEFAULT_MAX_HEIGHT; height++) {
+            int empty = height * board.getWidth() - filled;
+            if (empty % 4 == 0 && empty / 4 <= maxPieces
+                    && exhaustiveSearch(board, height, board.getLinesCleared(), generator)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean exhaustiveSearch(Board board, int height, int linesBefore, MoveGenerator generator) {
+        int cleared = board.getLinesCleared() - linesBefore;
+        if (cleared == height) {
+            return board.getStackHeight() == 0;
+        }
+        if (board.isGameOver()) {
+            return false;
+        }
+        Shape.Tetrominoe shape = board.getCurrentPiece().getShape();
+        int count = generator.generate(board);
+        int[][] placements = new int[count][];
+        for (int i = 0; i < count; i++) {
+            placements[i] = new int[] {generator.getRotation(i), generator.getX(i), generator.getY(i)};
+        }
+        for (int[] placement : placements) {
+            int state = Shape.state(shape, placement[0]);
+            if (placement[2] - Shape.minY(state) >= height - cleared) {
+                continue;
+            }
+            Board next = new Board(board.getWidth(), board.getHeight());
+            next.copyFrom(board);
+            next.placeCurrentPiece(placement[0], placement[1], placement[2]);
+            if (exhaustiveSearch(next, height, linesBefore, generator)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void dropRandomly(Board board, Random random) {
+        Shape.Tetrominoe shape = board.getCurrentPiece().getShape();
+        for (int attempt = 0; attempt < 32; attempt++) {
+            int rotation = random.nextInt(Shape.rotationCount(shape));
+            int x = random.nextInt(board.getWidth() + 4) - 2;
+            int y = board.getDropY(rotation, x);
+            if (y != Integer.MIN_VALUE) {
+                board.placeCurrentPiece(rotation, x, y);
+                return;
+            }
+        }
+    }
+
+    private static Shape.Tetrominoe[] randomQueue(Random random, int length) {
+        Shape.Tetrominoe[] queue = new Shape.Tetrominoe[length];
+        for (int i = 0; i < length; i++) {
+            queue[i] = SHAPES[random.nextInt(SHAPES.length)];
+        }
+        return queue;
+    }
+
+    /**
+     * Gerador que repete uma sequência fixa de peças (para montar tabuleiros e filas conhecidos).
+     */
+    private static class SequenceGenerator extends PieceGenerator {
+        private final Shape.Tetrominoe[] sequence;
+        private int position;
+
+        SequenceGenerator(Shape.Tetrominoe... sequence) {
+            super(0);
+            this.sequence = sequence;
+        }
+
+        @Override
+        protected void fill(byte[] out, int offset, int count) {
+            for (int i = 0; i < count; i++) {
+                out[offset + i] = (byte) sequence[position].ordinal();
+                position = (position + 1) % sequence.length;
+            }
+        }
+
+        @Override
+        public PieceGenerator newInstance(long seed) {
+            return new SequenceGenerator(sequence);
+        }
+
+        @Override
+        protected void resetState() {
+            position = 0;
+        }
+
+        @Override
+        protected void copyStateFrom(PieceGenerator other) {
+            position = ((SequenceGenerator) other).position;
+        }
+    }
+}
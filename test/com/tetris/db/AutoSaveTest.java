@@ -0,0 +1,144 @@
+package com.tetris.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.tetris.model.Board;
+import com.tetris.model.Shape;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Gravação automática: ida e volta da partida e recuperação de um slot escrito a meio
+ * (fica a gravação anterior, do outro slot).
+ */
+public class AutoSaveTest {
+
+    // Cabeçalho do ficheiro: "TTSV", versão e tamanho dos slots; cada slot tem 16 bytes de cabeçalho
+    private static final int FILE_HEADER_SIZE = 12;
+    private static final int SLOT_HEADER_SIZE = 16;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void savedGameLoadsBack() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("autosave.bin");
+        Board board = playedBoard(3, 20);
+        try (AutoSave autoSave = AutoSave.open(file, board.getWidth(), board.getHeight())) {
+            autoSave.save(board, "Ana");
+        }
+        AutoSave.SavedGame saved = AutoSave.load(file);
+        assertNotNull(saved);
+        assertEquals("Ana", saved.playerName());
+        assertSameGame(board, saved.board());
+    }
+
+    @Test
+    public void tornNewestSlotFallsBackToThePreviousSave() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("autosave.bin");
+        Board first = playedBoard(5, 10);
+        Board second = playedBoard(5, 25);
+        try (AutoSave autoSave = AutoSave.open(file, first.getWidth(), first.getHeight())) {
+            autoSave.save(first, "Ana"); // Slot 1
+            autoSave.save(second, "Ana"); // Slot 0
+        }
+        assertSameGame(second, AutoSave.load(file).board());
+
+        // Escrita interrompida: o conteúdo do slot 0 já não bate com o CRC
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+            channel.read(header, 0);
+            int slotSize = header.getInt(8);
+            long position = FILE_HEADER_SIZE + SLOT_HEADER_SIZE + 10;
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, position);
+            channel.write(ByteBuffer.wrap(new byte[] {(byte) (b.get(0) ^ 0x5A)}), position);
+            assertTrue(position < FILE_HEADER_SIZE + slotSize);
+        }
+        AutoSave.SavedGame saved = AutoSave.load(file);
+        assertNotNull(saved);
+        assertSameGame(first, saved.board());
+
+        // Reaberto, grava por cima do slot estragado e volta a haver a partida mais recente
+        try (AutoSave autoSave = AutoSave.open(file, first.getWidth(), first.getHeight())) {
+            autoSave.save(second, "Rui");
+        }
+        saved = AutoSave.load(file);
+        assertEquals("Rui", saved.playerName());
+        assertSameGame(second, saved.board());
+    }
+
+    @Test
+    public void clearedSaveHasNothingToResume() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("autosave.bin");
+        Board board = playedBoard(7, 15);
+        try (AutoSave autoSave = AutoSave.open(file, board.getWidth(), board.getHeight())) {
+            autoSave.save(board, "Ana");
+            autoSave.clear();
+        }
+        assertNull(AutoSave.load(file));
+    }
+
+    @Test
+    public void otherDimensionsRecreateTheFile() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("autosave.bin");
+        Board board = playedBoard(9, 15);
+        try (AutoSave autoSave = AutoSave.open(file, board.getWidth(), board.getHeight())) {
+            autoSave.save(board, "Ana");
+        }
+        try (AutoSave autoSave = AutoSave.open(file, 12, 24)) {
+            assertNull(AutoSave.load(file));
+            // O ficheiro novo guarda tabuleiros com as dimensões novas
+            Board wider = new Board(12, 24);
+            wider.start(9);
+            autoSave.save(wider, "Rui");
+        }
+        AutoSave.SavedGame saved = AutoSave.load(file);
+        assertNotNull(saved);
+        assertEquals(12, saved.board().getWidth());
+        assertEquals(24, saved.board().getHeight());
+        assertEquals("Rui", saved.playerName());
+    }
+
+    // Partida em que cada peça vai para a posição mais baixa ao seu alcance (a pilha fica rasa)
+    private static Board playedBoard(long seed, int pieces) {
+        Board board = new Board();
+        board.start(seed);
+        for (int i = 0; i < pieces; i++) {
+            Shape.Tetrominoe shape = board.getCurrentPiece().getShape();
+            int bestRotation = 0, bestX = 0, bestY = Integer.MAX_VALUE;
+            for (int rotation = 0; rotation < Shape.rotationCount(shape); rotation++) {
+                for (int x = -2; x < board.getWidth() + 2; x++) {
+                    int y = board.getDropY(rotation, x);
+                    if (y != Integer.MIN_VALUE && y < bestY) {
+                        bestRotation = rotation;
+                        bestX = x;
+                        bestY = y;
+                    }
+                }
+            }
+            assertTrue(board.placeCurrentPiece(bestRotation, bestX, bestY));
+        }
+        assertFalse(board.isGameOver());
+        return board;
+    }
+
+    private static void assertSameGame(Board expected, Board actual) {
+        assertTrue(expected.stateEquals(actual));
+        assertEquals(expected.getScore(), actual.getScore());
+        assertEquals(expected.getLevel(), actual.getLevel());
+        assertEquals(expected.getLinesCleared(), actual.getLinesCleared());
+        assertEquals(expected.getNextPiece().getShape(), actual.getNextPiece().getShape());
+        assertEquals(expected.getPieceGenerator().getDrawn(), actual.getPieceGenerator().getDrawn());
+    }
+}
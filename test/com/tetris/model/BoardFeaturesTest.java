@@ -0,0 +1,110 @@
+package com.tetris.model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * As características mantidas incrementalmente pelo Board comparadas com as mesmas
+ * características calculadas do zero, célula a célula, com as definições de BoardFeatures.
+ */
+public class BoardFeaturesTest {
+
+    @Test
+    public void incrementalFeaturesMatchRecomputedFeatures() {
+        int[][] sizes = {{Board.BOARD_WIDTH, Board.BOARD_HEIGHT}, {Board.MIN_SIZE, 10}, {Board.MAX_WIDTH, 12}};
+        for (int[] size : sizes) {
+            for (long seed = 1; seed <= 15; seed++) {
+                Random random = new Random(seed);
+                GameEngine engine = new GameEngine(new Board(size[0], size[1]));
+                engine.reset(seed);
+                Board board = engine.getBoard();
+                assertFeatures("início", board);
+                for (int step = 0; step < 3000 && !board.isGameOver(); step++) {
+                    engine.step(1 + random.nextInt(6));
+                    assertFeatures(size[0] + "x" + size[1] + " semente " + seed + ", passo " + step, board);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void copyFromCopiesFeatures() {
+        GameEngine engine = new GameEngine(new Board());
+        engine.reset(11);
+        Random random = new Random(11);
+        for (int step = 0; step < 300; step++) {
+            engine.step(1 + random.nextInt(6));
+        }
+        Board copy = new Board();
+        copy.copyFrom(engine.getBoard());
+        assertFeatures("cópia", copy);
+    }
+
+    private static void assertFeatures(String context, Board board) {
+        int width = board.getWidth();
+        int height = board.getHeight();
+        boolean[][] cell = new boolean[height][width];
+        int filled = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                cell[y][x] = (board.getRow(y) >>> x & 1) != 0;
+                if (cell[y][x]) filled++;
+            }
+        }
+        int[] heights = new int[width];
+        int aggregateHeight = 0;
+        int holes = 0;
+        for (int x = 0; x < width; x++) {
+            for (int y = height - 1; y >= 0; y--) {
+                if (cell[y][x]) {
+                    heights[x] = y + 1;
+                    break;
+                }
+            }
+            aggregateHeight += heights[x];
+            for (int y = 0; y < heights[x]; y++) {
+                if (!cell[y][x]) holes++;
+            }
+        }
+        int rowTransitions = 0;
+        for (int y = 0; y < height; y++) {
+            if (board.getRow(y) == 0) continue;
+            boolean previous = true; // Parede esquerda
+            for (int x = 0; x < width; x++) {
+                if (cell[y][x] != previous) rowTransitions++;
+                previous = cell[y][x];
+            }
+            if (!previous) rowTransitions++; // Parede direita
+        }
+        int columnTransitions = 0;
+        for (int x = 0; x < width; x++) {
+            boolean previous = true; // Chão
+            for (int y = 0; y < height; y++) {
+                if (cell[y][x] != previous) columnTransitions++;
+                previous = cell[y][x];
+            }
+        }
+        int bumpiness = 0;
+        for (int x = 0; x + 1 < width; x++) {
+            bumpiness += Math.abs(heights[x] - heights[x + 1]);
+        }
+        int wells = 0;
+        for (int x = 0; x < width; x++) {
+            int left = x > 0 ? heights[x - 1] : Integer.MAX_VALUE;
+            int right = x < width - 1 ? heights[x + 1] : Integer.MAX_VALUE;
+            int depth = Math.min(left, right) - heights[x];
+            if (depth > 0) wells += depth * (depth + 1) / 2;
+        }
+
+        BoardFeatures features = board.getFeatures();
+        assertEquals(context + ": células ocupadas", filled, features.getFilledCells());
+        assertEquals(context + ": altura agregada", aggregateHeight, features.getAggregateHeight());
+        assertEquals(context + ": buracos", holes, features.getHoles());
+        assertEquals(context + ": transições de linha", rowTransitions, features.getRowTransitions());
+        assertEquals(context + ": transições de coluna", columnTransitions, features.getColumnTransitions());
+        assertEquals(context + ": irregularidade", bumpiness, features.getBumpiness());
+        assertEquals(context + ": poços", wells, features.getWells());
+    }
+}
@@ -0,0 +1,279 @@
+package com.tetris.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Grelha em bitboard e limpeza de linhas comparadas com uma grelha de referência
+ * simples (uma matriz de células, linhas removidas uma a uma), e leitura do estado
+ * serializado (writeState/fromState).
+ */
+public class BoardTest {
+
+    /**
+     * Grelha de referência: célula a célula, sem máscaras nem cache de alturas.
+     */
+    private static class ReferenceGrid {
+        final int width;
+        final int height;
+        final Shape.Tetrominoe[][] cells;
+        int linesCleared;
+
+        ReferenceGrid(int width, int height) {
+            this.width = width;
+            this.height = height;
+            cells = new Shape.Tetrominoe[height][width];
+            for (Shape.Tetrominoe[] row : cells) {
+                java.util.Arrays.fill(row, Shape.Tetrominoe.NoShape);
+            }
+        }
+
+        void place(Shape.Tetrominoe shape, int rotation, int x, int y) {
+            int state = Shape.state(shape, rotation);
+            for (int i = 0; i < 4; i++) {
+                int cy = y - Shape.cellY(state, i);
+                if (cy < height) {
+                    cells[cy][x + Shape.cellX(state, i)] = shape;
+                }
+            }
+            for (int row = 0; row < height; ) {
+                if (isFull(row)) {
+                    for (int above = row; above < height - 1; above++) {
+                        cells[above] = cells[above + 1];
+                    }
+                    cells[height - 1] = new Shape.Tetrominoe[width];
+                    java.util.Arrays.fill(cells[height - 1], Shape.Tetrominoe.NoShape);
+                    linesCleared++;
+                } else {
+                    row++;
+                }
+            }
+        }
+
+        boolean isFull(int row) {
+            for (int x = 0; x < width; x++) {
+                if (cells[row][x] == Shape.Tetrominoe.NoShape) return false;
+            }
+            return true;
+        }
+
+        int columnHeight(int x) {
+            for (int y = height - 1; y >= 0; y--) {
+                if (cells[y][x] != Shape.Tetrominoe.NoShape) return y + 1;
+            }
+            return 0;
+        }
+    }
+
+    @Test
+    public void randomPlacementsMatchReferenceGrid() {
+        for (long seed = 1; seed <= 30; seed++) {
+            playAndCompare(Board.BOARD_WIDTH, Board.BOARD_HEIGHT, seed);
+        }
+    }
+
+    @Test
+    public void wideBoardUsesWholeRowMask() {
+        // 64 colunas: a linha cheia é -1L, sem bits de sobra na long
+        for (long seed = 1; seed <= 5; seed++) {
+            playAndCompare(Board.MAX_WIDTH, 24, seed);
+        }
+    }
+
+    @Test
+    public void narrowBoardClearsLines() {
+        int lines = 0;
+        for (long seed = 1; seed <= 30; seed++) {
+            lines += playAndCompare(Board.MIN_SIZE, 12, seed);
+        }
+        // Com 4 colunas as jogadas baixas limpam muitas linhas (várias de uma vez)
+        assertTrue(lines > 100);
+    }
+
+    @Test
+    public void tetrisClearsFourRowsAndScores() {
+        Board board = new Board(4, 8);
+        board.setPieceGenerator(new FixedGenerator(Shape.Tetrominoe.LineShape));
+        board.start(0);
+        // Quatro I verticais, uma por coluna, enchem as quatro linhas de baixo
+        for (int x = 0; x < 4; x++) {
+            int rotation = 0;
+            assertTrue(board.placeCurrentPiece(rotation, x, board.getDropY(rotation, x)));
+        }
+        assertEquals(4, board.getLinesCleared());
+        assertEquals(1200, board.getScore());
+        assertEquals(0, board.getStackHeight());
+        assertEquals(0b1111, board.getLastClearedRows());
+        for (int y = 0; y < 8; y++) {
+            assertEquals(0L, board.getRow(y));
+        }
+    }
+
+    @Test
+    public void writtenStateReadsBack() {
+        for (long seed = 1; seed <= 10; seed++) {
+            Board board = playedBoard(seed);
+            Board copy = Board.fromState(writeState(board));
+            assertTrue(board.stateEquals(copy));
+            assertEquals(board.getScore(), copy.getScore());
+            assertEquals(board.getPieceGenerator().getDrawn(), copy.getPieceGenerator().getDrawn());
+            assertEquals(board.getNextPiece().getShape(), copy.getNextPiece().getShape());
+            for (int y = 0; y < board.getStackHeight(); y++) {
+                for (int x = 0; x < board.getWidth(); x++) {
+                    assertEquals(board.shapeAt(x, y), copy.shapeAt(x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void corruptStateIsRejected() {
+        Board board = playedBoard(3);
+        assertTrue(board.getStackHeight() > 0);
+        ByteBuffer state = writeState(board);
+        // Dimensões (6), flags (1), quatro ints (16) e as duas peças (20): depois vem o gerador
+        int generatorKind = 43;
+        int drawn = 52;
+        int firstColors = 64 + 8;
+
+        assertRejected(withByte(state, generatorKind, 2));
+        assertRejected(withLong(state, drawn, Long.MAX_VALUE));
+        assertRejected(withLong(state, drawn, -1));
+        // Cor fora das formas, cor vazia numa célula ocupada e cor numa célula vazia
+        long row = state.getLong(64);
+        int filled = Long.numberOfTrailingZeros(row);
+        int empty = Long.numberOfTrailingZeros(~row);
+        assertRejected(withByte(state, firstColors + filled, Shape.Tetrominoe.values().length));
+        assertRejected(withByte(state, firstColors + filled, -1));
+        assertRejected(withByte(state, firstColors + filled, 0));
+        assertRejected(withByte(state, firstColors + empty, Shape.Tetrominoe.TShape.ordinal()));
+    }
+
+    private static Board playedBoard(long seed) {
+        Board board = new Board();
+        board.start(seed);
+        for (int i = 0; i < 12 && !board.isGameOver(); i++) {
+            board.dropDown();
+            board.moveLeft();
+        }
+        return board;
+    }
+
+    private static ByteBuffer writeState(Board board) {
+        ByteBuffer state = ByteBuffer.allocate(Board.maxStateSize(board.getWidth(), board.getHeight()));
+        board.writeState(state);
+        return state.flip();
+    }
+
+    private static ByteBuffer withByte(ByteBuffer state, int offset, int value) {
+        ByteBuffer copy = ByteBuffer.allocate(state.limit()).put(state.duplicate()).flip();
+        return copy.put(offset, (byte) value);
+    }
+
+    private static ByteBuffer withLong(ByteBuffer state, int offset, long value) {
+        ByteBuffer copy = ByteBuffer.allocate(state.limit()).put(state.duplicate()).flip();
+        return copy.putLong(offset, value);
+    }
+
+    private static void assertRejected(ByteBuffer state) {
+        try {
+            Board.fromState(state);
+            fail("estado inválido aceite");
+        } catch (IllegalArgumentException expected) {
+            // Esperado
+        }
+    }
+
+    // Joga peças em posições aleatórias e compara a grelha depois de cada uma; devolve as linhas limpas
+    private static int playAndCompare(int width, int height, long seed) {
+        Random random = new Random(seed);
+        Board board = new Board(width, height);
+        board.start(seed);
+        ReferenceGrid reference = new ReferenceGrid(width, height);
+
+        for (int move = 0; move < 2000 && !board.isGameOver(); move++) {
+            Shape.Tetrominoe shape = board.getCurrentPiece().getShape();
+            // Quase sempre a jogada mais baixa (para a pilha não chegar logo ao topo e haver
+            // limpezas de linhas), às vezes uma qualquer (para aparecerem buracos)
+            boolean lowest = random.nextInt(4) != 0;
+            int rotation = -1, x = 0, y = Integer.MAX_VALUE;
+            for (int attempt = 0; attempt < 4 * Board.MAX_WIDTH; attempt++) {
+                int r = random.nextInt(Shape.rotationCount(shape));
+                int cx = random.nextInt(width);
+                int cy = board.getDropY(r, cx);
+                if (cy != Integer.MIN_VALUE && board.canMoveTo(shape, r, cx, cy) && cy < y) {
+                    rotation = r;
+                    x = cx;
+                    y = cy;
+                    if (!lowest) break;
+                }
+            }
+            if (rotation < 0) {
+                continue;
+            }
+            assertTrue(board.placeCurrentPiece(rotation, x, y));
+            reference.place(shape, rotation, x, y);
+            assertSameGrid("semente " + seed + ", jogada " + move, reference, board);
+        }
+        return board.getLinesCleared();
+    }
+
+    private static void assertSameGrid(String context, ReferenceGrid reference, Board board) {
+        assertEquals(context, reference.linesCleared, board.getLinesCleared());
+        int stackHeight = 0;
+        for (int x = 0; x < reference.width; x++) {
+            int columnHeight = reference.columnHeight(x);
+            assertEquals(context + ", altura da coluna " + x, columnHeight, board.getColumnHeight(x));
+            stackHeight = Math.max(stackHeight, columnHeight);
+        }
+        assertEquals(context, stackHeight, board.getStackHeight());
+        for (int y = 0; y < reference.height; y++) {
+            long expectedRow = 0;
+            for (int x = 0; x < reference.width; x++) {
+                Shape.Tetrominoe expected = reference.cells[y][x];
+                if (expected != Shape.Tetrominoe.NoShape) {
+                    expectedRow |= 1L << x;
+                }
+                assertEquals(context + ", célula " + x + "," + y, expected, board.shapeAt(x, y));
+            }
+            assertEquals(context + ", linha " + y, expectedRow, board.getRow(y));
+            assertFalse(context, expectedRow != 0 && y >= stackHeight);
+        }
+    }
+
+    /**
+     * Gerador que só dá uma forma (para montar tabuleiros conhecidos).
+     */
+    private static class FixedGenerator extends PieceGenerator {
+        private final Shape.Tetrominoe shape;
+
+        FixedGenerator(Shape.Tetrominoe shape) {
+            super(0);
+            this.shape = shape;
+        }
+
+        @Override
+        protected void fill(byte[] out, int offset, int count) {
+            java.util.Arrays.fill(out, offset, offset + count, (byte) shape.ordinal());
+        }
+
+        @Override
+        public PieceGenerator newInstance(long seed) {
+            return new FixedGenerator(shape);
+        }
+
+        @Override
+        protected void resetState() {
+        }
+
+        @Override
+        protected void copyStateFrom(PieceGenerator other) {
+        }
+    }
+}
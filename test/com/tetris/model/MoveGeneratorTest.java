@@ -0,0 +1,149 @@
+package com.tetris.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+/**
+ * O MoveGenerator comparado com uma busca de referência (BFS passo a passo, sem o
+ * atalho de queda acima da pilha) e com os inputs do GameEngine.
+ */
+public class MoveGeneratorTest {
+
+    @Test
+    public void placementsMatchReferenceSearch() {
+        MoveGenerator generator = new MoveGenerator(Board.BOARD_WIDTH, Board.BOARD_HEIGHT);
+        for (long seed = 1; seed <= 40; seed++) {
+            Random random = new Random(seed);
+            Board board = new Board();
+            board.start(seed);
+            for (int move = 0; move < 60 && !board.isGameOver(); move++) {
+                Set<Long> expected = referencePlacements(board);
+                int count = generator.generate(board);
+                Set<Long> actual = new HashSet<>();
+                for (int i = 0; i < count; i++) {
+                    assertTrue("posição repetida", actual.add(key(generator.getX(i), generator.getY(i),
+                            generator.getRotation(i))));
+                }
+                assertEquals("semente " + seed + ", jogada " + move, expected, actual);
+                placeRandomly(board, generator, random);
+            }
+        }
+    }
+
+    @Test
+    public void pathsLeadToTheirPlacements() {
+        MoveGenerator generator = new MoveGenerator(Board.BOARD_WIDTH, Board.BOARD_HEIGHT);
+        byte[] path = new byte[Board.BOARD_WIDTH * Board.BOARD_HEIGHT * Shape.ROTATIONS];
+        Board copy = new Board();
+        GameEngine engine = new GameEngine(copy);
+        for (long seed = 1; seed <= 20; seed++) {
+            Random random = new Random(seed);
+            Board board = new Board();
+            board.start(seed);
+            for (int move = 0; move < 40 && !board.isGameOver(); move++) {
+                int count = generator.generate(board);
+                for (int i = 0; i < count; i++) {
+                    copy.copyFrom(board);
+                    int length = generator.getPath(i, path);
+                    assertEquals(generator.getPathLength(i), length);
+                    for (int k = 0; k < length; k++) {
+                        assertTrue(engine.step(path[k]));
+                    }
+                    Piece piece = copy.getCurrentPiece();
+                    assertEquals(generator.getX(i), piece.getX());
+                    assertEquals(generator.getY(i), piece.getY());
+                    assertEquals(generator.getRotation(i), piece.getRotation());
+                    // Posição final: a peça não consegue descer mais
+                    assertFalse(copy.canMoveTo(piece.getShape(), piece.getRotation(), piece.getX(), piece.getY() - 1));
+                }
+                placeRandomly(board, generator, random);
+            }
+        }
+    }
+
+    @Test
+    public void randomInputsOnlyReachGeneratedPlacements() {
+        // Qualquer sequência de inputs que acabe com a peça pousada tem de dar uma posição gerada
+        MoveGenerator generator = new MoveGenerator(Board.BOARD_WIDTH, Board.BOARD_HEIGHT);
+        Random random = new Random(7);
+        Board board = new Board();
+        board.start(7);
+        Board copy = new Board();
+        GameEngine engine = new GameEngine(copy);
+        for (int move = 0; move < 50 && !board.isGameOver(); move++) {
+            int count = generator.generate(board);
+            Set<Long> generated = new HashSet<>();
+            for (int i = 0; i < count; i++) {
+                generated.add(key(generator.getX(i), generator.getY(i), generator.getRotation(i)));
+            }
+            for (int walk = 0; walk < 200; walk++) {
+                copy.copyFrom(board);
+                Piece piece = copy.getCurrentPiece();
+                for (int step = 0; step < 200; step++) {
+                    // Não usa SOFT_DROP com a peça pousada: isso bloqueava-a
+                    if (!copy.canMoveTo(piece.getShape(), piece.getRotation(), piece.getX(), piece.getY() - 1)) {
+                        if (random.nextInt(4) == 0) break;
+                        engine.step(GameEngine.Input.values()[1 + random.nextInt(2) + (random.nextBoolean() ? 3 : 0)]);
+                    } else {
+                        engine.step(GameEngine.Input.values()[1 + random.nextInt(5)]);
+                    }
+                }
+                if (!copy.canMoveTo(piece.getShape(), piece.getRotation(), piece.getX(), piece.getY() - 1)) {
+                    assertTrue(generated.contains(key(piece.getX(), piece.getY(), piece.getRotation())));
+                }
+            }
+            placeRandomly(board, generator, random);
+        }
+    }
+
+    // BFS simples sobre (x, y, rotação), uma linha de cada vez
+    private static Set<Long> referencePlacements(Board board) {
+        Piece piece = board.getCurrentPiece();
+        Shape.Tetrominoe shape = piece.getShape();
+        Set<Long> visited = new HashSet<>();
+        Set<Long> placements = new HashSet<>();
+        java.util.ArrayDeque<int[]> queue = new java.util.ArrayDeque<>();
+        visited.add(key(piece.getX(), piece.getY(), piece.getRotation()));
+        queue.add(new int[] {piece.getX(), piece.getY(), piece.getRotation()});
+        while (!queue.isEmpty()) {
+            int[] s = queue.poll();
+            int[][] next = {
+                {s[0] - 1, s[1], s[2]},
+                {s[0] + 1, s[1], s[2]},
+                {s[0], s[1], Shape.rotateLeft(shape, s[2])},
+                {s[0], s[1], Shape.rotateRight(shape, s[2])},
+                {s[0], s[1] - 1, s[2]}
+            };
+            for (int[] n : next) {
+                if (board.canMoveTo(shape, n[2], n[0], n[1]) && visited.add(key(n[0], n[1], n[2]))) {
+                    queue.add(n);
+                }
+            }
+            if (!board.canMoveTo(shape, s[2], s[0], s[1] - 1)) {
+                placements.add(key(s[0], s[1], s[2]));
+            }
+        }
+        return placements;
+    }
+
+    // Joga uma das posições geradas, para ir criando saliências e buracos
+    private static void placeRandomly(Board board, MoveGenerator generator, Random random) {
+        int count = generator.generate(board);
+        if (count == 0) {
+            board.dropDown();
+            return;
+        }
+        int i = random.nextInt(count);
+        assertTrue(board.placeCurrentPiece(generator.getRotation(i), generator.getX(i), generator.getY(i)));
+    }
+
+    private static long key(int x, int y, int rotation) {
+        return ((long) (x + 16) << 32) | ((long) y << 4) | rotation;
+    }
+}
@@ -0,0 +1,72 @@
+package com.tetris.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * O hash de Zobrist mantido incrementalmente pelo Board tem de ser sempre igual ao
+ * hash recalculado do zero a partir das linhas e da peça atual.
+ */
+public class ZobristTest {
+
+    @Test
+    public void incrementalHashMatchesRecomputedHash() {
+        for (long seed = 1; seed <= 20; seed++) {
+            Random random = new Random(seed);
+            GameEngine engine = new GameEngine(new Board(8, 16));
+            engine.reset(seed);
+            Board board = engine.getBoard();
+            for (int step = 0; step < 5000 && !board.isGameOver(); step++) {
+                // Inputs aleatórios com poucas quedas instantâneas, para a pilha ir subindo devagar
+                int code = 1 + random.nextInt(random.nextInt(8) == 0 ? 6 : 5);
+                engine.step(code);
+                assertEquals("semente " + seed + ", passo " + step, recompute(board), board.getZobristHash());
+            }
+        }
+    }
+
+    @Test
+    public void copiesHaveEqualStateAndHash() {
+        GameEngine engine = new GameEngine(new Board());
+        engine.reset(3);
+        Board board = engine.getBoard();
+        Board copy = new Board();
+        Random random = new Random(3);
+        for (int step = 0; step < 2000 && !board.isGameOver(); step++) {
+            engine.step(1 + random.nextInt(6));
+            copy.copyFrom(board);
+            assertEquals(board.getZobristHash(), copy.getZobristHash());
+            assertTrue(board.stateEquals(copy));
+        }
+    }
+
+    @Test
+    public void movingThePieceChangesTheHash() {
+        Board board = new Board();
+        board.start(5);
+        long before = board.getZobristHash();
+        board.moveLeft();
+        assertNotEquals(before, board.getZobristHash());
+        board.moveRight();
+        assertEquals(before, board.getZobristHash());
+
+        Board other = new Board();
+        other.start(5);
+        other.moveLeft();
+        assertFalse(board.stateEquals(other));
+    }
+
+    private static long recompute(Board board) {
+        long hash = 0;
+        for (int y = 0; y < board.getHeight(); y++) {
+            hash ^= Zobrist.rowKey(y, board.getRow(y));
+        }
+        Piece piece = board.getCurrentPiece();
+        return hash ^ Zobrist.pieceKey(piece.getShape(), piece.getRotation(), piece.getX(), piece.getY());
+    }
+}
@@ -0,0 +1,106 @@
+package com.tetris.replay;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * ReplayArchive reaberto depois de escritas interrompidas: as entradas do índice sem a
+ * gravação inteira no segmento são cortadas, as anteriores ficam intactas.
+ */
+public class ReplayArchiveTest {
+
+    private static final int GAMES = 3;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recordingsSurviveReopen() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        byte[][] recordings = fill(directory);
+        try (ReplayArchive archive = ReplayArchive.open(directory)) {
+            assertKept(archive, recordings, GAMES);
+            assertEquals(40 + 2, archive.getEntry(2).score());
+            assertEquals("jogador2", archive.getEntry(2).playerName());
+        }
+    }
+
+    @Test
+    public void truncatedSegmentDropsTheLastEntry() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        byte[][] recordings = fill(directory);
+        try (FileChannel segment = FileChannel.open(directory.resolve(ReplayArchive.SEGMENT_FILE),
+                StandardOpenOption.WRITE)) {
+            segment.truncate(segment.size() - 1);
+        }
+        try (ReplayArchive archive = ReplayArchive.open(directory)) {
+            assertKept(archive, recordings, GAMES - 1);
+            // O espaço cortado é reutilizado pela partida seguinte
+            archive.append(ByteBuffer.wrap(recordings[2]), 3, "jogador2", 42);
+            assertKept(archive, recordings, GAMES);
+        }
+    }
+
+    @Test
+    public void entryPointingAtUnwrittenBytesIsDropped() throws IOException {
+        // O índice chegou ao disco, mas os bytes da gravação ficaram a zero
+        Path directory = folder.getRoot().toPath();
+        byte[][] recordings = fill(directory);
+        long position;
+        try (ReplayArchive archive = ReplayArchive.open(directory)) {
+            position = archive.getEntry(GAMES - 1).position();
+        }
+        try (FileChannel segment = FileChannel.open(directory.resolve(ReplayArchive.SEGMENT_FILE),
+                StandardOpenOption.WRITE)) {
+            segment.write(ByteBuffer.allocate(recordings[GAMES - 1].length), position);
+        }
+        try (ReplayArchive archive = ReplayArchive.open(directory)) {
+            assertKept(archive, recordings, GAMES - 1);
+        }
+    }
+
+    @Test
+    public void zeroedAndTornIndexEntriesAreDropped() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        byte[][] recordings = fill(directory);
+        try (FileChannel index = FileChannel.open(directory.resolve(ReplayArchive.INDEX_FILE),
+                StandardOpenOption.WRITE)) {
+            // Uma entrada inteira a zeros e metade de outra
+            index.write(ByteBuffer.allocate(56 + 20), index.size());
+        }
+        try (ReplayArchive archive = ReplayArchive.open(directory)) {
+            assertKept(archive, recordings, GAMES);
+        }
+    }
+
+    private static byte[][] fill(Path directory) throws IOException {
+        byte[][] recordings = new byte[GAMES][];
+        try (ReplayArchive archive = ReplayArchive.open(directory)) {
+            for (int i = 0; i < GAMES; i++) {
+                recordings[i] = ReplayTest.record(i + 1, 8, 12);
+                assertEquals(i, archive.append(ByteBuffer.wrap(recordings[i]), i + 1, "jogador" + i, 40 + i));
+            }
+        }
+        return recordings;
+    }
+
+    private static void assertKept(ReplayArchive archive, byte[][] recordings, int games) throws IOException {
+        assertEquals(games, archive.size());
+        for (int i = 0; i < games; i++) {
+            ByteBuffer recording = archive.getRecording(i);
+            byte[] bytes = new byte[recording.remaining()];
+            recording.get(bytes);
+            assertArrayEquals("partida " + i, recordings[i], bytes);
+            assertEquals(i + 1, archive.getEntry(i).sessionId());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.tetris.replay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.tetris.model.Board;
+import com.tetris.model.GameEngine;
+import com.tetris.model.UniformGenerator;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Determinismo dos replays: uma partida gravada pelo ReplayCapture e reproduzida pelo
+ * ReplayPlayer passa pelos mesmos estados, tick a tick, que a partida ao vivo, e um seek
+ * (para a frente ou para trás, a partir dos keyframes) dá o mesmo que a reprodução linear.
+ */
+public class ReplayPlayerTest {
+
+    private static final GameEngine.Input[] MOVES = {
+        GameEngine.Input.LEFT, GameEngine.Input.RIGHT, GameEngine.Input.ROTATE_RIGHT, GameEngine.Input.ROTATE_LEFT
+    };
+
+    @Test
+    public void playbackMatchesLiveGame() throws IOException {
+        for (long seed = 1; seed <= 10; seed++) {
+            List<Board> live = new ArrayList<>();
+            byte[] recording = playLive(seed, live);
+            ReplayPlayer player = new ReplayPlayer(Replay.read(ByteBuffer.wrap(recording)));
+            assertEquals(live.size() - 1, player.getLength());
+            for (int tick = 0; tick < live.size(); tick++) {
+                assertEquals(tick, player.getTick());
+                assertSameBoard("semente " + seed + ", tick " + tick, live.get(tick), player.getBoard());
+                player.advance(1);
+            }
+            assertTrue(player.isFinished());
+            assertTrue(player.getBoard().isGameOver());
+
+            ReplayPlayer toEnd = new ReplayPlayer(Replay.read(ByteBuffer.wrap(recording)));
+            toEnd.playToEnd();
+            assertSameBoard("semente " + seed + ", fim", live.get(live.size() - 1), toEnd.getBoard());
+        }
+    }
+
+    @Test
+    public void seekMatchesLinearPlayback() throws IOException {
+        for (long seed = 1; seed <= 5; seed++) {
+            List<Board> live = new ArrayList<>();
+            byte[] recording = playLive(seed, live);
+            // Keyframes pequenos para haver muitos, e a meio de jogadas
+            ReplayPlayer player = new ReplayPlayer(Replay.read(ByteBuffer.wrap(recording)), 7);
+            Random random = new Random(seed);
+            for (int jump = 0; jump < 60; jump++) {
+                int tick = random.nextInt(live.size() + 20) - 10; // Também fora de [0, duração]
+                player.seek(tick);
+                int expected = Math.max(0, Math.min(tick, live.size() - 1));
+                assertEquals(expected, player.getTick());
+                assertSameBoard("semente " + seed + ", seek " + tick, live.get(expected), player.getBoard());
+            }
+            assertTrue(player.getKeyframeCount() > 1);
+        }
+    }
+
+    // Joga uma partida com inputs e ticks ao acaso, guardando uma cópia do Board em cada
+    // tick (depois dos inputs desse tick, como o ReplayPlayer), e devolve a gravação
+    private static byte[] playLive(long seed, List<Board> states) {
+        Board board = new Board(8, 16);
+        if (seed % 2 == 0) {
+            board.setPieceGenerator(new UniformGenerator(seed));
+        }
+        GameEngine engine = new GameEngine(board);
+        ReplayCapture capture = new ReplayCapture();
+        engine.setInputListener(capture);
+        engine.reset(seed);
+        Random random = new Random(seed * 7919);
+        while (true) {
+            for (int inputs = random.nextInt(4); inputs > 0 && !board.isGameOver(); inputs--) {
+                engine.step(randomInput(random));
+            }
+            Board state = new Board(board.getWidth(), board.getHeight());
+            state.copyFrom(board);
+            states.add(state);
+            if (board.isGameOver()) {
+                break;
+            }
+            engine.tick();
+            if (board.isGameOver()) {
+                // Fim por gravidade: o estado final é o deste tick
+                state = new Board(board.getWidth(), board.getHeight());
+                state.copyFrom(board);
+                states.add(state);
+                break;
+            }
+        }
+        assertEquals(states.size() - 1, engine.getTickCount());
+        assertTrue(capture.isComplete());
+        return capture.toByteArray();
+    }
+
+    // Poucas descidas, para as partidas durarem mais ticks (e passarem vários keyframes)
+    private static GameEngine.Input randomInput(Random random) {
+        int roll = random.nextInt(40);
+        if (roll == 0) return GameEngine.Input.HARD_DROP;
+        if (roll < 4) return GameEngine.Input.SOFT_DROP;
+        return MOVES[roll % MOVES.length];
+    }
+
+    private static void assertSameBoard(String context, Board expected, Board actual) {
+        assertEquals(context, expected.isGameOver(), actual.isGameOver());
+        assertEquals(context, expected.getScore(), actual.getScore());
+        assertEquals(context, expected.getLevel(), actual.getLevel());
+        assertEquals(context, expected.getLinesCleared(), actual.getLinesCleared());
+        assertTrue(context, expected.stateEquals(actual));
+        assertEquals(context, expected.getNextPiece().getShape(), actual.getNextPiece().getShape());
+        assertEquals(context, expected.getPieceGenerator().getDrawn(), actual.getPieceGenerator().getDrawn());
+    }
+}
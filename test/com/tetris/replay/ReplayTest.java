@@ -0,0 +1,94 @@
+package com.tetris.replay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.tetris.model.Board;
+import com.tetris.model.GameEngine;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Leitura de gravações (Replay.read): cabeçalhos corrompidos dão IOException, nunca
+ * uma exceção do Board ao criar o engine.
+ */
+public class ReplayTest {
+
+    // Magic (4 bytes), versão do formato (1) e versão das regras (varint de 1 byte)
+    private static final int WIDTH_OFFSET = 6;
+    private static final int HEIGHT_OFFSET = 7;
+    private static final int GENERATOR_OFFSET = 8;
+    // Com os três varints de 1 byte: ... gerador (1), semente (8) e início (8)
+    private static final int HEADER_BYTES = 25;
+
+    @Test
+    public void recordingReadsBackWithItsHeader() throws IOException {
+        byte[] bytes = record(3, 8, 12);
+        Replay replay = Replay.read(ByteBuffer.wrap(bytes));
+        assertEquals(8, replay.getWidth());
+        assertEquals(12, replay.getHeight());
+        assertEquals(3, replay.getSeed());
+        assertTrue(replay.isCompatible());
+        assertTrue(replay.isComplete());
+        assertEquals(8, replay.newEngine().getBoard().getWidth());
+    }
+
+    @Test
+    public void invalidDimensionsAreRejected() {
+        byte[] bytes = record(5, 8, 12);
+        assertRejected(with(bytes, WIDTH_OFFSET, 0));
+        assertRejected(with(bytes, WIDTH_OFFSET, Board.MIN_SIZE - 1));
+        assertRejected(with(bytes, WIDTH_OFFSET, Board.MAX_WIDTH + 1));
+        assertRejected(with(bytes, HEIGHT_OFFSET, 1));
+    }
+
+    @Test
+    public void unknownGeneratorIsRejected() {
+        assertRejected(with(record(7, 8, 12), GENERATOR_OFFSET, 9));
+    }
+
+    @Test
+    public void truncatedHeaderIsRejected() {
+        byte[] bytes = record(9, 8, 12);
+        for (int length = 0; length < HEADER_BYTES; length++) {
+            assertRejected(Arrays.copyOf(bytes, length));
+        }
+    }
+
+    // Uma partida com inputs ao acaso até ao fim, gravada pelo ReplayCapture (usada também noutros testes)
+    static byte[] record(long seed, int width, int height) {
+        GameEngine engine = new GameEngine(new Board(width, height));
+        ReplayCapture capture = new ReplayCapture();
+        engine.setInputListener(capture);
+        engine.reset(seed);
+        Random random = new Random(seed);
+        while (!engine.getBoard().isGameOver()) {
+            if (random.nextInt(3) == 0) {
+                engine.tick();
+            } else {
+                engine.step(GameEngine.Input.values()[1 + random.nextInt(6)]);
+            }
+        }
+        assertTrue(capture.isComplete());
+        return capture.toByteArray();
+    }
+
+    private static byte[] with(byte[] bytes, int offset, int value) {
+        byte[] copy = bytes.clone();
+        copy[offset] = (byte) value;
+        return copy;
+    }
+
+    private static void assertRejected(byte[] bytes) {
+        try {
+            Replay.read(ByteBuffer.wrap(bytes)).newEngine();
+            fail("gravação inválida aceite");
+        } catch (IOException expected) {
+            // Esperado
+        }
+    }
+}